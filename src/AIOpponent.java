@@ -1,96 +1,254 @@
-import java.lang.Math;
-import java.awt.event.KeyEvent;
+import java.util.SplittableRandom;
 
 /**
- * Static utility class containing the logic for the Player 2 (AI) opponent.
- * This version uses a reliable, immediate attack input when in range, with human-like reaction delays for movement.
+ * Utility-scoring AI shared by every CPU fighter (one instance per fighter).
+ * Each decision builds a small feature vector from both fighters, scores every candidate
+ * action as a weighted sum of those features, masks out actions that aren't possible right
+ * now and picks the best one. Weights come from an {@link AIProfile} (aggression), and the
+ * profile also sets how often the AI decides (reaction time) and how often it fumbles.
+ * Profiles with lookahead re-rank the legal actions by forward simulation ({@link LookaheadSearch}),
+ * and profiles with a policy file use a table learned offline by self-play ({@link PolicyTable}).
+ * A decision is ~150 multiply-adds with no allocation, far below a microsecond.
  */
 public class AIOpponent {
 
-    // AI Constants
-    private static final int AI_MIN_REACT_TIME = 1; // Minimum delay is 1 frame (instant movement)
-    private static final int AI_MAX_REACT_TIME = 3; // Maximum delay is 3 frames (very fast)
-    private static final int AI_ATTACK_RANGE = 50;
-    private static final int AI_BLOCK_RANGE = 80;
+    // --- Features (indices into the feature vector, all roughly in [0, 1]) ---
+    public static final int F_BIAS = 0;
+    public static final int F_FAR = 1;             // How far outside poke range the target is
+    public static final int F_IN_POKE_RANGE = 2;
+    public static final int F_IN_DASH_RANGE = 3;
+    public static final int F_TOO_CLOSE = 4;       // Bodies overlapping
+    public static final int F_THREAT = 5;          // Target's attack is active, close, and facing us
+    public static final int F_TARGET_VULNERABLE = 6; // Target is stunned (free punish)
+    public static final int F_HEALTH_LEAD = 7;     // Our health minus theirs, scaled to [-1, 1]
+    public static final int F_CORNERED = 8;        // Our back is against the wall
+    public static final int FEATURE_COUNT = 9;
+
+    // --- Actions ---
+    public static final int A_IDLE = 0;
+    public static final int A_APPROACH = 1;
+    public static final int A_RETREAT = 2;
+    public static final int A_POKE = 3;
+    public static final int A_BLOCK = 4;
+    public static final int A_DASH = 5;
+    public static final int A_BACKSTEP = 6;
+    public static final int A_SUPER = 7;
+    public static final int A_HOP = 8;
+    public static final int ACTION_COUNT = 9;
+
+    // --- Range Constants ---
+    private static final int POKE_RANGE = 50;
+    private static final int THREAT_RANGE = 80;
+    private static final int DASH_MIN_RANGE = 100;
+    private static final int DASH_MAX_RANGE = 250;
+    private static final int TOO_CLOSE_RANGE = 20;
+    private static final int FAR_SCALE = 200;
+    private static final int CORNER_MARGIN = 60;
+
+    private final AIProfile profile;
+    private final SplittableRandom random;
+    private final float[][] weights = new float[ACTION_COUNT][FEATURE_COUNT];
+
+    // Reused every decision so evaluation never allocates
+    private final float[] features = new float[FEATURE_COUNT];
+    private final boolean[] legal = new boolean[ACTION_COUNT];
+
+    private int framesUntilDecision = 0;
+    private int currentAction = A_IDLE;
+    private int framesIntoAction = 0;
+    private int randomDraws = 0; // Position in the random stream, for state checksums
+
+    // Forward-simulation search (null unless the profile asks for lookahead)
+    private final LookaheadSearch lookahead;
+    // Learned policy table (null unless the profile names one)
+    private final PolicyTable policy;
+
+    public AIOpponent(AIProfile profile, long seed) {
+        this.profile = profile;
+        this.random = new SplittableRandom(seed);
+        this.lookahead = profile.lookaheadFrames > 0 ? new LookaheadSearch(profile.lookaheadFrames) : null;
+        this.policy = profile.getPolicy();
+        buildWeights((float) profile.aggression);
+    }
 
-    private static int aiReactTimer = 0;
+    public AIProfile getProfile() { return profile; }
 
-    /**
-     * Executes the AI's decision-making process for Player 2.
-     * @param player1 The human-controlled fighter (target).
-     * @param player2 The AI-controlled fighter.
-     * @param keys The global keys array to simulate input.
-     */
-    public static void runAILogic(Fighter player1, Fighter player2, boolean[] keys) {
+    /** Visits the decision state and how far into its random stream this AI is. */
+    public void visitState(Match.StateVisitor v) {
+        v.field("framesUntilDecision", -1, framesUntilDecision);
+        v.field("currentAction", -1, currentAction);
+        v.field("framesIntoAction", -1, framesIntoAction);
+        v.field("randomDraws", -1, randomDraws);
+    }
 
-        // Ensure the AI can physically act (not stunned/knocked down)
-        if (!player2.canAct()) {
-            // Stop ALL keys
-            keys[player2.leftKey] = keys[player2.rightKey] = keys[player2.jumpKey] = keys[player2.crouchKey] = false;
-            return;
-        }
+    /** {@link #visitState}'s fields mixed straight into a checksum, in the same order. */
+    public long hashState(long h) {
+        h = StateChecksum.mix(h, framesUntilDecision);
+        h = StateChecksum.mix(h, currentAction);
+        h = StateChecksum.mix(h, framesIntoAction);
+        return StateChecksum.mix(h, randomDraws);
+    }
 
-        // Reset all active movement/defense keys before making a new decision
-        keys[player2.leftKey] = keys[player2.rightKey] = keys[player2.jumpKey] = keys[player2.crouchKey] = false;
+    /** Hand-tuned utility weights; aggression shifts value from defensive to offensive actions. */
+    private void buildWeights(float aggression) {
+        float caution = 1f - aggression;
 
-        int distance = Math.abs(player1.getX() - player2.getX());
-        int directionToPlayerKey = (player1.getX() < player2.getX()) ? player2.leftKey : player2.rightKey;
+        weights[A_IDLE][F_BIAS] = 0.1f;
 
-        // --- IMMEDIATE ATTACK CHECK (Highest Priority) ---
-        // If we are close and ready to attack, call the attack function directly to bypass key timing issues.
-        if (distance < AI_ATTACK_RANGE && player2.isAttackReady()) {
-            if (player2.getSuperMeter() >= Fighter.SUPER_ATTACK_COST) {
-                player2.superAttack(); // DIRECT FUNCTION CALL
-            } else {
-                player2.attack(); // DIRECT FUNCTION CALL
-            }
-            return; // EXIT: Attack committed
-        }
-        // ----------------------------------------------------
+        weights[A_APPROACH][F_BIAS] = 0.3f;
+        weights[A_APPROACH][F_FAR] = 0.5f + aggression;
+        weights[A_APPROACH][F_IN_POKE_RANGE] = -1f;
+        weights[A_APPROACH][F_TOO_CLOSE] = -1f;
+        weights[A_APPROACH][F_THREAT] = -0.5f;
+
+        weights[A_RETREAT][F_TOO_CLOSE] = 0.6f;
+        weights[A_RETREAT][F_THREAT] = 0.3f * caution;
+        weights[A_RETREAT][F_CORNERED] = -1f;
+
+        weights[A_POKE][F_IN_POKE_RANGE] = 0.6f + 0.6f * aggression;
+        weights[A_POKE][F_TARGET_VULNERABLE] = 0.4f;
+
+        weights[A_BLOCK][F_BIAS] = -0.2f;
+        weights[A_BLOCK][F_THREAT] = 1.4f - 0.4f * aggression;
+        weights[A_BLOCK][F_IN_POKE_RANGE] = 0.2f + 0.4f * caution; // Guard up while our attack recovers
+
+        weights[A_DASH][F_IN_DASH_RANGE] = 0.3f + 0.7f * aggression;
+        weights[A_DASH][F_TARGET_VULNERABLE] = 0.3f;
 
+        weights[A_BACKSTEP][F_THREAT] = 0.4f * caution;
+        weights[A_BACKSTEP][F_HEALTH_LEAD] = 0.3f * caution; // Protect a lead
+        weights[A_BACKSTEP][F_CORNERED] = -1f;
 
-        // --- React Timer (GATES MOVEMENT AND DEFENSE) ---
-        if (aiReactTimer > 0) {
-            aiReactTimer--;
+        weights[A_SUPER][F_BIAS] = 0.2f;
+        weights[A_SUPER][F_IN_POKE_RANGE] = 0.8f + 0.6f * aggression;
+        weights[A_SUPER][F_TARGET_VULNERABLE] = 0.5f;
+        weights[A_SUPER][F_HEALTH_LEAD] = -0.2f; // Spend meter more eagerly when behind
+
+        weights[A_HOP][F_IN_DASH_RANGE] = 0.1f * aggression;
+        weights[A_HOP][F_FAR] = 0.1f;
+    }
+
+    /** Fills {@code out} with the feature vector for {@code self} facing {@code target}. */
+    public static void extractFeatures(Fighter self, Fighter target, float[] out) {
+        int dx = target.getX() - self.getX();
+        int distance = Math.abs(dx);
+        boolean facingEachOther = target.getDirection() != self.getDirection();
+
+        out[F_BIAS] = 1f;
+        out[F_FAR] = Math.min(1f, Math.max(0f, (distance - POKE_RANGE) / (float) FAR_SCALE));
+        out[F_IN_POKE_RANGE] = distance < POKE_RANGE ? 1f : 0f;
+        out[F_IN_DASH_RANGE] = (distance > DASH_MIN_RANGE && distance < DASH_MAX_RANGE) ? 1f : 0f;
+        out[F_TOO_CLOSE] = distance < TOO_CLOSE_RANGE ? 1f : 0f;
+        out[F_THREAT] = (target.isAttackActive() && distance < THREAT_RANGE && facingEachOther) ? 1f : 0f;
+        out[F_TARGET_VULNERABLE] = (!target.canAct() && !target.isKnockedDown()) ? 1f : 0f;
+        out[F_HEALTH_LEAD] = (self.getHealth() - target.getHealth()) / 100f;
+
+        // Wall behind us: the side away from the target
+        boolean wallBehind = (dx >= 0) ? self.getX() < CORNER_MARGIN : self.getX() > self.getMaxX() - CORNER_MARGIN;
+        out[F_CORNERED] = wallBehind ? 1f : 0f;
+    }
 
-            // NOTE: We don't return here. We allow the movement decision below to execute
-            // every single frame, overriding the previous logic. This is the fix for slow speed.
+    /**
+     * Chooses this frame's input for {@code self}.
+     * @return An {@link InputBuffer} bitmask to feed into {@link Match#setInput}.
+     */
+    public int decide(Fighter self, Fighter target) {
+        // Ensure the AI can physically act (not stunned/knocked down)
+        if (!self.canAct()) {
+            framesUntilDecision = 0;
+            currentAction = A_IDLE;
+            framesIntoAction = 0;
+            return 0;
         }
 
-        // Set a new random reaction delay (Timer is only set when a decision needs to be delayed)
-        if (aiReactTimer == 0) {
-            aiReactTimer = (int) (Math.random() * (AI_MAX_REACT_TIME - AI_MIN_REACT_TIME)) + AI_MIN_REACT_TIME;
+        if (framesUntilDecision > 0) {
+            framesUntilDecision--;
+        } else {
+            framesUntilDecision = profile.reactionFrames - 1;
+            extractFeatures(self, target, features);
+            markLegalActions(self, target, legal);
+            randomDraws++;
+            if (random.nextDouble() < profile.errorRate) {
+                currentAction = randomLegalAction();
+            } else {
+                int preferred = (policy != null) ? policyAction(self, target) : bestAction();
+                // Lookahead re-ranks; the preferred choice is the tie-breaker when no branch changes health or meter
+                currentAction = (lookahead != null) ? lookahead.search(self, target, legal, preferred) : preferred;
+            }
+            framesIntoAction = 0;
         }
 
+        return actionInput(currentAction, framesIntoAction++, self, target);
+    }
+
+    /** Learned action for the current state, falling back to utility scoring for unseen states. */
+    private int policyAction(Fighter self, Fighter target) {
+        int action = policy.lookup(PolicyTable.stateIndex(self, target));
+        return (action >= 0 && legal[action]) ? action : bestAction();
+    }
 
-        // --- 1. DEFENSE LOGIC (High Priority) ---
-        if (player1.isAttackActive() && distance < AI_BLOCK_RANGE) {
-            boolean isFacingAttacker = player1.getDirection() != player2.getDirection();
+    /** Which actions {@code self} can perform right now. Shared with {@link SelfPlayTrainer}. */
+    public static void markLegalActions(Fighter self, Fighter target, boolean[] legal) {
+        for (int a = 0; a < ACTION_COUNT; a++) legal[a] = true;
+
+        boolean attackReady = self.isAttackReady() && !target.isKnockedDown();
+        legal[A_POKE] = attackReady;
+        legal[A_SUPER] = attackReady && self.getSuperMeter() >= Fighter.SUPER_ATTACK_COST;
+        legal[A_BLOCK] = self.onGround() && !self.isBlockOnCooldown();
+        legal[A_DASH] = self.onGround() && self.isDashReady();
+        legal[A_BACKSTEP] = self.onGround() && self.isDashReady();
+        legal[A_HOP] = self.onGround();
+    }
 
-            if (isFacingAttacker) {
-                if (Math.random() < 0.90) { // 90% chance to block
-                    keys[player2.crouchKey] = true;
-                    return;
-                }
+    private int bestAction() {
+        int best = A_IDLE;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int a = 0; a < ACTION_COUNT; a++) {
+            if (!legal[a]) continue;
+            float score = 0f;
+            float[] w = weights[a];
+            for (int f = 0; f < FEATURE_COUNT; f++) {
+                score += w[f] * features[f];
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = a;
             }
         }
+        return best;
+    }
 
-        // --- 2. MOVEMENT LOGIC (Move toward player) ---
-        else {
-            if (distance > AI_ATTACK_RANGE * 2) {
-                // If far, walk toward
-                keys[directionToPlayerKey] = true;
-            } else if (distance > AI_ATTACK_RANGE) {
-                // If just outside range, hop or walk slightly toward
-                if (Math.random() < 0.2 && player2.onGround()) {
-                    keys[player2.jumpKey] = true;
-                } else {
-                    keys[directionToPlayerKey] = true;
-                }
-            } else {
-                // If too close (overlapping): try to jump away
-                keys[directionToPlayerKey == player2.leftKey ? player2.rightKey : player2.leftKey] = true; // Walk away
-            }
+    private int randomLegalAction() {
+        int count = 0;
+        for (int a = 0; a < ACTION_COUNT; a++) if (legal[a]) count++;
+        randomDraws++;
+        int pick = random.nextInt(count);
+        for (int a = 0; a < ACTION_COUNT; a++) {
+            if (legal[a] && pick-- == 0) return a;
+        }
+        return A_IDLE;
+    }
+
+    /**
+     * Input for the given frame of an action: held directions, plus a button press on
+     * frame 0 only so the input buffer sees a clean edge. Shared with {@link LookaheadSearch}.
+     */
+    public static int actionInput(int action, int frameInAction, Fighter self, Fighter target) {
+        int toward = (target.getX() < self.getX()) ? InputBuffer.LEFT : InputBuffer.RIGHT;
+        int away = (toward == InputBuffer.LEFT) ? InputBuffer.RIGHT : InputBuffer.LEFT;
+
+        int button;
+        switch (action) {
+            case A_APPROACH: return toward;
+            case A_RETREAT: return away;
+            case A_BLOCK: return InputBuffer.DOWN;
+            case A_HOP: return InputBuffer.UP | toward;
+            case A_POKE: button = InputBuffer.ATTACK; break;
+            case A_SUPER: button = InputBuffer.SUPER; break;
+            case A_DASH: button = InputBuffer.DASH_FWD; break;
+            case A_BACKSTEP: button = InputBuffer.DASH_BACK; break;
+            default: return 0;
         }
+        return frameInAction == 0 ? button : 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * One AI difficulty preset (reaction time, error rate, aggression, optional lookahead or learned policy).
+ * Presets are loaded from assets/ai_profiles.properties so they can be tuned without a recompile.
+ */
+public class AIProfile {
+
+    private static final String PROFILE_RESOURCE = "/assets/ai_profiles.properties";
+
+    public final String name;
+    public final int reactionFrames;
+    public final double errorRate;
+    public final double aggression;
+    public final int lookaheadFrames; // 0 = pure utility scoring, otherwise forward-simulate this many frames
+    public final String policyResource; // Learned PolicyTable on the classpath, or null
+
+    private PolicyTable policy;
+    private boolean policyLoaded = false;
+
+    public AIProfile(String name, int reactionFrames, double errorRate, double aggression, int lookaheadFrames, String policyResource) {
+        this.name = name;
+        this.reactionFrames = Math.max(1, reactionFrames);
+        this.errorRate = Math.max(0, Math.min(1, errorRate));
+        this.aggression = Math.max(0, Math.min(1, aggression));
+        this.lookaheadFrames = Math.max(0, lookaheadFrames);
+        this.policyResource = policyResource;
+    }
+
+    /** The profile's learned policy, loaded once and shared by every AI using this profile. */
+    public synchronized PolicyTable getPolicy() {
+        if (!policyLoaded) {
+            policyLoaded = true;
+            policy = (policyResource != null) ? PolicyTable.load(policyResource) : null;
+        }
+        return policy;
+    }
+
+    /** Built-in preset used when the data file is missing or broken. */
+    public static AIProfile defaultProfile() {
+        return new AIProfile("Normal", 6, 0.10, 0.55, 0, null);
+    }
+
+    /** Loads every preset listed in the data file, in file order. Never returns an empty list. */
+    public static List<AIProfile> loadAll() {
+        List<AIProfile> profiles = new ArrayList<>();
+
+        try (InputStream is = AIProfile.class.getResourceAsStream(PROFILE_RESOURCE)) {
+            if (is == null) throw new IOException("Resource not found: " + PROFILE_RESOURCE);
+
+            Properties props = new Properties();
+            props.load(is);
+
+            for (String key : props.getProperty("profiles", "").split(",")) {
+                key = key.trim();
+                if (key.isEmpty()) continue;
+                try {
+                    profiles.add(new AIProfile(
+                            props.getProperty(key + ".name", key),
+                            Integer.parseInt(props.getProperty(key + ".reactionFrames", "6").trim()),
+                            Double.parseDouble(props.getProperty(key + ".errorRate", "0.1").trim()),
+                            Double.parseDouble(props.getProperty(key + ".aggression", "0.5").trim()),
+                            Integer.parseInt(props.getProperty(key + ".lookaheadFrames", "0").trim()),
+                            props.getProperty(key + ".policy")));
+                } catch (NumberFormatException e) {
+                    System.err.println("Warning: Skipping AI profile '" + key + "': " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Could not load AI profiles. Using built-in default. Error: " + e.getMessage());
+        }
+
+        if (profiles.isEmpty()) {
+            profiles.add(defaultProfile());
+        }
+        return profiles;
+    }
+}
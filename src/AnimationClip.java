@@ -0,0 +1,84 @@
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * One animation: a list of sprite frames, how many simulation steps each is shown, whether it
+ * loops, and events (sparks, sounds) that fire when a given frame starts.
+ * Everything is expanded into per-step tables when the clip is built, so looking up the frame
+ * for any point in time is a single array read, however long the clip is.
+ */
+public class AnimationClip {
+
+    /** Something that happens when a frame starts: a spark burst or a one-shot sound. */
+    public static class Event {
+        public static final int SPARK = 0;
+        public static final int SOUND = 1;
+
+        public final int type;
+        public final int sparkCount;   // SPARK only
+        public final String soundFile; // SOUND only, relative to assets/sounds/
+
+        private Event(int type, int sparkCount, String soundFile) {
+            this.type = type;
+            this.sparkCount = sparkCount;
+            this.soundFile = soundFile;
+        }
+
+        public static Event spark(int count) { return new Event(SPARK, count, null); }
+        public static Event sound(String file) { return new Event(SOUND, 0, file); }
+    }
+
+    private final BufferedImage[] frameAtStep;
+    private final Event[][] eventsAtStep; // null where nothing fires
+    private final boolean loop;
+
+    /**
+     * @param frames Sprite per frame (entries may be null when sprites are missing).
+     * @param durations Steps each frame is shown; shorter arrays repeat their last value.
+     * @param events Events per frame index (may be null, or shorter than {@code frames}).
+     */
+    public AnimationClip(BufferedImage[] frames, int[] durations, boolean loop, List<List<Event>> events) {
+        this.loop = loop;
+
+        int total = 0;
+        for (int f = 0; f < frames.length; f++) total += durationOf(durations, f);
+        frameAtStep = new BufferedImage[Math.max(1, total)];
+        eventsAtStep = new Event[frameAtStep.length][];
+
+        int step = 0;
+        for (int f = 0; f < frames.length; f++) {
+            if (events != null && f < events.size() && !events.get(f).isEmpty()) {
+                eventsAtStep[step] = events.get(f).toArray(new Event[0]);
+            }
+            for (int d = durationOf(durations, f); d > 0; d--) {
+                frameAtStep[step++] = frames[f];
+            }
+        }
+    }
+
+    private static int durationOf(int[] durations, int frame) {
+        if (durations.length == 0) return 1;
+        return Math.max(1, durations[Math.min(frame, durations.length - 1)]);
+    }
+
+    /** Total length in simulation steps. */
+    public int length() {
+        return frameAtStep.length;
+    }
+
+    /** Sprite shown {@code time} steps into the clip (looping, or holding the last frame). */
+    public BufferedImage frameAt(int time) {
+        return frameAtStep[wrap(time)];
+    }
+
+    /** Events that fire exactly {@code time} steps into the clip, or null. */
+    public Event[] eventsAt(int time) {
+        if (!loop && time >= frameAtStep.length) return null; // A held last frame doesn't re-fire
+        return eventsAtStep[wrap(time)];
+    }
+
+    private int wrap(int time) {
+        if (time < 0) return 0;
+        return loop ? time % frameAtStep.length : Math.min(time, frameAtStep.length - 1);
+    }
+}
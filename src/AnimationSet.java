@@ -0,0 +1,158 @@
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The animation clips for one fighter's sprites: one per {@link FighterState}, plus separate
+ * clips for the attack and super swings (which also play through the attack's recovery).
+ * Timing, looping and events come from assets/animations.properties, read once and shared;
+ * each fighter only binds its own sprite frames to them.
+ */
+public class AnimationSet {
+
+    private static final String ANIMATION_RESOURCE = "/assets/animations.properties";
+    private static final String SUPER_CLIP = "super";
+
+    private static Properties definitions;
+
+    private final AnimationClip[] stateClips = new AnimationClip[FighterState.values().length];
+    private final AnimationClip attackClip;
+    private final AnimationClip superClip;
+
+    /** Builds every clip from the shared definitions. Any sprite group may be null. */
+    public AnimationSet(BufferedImage idle, BufferedImage[] run, BufferedImage[] attack,
+                        BufferedImage jump, BufferedImage hurt, BufferedImage down) {
+        Map<String, BufferedImage[]> groups = new HashMap<>();
+        groups.put("idle", new BufferedImage[]{idle});
+        groups.put("run", run);
+        groups.put("attack", attack);
+        groups.put("jump", new BufferedImage[]{jump});
+        groups.put("hurt", new BufferedImage[]{hurt});
+        groups.put("down", new BufferedImage[]{down});
+
+        Properties defs = loadDefinitions();
+        AnimationClip idleClip = build(defs, "idle", groups, null);
+        for (FighterState state : FighterState.values()) {
+            stateClips[state.ordinal()] = build(defs, state.name().toLowerCase(), groups, idleClip);
+        }
+        attackClip = stateClips[FighterState.ATTACK.ordinal()];
+        superClip = build(defs, SUPER_CLIP, groups, attackClip);
+    }
+
+    public AnimationClip forState(FighterState state) {
+        return stateClips[state.ordinal()];
+    }
+
+    public AnimationClip attack(boolean isSuper) {
+        return isSuper ? superClip : attackClip;
+    }
+
+    // --- Definition Loading ---
+
+    private static synchronized Properties loadDefinitions() {
+        if (definitions == null) {
+            definitions = new Properties();
+            try (InputStream is = AnimationSet.class.getResourceAsStream(ANIMATION_RESOURCE)) {
+                if (is == null) throw new IOException("Resource not found: " + ANIMATION_RESOURCE);
+                definitions.load(is);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not load animations. Showing idle frames only. Error: " + e.getMessage());
+            }
+        }
+        return definitions;
+    }
+
+    /**
+     * Builds clip {@code name}, or returns {@code fallback} if it isn't defined or is broken.
+     * With no fallback, an undefined clip becomes a single idle frame.
+     */
+    private static AnimationClip build(Properties defs, String name, Map<String, BufferedImage[]> groups, AnimationClip fallback) {
+        String frameSpec = defs.getProperty(name + ".frames");
+        if (frameSpec == null) {
+            return (fallback != null) ? fallback : new AnimationClip(groups.get("idle"), new int[]{1}, true, null);
+        }
+
+        try {
+            BufferedImage[] frames = parseFrames(frameSpec.trim(), groups);
+            int[] durations = parseInts(defs.getProperty(name + ".durations", "1"));
+            boolean loop = Boolean.parseBoolean(defs.getProperty(name + ".loop", "false").trim());
+            List<List<AnimationClip.Event>> events = parseEvents(defs.getProperty(name + ".events", ""), frames.length);
+            return new AnimationClip(frames, durations, loop, events);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Warning: Skipping animation '" + name + "': " + e.getMessage());
+            return (fallback != null) ? fallback : new AnimationClip(groups.get("idle"), new int[]{1}, true, null);
+        }
+    }
+
+    /** "run:0-5" or "attack:0,1,2" or just "jump" (frame 0). Missing sprites fall back to idle. */
+    private static BufferedImage[] parseFrames(String spec, Map<String, BufferedImage[]> groups) {
+        int colon = spec.indexOf(':');
+        String groupName = (colon < 0) ? spec : spec.substring(0, colon).trim();
+        if (!groups.containsKey(groupName)) throw new IllegalArgumentException("Unknown sprite group " + groupName);
+        BufferedImage[] group = groups.get(groupName);
+
+        List<Integer> indices = new ArrayList<>();
+        if (colon < 0) {
+            indices.add(0);
+        } else {
+            for (String part : spec.substring(colon + 1).split(",")) {
+                part = part.trim();
+                int dash = part.indexOf('-');
+                if (dash > 0) {
+                    int from = Integer.parseInt(part.substring(0, dash).trim());
+                    int to = Integer.parseInt(part.substring(dash + 1).trim());
+                    for (int i = from; i <= to; i++) indices.add(i);
+                } else {
+                    indices.add(Integer.parseInt(part));
+                }
+            }
+        }
+
+        BufferedImage idle = groups.get("idle")[0]; // If this is null too, the fighter draws its color block
+        BufferedImage[] frames = new BufferedImage[indices.size()];
+        for (int i = 0; i < frames.length; i++) {
+            int index = indices.get(i);
+            BufferedImage frame = (group != null && index < group.length) ? group[index] : null;
+            frames[i] = (frame != null) ? frame : idle;
+        }
+        return frames;
+    }
+
+    private static int[] parseInts(String csv) {
+        String[] parts = csv.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) values[i] = Integer.parseInt(parts[i].trim());
+        return values;
+    }
+
+    /** "2:spark:6, 0:sound:hit_super.wav" into a list of events per frame index. */
+    private static List<List<AnimationClip.Event>> parseEvents(String spec, int frameCount) {
+        List<List<AnimationClip.Event>> events = new ArrayList<>();
+        for (int i = 0; i < frameCount; i++) events.add(new ArrayList<>());
+
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) continue;
+            String[] parts = entry.split(":");
+            if (parts.length != 3) throw new IllegalArgumentException("Bad event '" + entry + "'");
+
+            int frame = Integer.parseInt(parts[0].trim());
+            if (frame < 0 || frame >= frameCount) throw new IllegalArgumentException("Event frame out of range in '" + entry + "'");
+
+            String type = parts[1].trim();
+            if (type.equals("spark")) {
+                events.get(frame).add(AnimationClip.Event.spark(Integer.parseInt(parts[2].trim())));
+            } else if (type.equals("sound")) {
+                events.get(frame).add(AnimationClip.Event.sound(parts[2].trim()));
+            } else {
+                throw new IllegalArgumentException("Unknown event type '" + type + "'");
+            }
+        }
+        return events;
+    }
+}
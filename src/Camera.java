@@ -0,0 +1,126 @@
+import java.awt.Graphics2D;
+
+/**
+ * Viewport onto a stage wider than the screen. The camera follows the fighters still in the
+ * match: it centres on them, zooms in when they close in on each other, and rises to keep
+ * jumpers in view, always easing toward that target instead of snapping. It never shows
+ * anything outside the world, and at zoom 1 the floor sits exactly where it did on a
+ * fixed screen.
+ *
+ * Updated once per simulation step, so it eases at the same rate at any simulation speed.
+ */
+public class Camera {
+
+    public static final float MAX_ZOOM = 1.25f;
+    private static final float FOLLOW = 0.12f;    // Share of the distance to the target covered per step
+    private static final float ZOOM_FOLLOW = 0.05f;
+    private static final int FRAME_MARGIN = 120;  // Space kept beside the outermost fighters when zoomed in
+    private static final int TOP_MARGIN = 40;     // Space kept above the highest fighter
+
+    private final int viewWidth;
+    private final int viewHeight;
+    private int worldWidth;
+
+    private float x, y;     // Top-left of the view in world coordinates
+    private float zoom = 1f;
+    private float targetX, targetY, targetZoom = 1f;
+    private int left, right, top; // Box around the fighters, from the last frame()
+
+    public Camera(int viewWidth, int viewHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.worldWidth = viewWidth;
+    }
+
+    public void setWorldWidth(int worldWidth) {
+        this.worldWidth = Math.max(viewWidth, worldWidth);
+    }
+
+    /** Jumps straight to the framing for {@code match} (round starts). */
+    public void reset(Match match) {
+        frame(match);
+        zoom = targetZoom;
+        x = targetX;
+        y = targetY;
+        clamp();
+    }
+
+    /** Eases toward the framing for {@code match}. Call once per simulation step. */
+    public void update(Match match) {
+        frame(match);
+        zoom += (targetZoom - zoom) * ZOOM_FOLLOW;
+        x += (targetX - x) * FOLLOW;
+        y += (targetY - y) * FOLLOW;
+        keepFightersInView();
+        clamp();
+    }
+
+    /** Easing lags behind fast movement; never let that cut a fighter off. */
+    private void keepFightersInView() {
+        if (left > right) return;
+        zoom = Math.min(zoom, Math.max(1f, viewWidth / (float) (right - left)));
+        x = Math.max(Math.min(x, left), right - getViewWidth());
+        y = Math.min(y, top);
+    }
+
+    // --- Framing ---
+
+    /** Works out where the camera wants to be for the fighters still in the match. */
+    private void frame(Match match) {
+        left = Integer.MAX_VALUE;
+        right = Integer.MIN_VALUE;
+        top = Integer.MAX_VALUE;
+        for (int i = 0; i < match.getFighterCount(); i++) {
+            if (match.isEliminated(i)) continue;
+            Fighter f = match.getFighter(i);
+            left = Math.min(left, f.getX());
+            right = Math.max(right, f.getX() + Fighter.SPRITE_SIZE);
+            top = Math.min(top, f.getY() + Fighter.SPRITE_VERTICAL_OFFSET);
+        }
+        if (left > right) {
+            targetZoom = 1f;
+            targetX = (worldWidth - viewWidth) / 2f;
+            targetY = 0;
+            return;
+        }
+
+        targetZoom = Math.max(1f, Math.min(MAX_ZOOM, viewWidth / (float) (right - left + 2 * FRAME_MARGIN)));
+        targetX = (left + right) / 2f - viewWidth / targetZoom / 2f;
+        // Floor anchored to the bottom of the screen, unless someone jumps out of the top
+        targetY = Math.min(viewHeight - viewHeight / targetZoom, top - TOP_MARGIN);
+    }
+
+    private void clamp() {
+        x = Math.max(0, Math.min(worldWidth - getViewWidth(), x));
+        y = Math.max(0, Math.min(viewHeight - getViewHeight(), y));
+    }
+
+    // --- View ---
+
+    public float getX() { return x; }
+    public float getY() { return y; }
+    public float getZoom() { return zoom; }
+
+    /** World pixels across the screen at the current zoom. */
+    public float getViewWidth() { return viewWidth / zoom; }
+
+    public float getViewHeight() { return viewHeight / zoom; }
+
+    /** Switches {@code g} from screen (virtual) coordinates to world coordinates. */
+    public void apply(Graphics2D g) {
+        g.scale(zoom, zoom);
+        g.translate(-x, -y);
+    }
+
+    /** Undoes {@link #apply}. */
+    public void restore(Graphics2D g) {
+        g.translate(x, y);
+        g.scale(1 / zoom, 1 / zoom);
+    }
+
+    /** True if any part of the world rectangle is on screen (for culling). */
+    public boolean isVisible(float worldX, float worldY, float width, float height) {
+        return worldX + width > x && worldX < x + getViewWidth()
+                && worldY + height > y && worldY < y + getViewHeight();
+    }
+}
@@ -0,0 +1,86 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * Ring buffer of the hurtboxes and hitboxes seen over the last few simulation steps, for the
+ * training overlay. Every box is stored as plain ints in arrays sized up front, so recording
+ * and drawing never allocate however long training runs.
+ */
+public class DebugGeometryBuffer {
+
+    public static final int HURTBOX = 0;
+    public static final int HITBOX = 1;
+
+    // --- Buffer Layout ---
+    public static final int HISTORY_FRAMES = 12;
+    private static final int MAX_BOXES_PER_FRAME = 16;
+
+    // Fill/outline per kind, and a fading outline per age for the hitbox trail
+    private static final Color HURTBOX_FILL = new Color(60, 140, 255, 60);
+    private static final Color HURTBOX_OUTLINE = new Color(60, 140, 255, 220);
+    private static final Color HITBOX_FILL = new Color(255, 40, 40, 90);
+    private static final Color HITBOX_OUTLINE = new Color(255, 40, 40, 230);
+    private static final Color[] HITBOX_TRAIL = new Color[HISTORY_FRAMES];
+
+    static {
+        for (int age = 0; age < HISTORY_FRAMES; age++) {
+            HITBOX_TRAIL[age] = new Color(255, 120, 40, 160 * (HISTORY_FRAMES - age) / HISTORY_FRAMES);
+        }
+    }
+
+    private final int[] kind = new int[HISTORY_FRAMES * MAX_BOXES_PER_FRAME];
+    private final int[] boxX = new int[kind.length];
+    private final int[] boxY = new int[kind.length];
+    private final int[] boxW = new int[kind.length];
+    private final int[] boxH = new int[kind.length];
+    private final int[] frameCount = new int[HISTORY_FRAMES];
+
+    private int head = -1;  // Slot of the newest frame
+    private int frames = 0; // How many slots hold data
+
+    /** Starts recording a new frame, overwriting the oldest one once the buffer is full. */
+    public void beginFrame() {
+        head = (head + 1) % HISTORY_FRAMES;
+        frameCount[head] = 0;
+        if (frames < HISTORY_FRAMES) frames++;
+    }
+
+    /** Adds a box to the current frame; boxes beyond the per-frame limit are dropped. */
+    public void add(int boxKind, Rectangle r) {
+        if (head < 0 || frameCount[head] >= MAX_BOXES_PER_FRAME) return;
+        int i = head * MAX_BOXES_PER_FRAME + frameCount[head]++;
+        kind[i] = boxKind;
+        boxX[i] = r.x;
+        boxY[i] = r.y;
+        boxW[i] = r.width;
+        boxH[i] = r.height;
+    }
+
+    public void clear() {
+        head = -1;
+        frames = 0;
+    }
+
+    /** Draws the newest frame's boxes, with older hitboxes behind them as a fading trail. */
+    public void draw(Graphics2D g) {
+        for (int age = frames - 1; age >= 1; age--) {
+            int slot = (head - age + HISTORY_FRAMES) % HISTORY_FRAMES;
+            g.setColor(HITBOX_TRAIL[age]);
+            for (int b = 0; b < frameCount[slot]; b++) {
+                int i = slot * MAX_BOXES_PER_FRAME + b;
+                if (kind[i] == HITBOX) g.drawRect(boxX[i], boxY[i], boxW[i], boxH[i]);
+            }
+        }
+
+        if (frames == 0) return;
+        for (int b = 0; b < frameCount[head]; b++) {
+            int i = head * MAX_BOXES_PER_FRAME + b;
+            boolean hit = kind[i] == HITBOX;
+            g.setColor(hit ? HITBOX_FILL : HURTBOX_FILL);
+            g.fillRect(boxX[i], boxY[i], boxW[i], boxH[i]);
+            g.setColor(hit ? HITBOX_OUTLINE : HURTBOX_OUTLINE);
+            g.drawRect(boxX[i], boxY[i], boxW[i], boxH[i]);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Headless determinism check built on {@link StateChecksum}.
+ *
+ * {@code record} plays a seeded CPU vs CPU match with the real round flow (timer, time over,
+ * knockouts) and writes a log: the match setup, then every frame's checksum and raw field
+ * values. {@code verify} replays the same setup, on this machine or another, and compares
+ * checksums frame by frame; at the first mismatch it prints the frame and a field-by-field
+ * diff against the recorded state. Both report what the checksum costs per frame.
+ *
+ * Usage: java DesyncCheck record <log> [seed=1] [frames=10800] [cpu1=Normal] [cpu2=Learned]
+ *        java DesyncCheck verify <log>
+ */
+public class DesyncCheck {
+
+    private static final int LOG_MAGIC = 0x46474353; // "FGCS"
+    private static final int LOG_VERSION = 1;
+    private static final int GROUND_Y = 400;
+    private static final int ROUND_FRAMES = 90 * 60;
+    private static final int STOCKS = 3;
+    private static final int COST_SAMPLES = 1_000_000; // Repeats for the checksum cost, once the JIT has warmed up
+
+    /** Collects one frame's field values, unlabelled. */
+    private static class Values implements Match.StateVisitor {
+        int[] values = new int[256];
+        int size;
+
+        @Override
+        public void field(String name, int slot, int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * A seeded CPU vs CPU match stepped one frame at a time, like GamePanel's AI fight. The
+     * replay renderer drives the same flow from a log's recorded inputs instead of the CPUs.
+     */
+    static class Run {
+        static final int FIGHTERS = 2;
+
+        final Match match;
+        final AIOpponent[] brains = new AIOpponent[FIGHTERS];
+        int roundTimeRemaining = ROUND_FRAMES;
+        boolean roundEnded; // The last step ended a round (knockout or time over)
+        Runnable afterStep; // If set, sees the fighters after each match step, before knockouts reset them
+
+        Run(long seed, String cpu1, String cpu2) {
+            this(seed, cpu1, cpu2, newFighters(null, null));
+        }
+
+        /** {@code fighters} come from {@link #newFighters}, so every run starts from the same state. */
+        Run(long seed, String cpu1, String cpu2, Fighter[] fighters) {
+            match = new Match(fighters, new int[]{0, 1}, STOCKS);
+            brains[0] = new AIOpponent(profile(cpu1), seed);
+            brains[1] = new AIOpponent(profile(cpu2), seed + 1);
+        }
+
+        /** Without CPUs: only {@link #step(int[])} with explicit inputs may be used. */
+        Run(Fighter[] fighters) {
+            match = new Match(fighters, new int[]{0, 1}, STOCKS);
+        }
+
+        /** The two fighters at their start positions; without {@code sprites} nothing is drawn. */
+        static Fighter[] newFighters(FighterSprites[] sprites, Color[] colors) {
+            Fighter[] fighters = new Fighter[FIGHTERS];
+            int[] startX = Match.startPositions(FIGHTERS);
+            for (int i = 0; i < FIGHTERS; i++) {
+                fighters[i] = (sprites == null)
+                        ? new Fighter(startX[i], GROUND_Y - Fighter.SPRITE_SIZE, Color.GRAY, null, null, null, null, null, null)
+                        : sprites[i].newFighter(startX[i], GROUND_Y - Fighter.SPRITE_SIZE, colors[i]);
+            }
+            return fighters;
+        }
+
+        /** Runs one frame with the CPUs' inputs. Returns false once the match is over. */
+        boolean step() {
+            return step(null);
+        }
+
+        /** Runs one frame; {@code inputs} (one per fighter) replace the CPUs' when not null. */
+        boolean step(int[] inputs) {
+            roundEnded = false;
+            if (match.isOver()) return false;
+            if (roundTimeRemaining > 0) roundTimeRemaining--;
+            if (roundTimeRemaining <= 0) {
+                match.resolveTimeOver();
+                nextRound();
+                return !match.isOver();
+            }
+            for (int i = 0; i < FIGHTERS; i++) {
+                if (inputs != null) {
+                    match.setInput(i, inputs[i]);
+                    continue;
+                }
+                Fighter target = match.nearestOpponent(i);
+                match.setInput(i, target == null ? 0 : brains[i].decide(match.getFighter(i), target));
+            }
+            match.step();
+            if (afterStep != null) afterStep.run();
+            if (match.resolveKnockouts()) nextRound();
+            return true;
+        }
+
+        private void nextRound() {
+            roundEnded = true;
+            match.resetRound(GROUND_Y);
+            roundTimeRemaining = ROUND_FRAMES;
+        }
+    }
+
+    /** Reads a log written by {@code record}: the header up front, then one frame per {@link #next}. */
+    static class LogReader implements AutoCloseable {
+        final long seed;
+        final String cpu1, cpu2;
+        final List<String> labels = new ArrayList<>();
+        final int[] values;  // The current frame's fields, in label order
+        long checksum;       // The current frame's checksum
+        private final DataInputStream in;
+
+        LogReader(String file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+            try {
+                if (in.readInt() != LOG_MAGIC || in.readInt() != LOG_VERSION) {
+                    throw new IOException("Not a checksum log: " + file);
+                }
+                seed = in.readLong();
+                cpu1 = in.readUTF();
+                cpu2 = in.readUTF();
+                int fieldCount = in.readInt();
+                for (int i = 0; i < fieldCount; i++) labels.add(in.readUTF());
+                values = new int[fieldCount];
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /** Reads the next frame. Returns false at the end of the log. */
+        boolean next() throws IOException {
+            try {
+                checksum = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) values[i] = in.readInt();
+            return true;
+        }
+
+        /** Index of the field labelled {@code label}, or -1. */
+        int field(String label) {
+            return labels.indexOf(label);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("record")) {
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+            int frames = args.length > 3 ? Integer.parseInt(args[3]) : 10800;
+            String cpu1 = args.length > 4 ? args[4] : "Normal";
+            String cpu2 = args.length > 5 ? args[5] : "Learned";
+            record(args[1], seed, frames, cpu1, cpu2);
+        } else if (args.length >= 2 && args[0].equals("verify")) {
+            System.exit(verify(args[1]) ? 0 : 1);
+        } else {
+            System.err.println("Usage: java DesyncCheck record <log> [seed] [frames] [cpu1] [cpu2]");
+            System.err.println("       java DesyncCheck verify <log>");
+            System.exit(2);
+        }
+    }
+
+    // --- Record ---
+
+    private static void record(String file, long seed, int maxFrames, String cpu1, String cpu2) throws IOException {
+        Run run = new Run(seed, cpu1, cpu2);
+        StateChecksum checksum = new StateChecksum();
+        Values values = new Values();
+        StateChecksum.Dump layout = StateChecksum.Dump.of(run.match, run.roundTimeRemaining, run.brains);
+
+        int frames = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(file))))) {
+            out.writeInt(LOG_MAGIC);
+            out.writeInt(LOG_VERSION);
+            out.writeLong(seed);
+            out.writeUTF(cpu1);
+            out.writeUTF(cpu2);
+            out.writeInt(layout.size());
+            for (int i = 0; i < layout.size(); i++) out.writeUTF(layout.label(i));
+
+            while (frames < maxFrames && run.step()) {
+                frames++;
+                long sum = checksum.compute(run.match, run.roundTimeRemaining, run.brains);
+                if (sum != checksum.computeVisited(run.match, run.roundTimeRemaining, run.brains)) {
+                    throw new IllegalStateException("A hashState and its visitState disagree at frame " + frames
+                            + "; a field was added to one but not the other");
+                }
+                values.size = 0;
+                StateChecksum.visitFrame(values, run.match, run.roundTimeRemaining, run.brains);
+                out.writeLong(sum);
+                for (int i = 0; i < values.size; i++) out.writeInt(values.values[i]);
+            }
+        }
+        System.out.printf("Recorded %d frames (%s vs %s, seed %d) to %s; checksum %.0f ns/frame%n",
+                frames, cpu1, cpu2, seed, file, checksumCost(run, checksum));
+    }
+
+    // --- Verify ---
+
+    private static boolean verify(String file) throws IOException {
+        try (LogReader log = new LogReader(file)) {
+            Run run = new Run(log.seed, log.cpu1, log.cpu2);
+            StateChecksum checksum = new StateChecksum();
+            int frames = 0;
+
+            while (log.next()) {
+                long expected = log.checksum;
+                if (!run.step()) {
+                    System.out.println("DESYNC: match ended early, after frame " + frames);
+                    return false;
+                }
+                frames++;
+
+                long actual = checksum.compute(run.match, run.roundTimeRemaining, run.brains);
+                if (actual != expected) {
+                    System.out.printf("DESYNC at frame %d (match frame %d): checksum %016x, recorded %016x%n",
+                            frames, run.match.getFrame(), actual, expected);
+                    StateChecksum.Dump now = StateChecksum.Dump.of(run.match, run.roundTimeRemaining, run.brains);
+                    for (String line : StateChecksum.diff(new StateChecksum.Dump(log.labels, log.values), now)) {
+                        System.out.println("  " + line);
+                    }
+                    return false;
+                }
+            }
+            System.out.printf("OK: %d frames match (%s vs %s, seed %d); checksum %.0f ns/frame%n",
+                    frames, log.cpu1, log.cpu2, log.seed, checksumCost(run, checksum));
+            return true;
+        }
+    }
+
+    /** Average cost of one checksum of the final frame, measured over many repeats so the JIT has kicked in. */
+    private static double checksumCost(Run run, StateChecksum checksum) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < COST_SAMPLES; i++) {
+            sink += checksum.compute(run.match, run.roundTimeRemaining, run.brains);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42) System.out.print(""); // Keeps the loop from being optimized away
+        return (double) elapsed / COST_SAMPLES;
+    }
+
+    private static AIProfile profile(String name) {
+        for (AIProfile profile : AIProfile.loadAll()) {
+            if (profile.name.equalsIgnoreCase(name)) return profile;
+        }
+        throw new IllegalArgumentException("Unknown CPU profile: " + name);
+    }
+}
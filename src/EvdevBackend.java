@@ -0,0 +1,208 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Linux gamepads, read straight from {@code /dev/input/event*} (evdev) with NIO. Each pad gets
+ * a dedicated daemon thread that blocks in a read on the device, so an event is handled the
+ * moment the kernel delivers it (a USB pad reports at up to 1 kHz) instead of waiting for
+ * the next AWT event or timer tick. Changes are applied at each SYN_REPORT, when the kernel
+ * says a report is complete, and go straight into the player's {@link PlayerInput}.
+ *
+ * Pads that are missing or unreadable are skipped with a warning; their players keep the
+ * keyboard.
+ */
+public class EvdevBackend implements InputBackend {
+
+    // struct input_event: struct timeval, __u16 type, __u16 code, __s32 value
+    private static final int TIMEVAL_BYTES = "32".equals(System.getProperty("sun.arch.data.model")) ? 8 : 16;
+    private static final int EVENT_BYTES = TIMEVAL_BYTES + 8;
+    private static final int EVENTS_PER_READ = 64;
+
+    private static final int EV_SYN = 0, EV_KEY = 1, EV_ABS = 3;
+    private static final int SYN_REPORT = 0, SYN_DROPPED = 3;
+    private static final int ABS_X = 0, ABS_Y = 1, ABS_HAT0X = 16, ABS_HAT0Y = 17;
+    private static final String JOYSTICK_DIR = "/dev/input/by-id";
+
+    private static final Map<String, Integer> CODE_NAMES = new HashMap<>();
+    static {
+        String[] names = {"BTN_SOUTH", "BTN_EAST", "BTN_C", "BTN_NORTH", "BTN_WEST", "BTN_Z", "BTN_TL", "BTN_TR",
+                "BTN_TL2", "BTN_TR2", "BTN_SELECT", "BTN_START", "BTN_MODE", "BTN_THUMBL", "BTN_THUMBR"};
+        for (int i = 0; i < names.length; i++) CODE_NAMES.put(names[i], 0x130 + i);
+        CODE_NAMES.put("BTN_A", 0x130);
+        CODE_NAMES.put("BTN_B", 0x131);
+        CODE_NAMES.put("BTN_X", 0x133);
+        CODE_NAMES.put("BTN_Y", 0x134);
+        CODE_NAMES.put("BTN_DPAD_UP", 0x220);
+        CODE_NAMES.put("BTN_DPAD_DOWN", 0x221);
+        CODE_NAMES.put("BTN_DPAD_LEFT", 0x222);
+        CODE_NAMES.put("BTN_DPAD_RIGHT", 0x223);
+    }
+
+    /** One open pad and the thread reading it. */
+    private static class Device implements Runnable {
+        final String path;
+        final FileChannel channel;
+        final PlayerInput player;
+        final InputBindings.Pad pad;
+        final Set<Integer> down = new HashSet<>(); // Bound key codes currently pressed
+        int stickX, stickY, hatX, hatY;
+        int applied = 0; // Buttons this pad holds in the player's input
+
+        Device(String path, FileChannel channel, PlayerInput player, InputBindings.Pad pad) {
+            this.path = path;
+            this.channel = channel;
+            this.player = player;
+            this.pad = pad;
+            int center = (pad.stickMin + pad.stickMax) / 2;
+            stickX = stickY = center;
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer events = ByteBuffer.allocateDirect(EVENT_BYTES * EVENTS_PER_READ).order(ByteOrder.nativeOrder());
+            try {
+                while (true) {
+                    if (channel.read(events) < 0) break;
+                    events.flip();
+                    while (events.remaining() >= EVENT_BYTES) {
+                        int base = events.position();
+                        handle(events.getShort(base + TIMEVAL_BYTES) & 0xFFFF,
+                                events.getShort(base + TIMEVAL_BYTES + 2) & 0xFFFF,
+                                events.getInt(base + TIMEVAL_BYTES + 4));
+                        events.position(base + EVENT_BYTES);
+                    }
+                    events.compact();
+                }
+            } catch (ClosedChannelException e) {
+                // close() was called
+            } catch (IOException e) {
+                System.err.println("Warning: Lost gamepad " + path + ". Error: " + e.getMessage());
+            }
+            player.clear(PlayerInput.GAMEPAD);
+        }
+
+        private void handle(int type, int code, int value) {
+            if (type == EV_KEY) {
+                if (!pad.buttons.containsKey(code) || value == 2) return; // 2 = auto-repeat
+                if (value != 0) down.add(code); else down.remove(code);
+            } else if (type == EV_ABS) {
+                if (code == ABS_X) stickX = value;
+                else if (code == ABS_Y) stickY = value;
+                else if (code == ABS_HAT0X) hatX = value;
+                else if (code == ABS_HAT0Y) hatY = value;
+            } else if (type == EV_SYN && code == SYN_DROPPED) {
+                // The kernel's buffer overflowed: forget everything until the pad reports again
+                down.clear();
+                hatX = hatY = 0;
+                stickX = stickY = (pad.stickMin + pad.stickMax) / 2;
+                apply();
+            } else if (type == EV_SYN && code == SYN_REPORT) {
+                apply();
+            }
+        }
+
+        /** Presses what became held and releases what stopped being held since the last report. */
+        private void apply() {
+            int buttons = 0;
+            for (int code : down) buttons |= pad.buttons.get(code);
+
+            int center = (pad.stickMin + pad.stickMax) / 2;
+            int threshold = Math.round(pad.deadzone * (pad.stickMax - pad.stickMin) / 2f);
+            if (stickX < center - threshold || hatX < 0) buttons |= InputBuffer.LEFT;
+            if (stickX > center + threshold || hatX > 0) buttons |= InputBuffer.RIGHT;
+            if (stickY < center - threshold || hatY < 0) buttons |= InputBuffer.UP;
+            if (stickY > center + threshold || hatY > 0) buttons |= InputBuffer.DOWN;
+
+            int pressed = buttons & ~applied;
+            int released = applied & ~buttons;
+            if (pressed != 0) player.press(PlayerInput.GAMEPAD, pressed);
+            if (released != 0) player.release(PlayerInput.GAMEPAD, released);
+            applied = buttons;
+        }
+    }
+
+    private final InputBindings bindings;
+    private final List<Device> devices = new ArrayList<>();
+
+    public EvdevBackend(InputBindings bindings) {
+        this.bindings = bindings;
+    }
+
+    @Override
+    public String getName() {
+        return "evdev";
+    }
+
+    @Override
+    public void start(PlayerInput[] players) {
+        List<String> joysticks = findJoysticks();
+        int nextAuto = 0;
+        for (int p = 0; p < players.length && p < InputBindings.PLAYERS; p++) {
+            InputBindings.Pad pad = bindings.pad(p);
+            String path = pad.device;
+            if (path.isEmpty()) continue;
+            if (path.equals("auto")) {
+                if (nextAuto >= joysticks.size()) continue; // Fewer pads than players
+                path = joysticks.get(nextAuto++);
+            }
+            try {
+                FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+                Device device = new Device(path, channel, players[p], pad);
+                devices.add(device);
+                Thread thread = new Thread(device, "evdev-p" + (p + 1));
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                thread.start();
+            } catch (IOException | SecurityException e) {
+                System.err.println("Warning: Could not open gamepad " + path + " for player " + (p + 1)
+                        + ". Using the keyboard only. Error: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Device device : devices) {
+            try {
+                device.channel.close(); // Wakes the reader thread, which then clears its buttons
+            } catch (IOException e) {
+                System.err.println("Warning: Could not close gamepad " + device.path + ". Error: " + e.getMessage());
+            }
+        }
+        devices.clear();
+    }
+
+    /** Joystick event devices in a stable order (by-id names don't change between boots). */
+    private static List<String> findJoysticks() {
+        List<String> paths = new ArrayList<>();
+        String[] names = new File(JOYSTICK_DIR).list((dir, name) -> name.endsWith("-event-joystick"));
+        if (names == null) return paths;
+        Arrays.sort(names);
+        for (String name : names) paths.add(JOYSTICK_DIR + "/" + name);
+        return paths;
+    }
+
+    /** An evdev key code from its name (BTN_SOUTH, ...) or number. */
+    static int keyCode(String name) {
+        Integer code = CODE_NAMES.get(name.toUpperCase());
+        if (code != null) return code;
+        try {
+            return Integer.decode(name);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unknown gamepad button '" + name + "'");
+        }
+    }
+}
@@ -3,272 +3,354 @@ import java.awt.image.BufferedImage;
 
 public class Fighter {
     // --- Constants ---
-    private static final int SCREEN_WIDTH = 800;
-    private static final int MOVEMENT_SPEED = 5;
-    private static final int JUMP_VELOCITY = -15;
-    private static final int GRAVITY_ACCELERATION = 1;
+    // Speeds and accelerations are 16.16 fixed-point (see FixedPoint), so physics is integer-only
+    public static final int DEFAULT_WORLD_WIDTH = 800;
     private static final int GROUND_Y = 500; // UPDATED: Moved ground line down (closer to screen bottom)
 
     // Attack and Animation
     public static final int SPRITE_SIZE = 100; // Visual size of the fighter (pixels)
 
     // --- NEW CONSTANT FOR VISUAL ALIGNMENT ---
-    private static final int SPRITE_VERTICAL_OFFSET = 40; // Shifts the drawn sprite down 40 px
+    public static final int SPRITE_VERTICAL_OFFSET = 40; // Shifts the drawn sprite down 40 px
 
     // --- COLLISION CONSTANTS ---
     private static final int COLLISION_WIDTH = 20;
     private static final int COLLISION_OFFSET_X = (SPRITE_SIZE - COLLISION_WIDTH) / 2;
 
-    private static final int ATTACK_DURATION = 20;
-    private static final int ACTIVE_HIT_FRAME = 10;
     private static final int STAND_HEIGHT = SPRITE_SIZE;
     private static final int CROUCH_HEIGHT = 66;
 
-    // Blocking
-    private static final int MAX_BLOCK_COOLDOWN = 120; // 2 seconds cooldown
-
     // Attack Hitbox Constants (Updated for 50 px size)
     private static final int ATTACK_HITBOX_WIDTH = 65; // INCREASED FOR FORGIVENESS
     private static final int ATTACK_HITBOX_HEIGHT = 30; // SLIGHTLY INCREASED
     private static final int STAND_ATTACK_OFFSET_Y = 30;  // Hits mid-level (y=30)
     private static final int CROUCH_ATTACK_OFFSET_Y = 5;   // Hits low (y=5)
 
-    // Dashing
-    private static final int DASH_DISTANCE = 100; // Total distance to travel
-    private static final int DASH_FRAMES = 10;
-    private static final int DASH_COOLDOWN = 30;
-
-    // --- KNOCKDOWN & STUN CONSTANTS ---
-    private static final int REGULAR_STUN_DURATION = 8;
-    private static final int AIR_STUN_DURATION = 15; // Longer stun for air combos
-    private static final int KNOCKBACK_STRENGTH_LIGHT = 6;
-    private static final int KNOCKBACK_STRENGTH_HEAVY = 12;
-    private static final int KNOCKDOWN_DURATION = 90;
-    private static final int WAKEUP_INVULNERABILITY = 15;
-    private static final int FALL_VELOCITY = 10;
-    private static final int HIT_FLASH_DURATION = 15;
+    // --- KNOCKDOWN & STUN (speeds, stun lengths and cooldowns live in Tuning) ---
+    private static final int STOP_SPEED = FixedPoint.ONE; // Slides slower than this end (hitstun, attacks)
 
     // --- SUPER METER CONSTANTS ---
-    private static final int MAX_METER = 100;
+    public static final int MAX_METER = 100;
     public static final int SUPER_ATTACK_COST = 50;
-    public static final double METER_GAIN_HIT = 8.0;
-    public static final double METER_GAIN_TAKEN = 4.0;
 
-    // --- ANIMATION CONSTANTS ---
+    // --- ANIMATION CONSTANTS (clip timing lives in assets/animations.properties) ---
     public static final int RUN_FRAME_COUNT = 6;
-    private static final int RUN_ANIMATION_SPEED = 4;
     public static final int ATTACK_FRAME_COUNT = 6;
+    private static final Color BLOCK_COLOR = new Color(50, 200, 255, 180);
+    private static final Color BLOCK_COOLDOWN_COLOR = new Color(255, 50, 50, 80);
+
+    /** Receives animation events (sparks, sounds) as their frames start. */
+    public interface AnimationListener {
+        void onAnimationEvent(Fighter fighter, AnimationClip.Event event);
+    }
+
+    /** Everything draw() needs, resolved once per simulation step so rendering only reads it. */
+    private static class RenderState {
+        AnimationClip clip;
+        int time;
+        BufferedImage sprite;
+        boolean visible;
+        Color indicator; // Block / block-cooldown overlay, or null
+    }
 
     // --- Private Fields (Encapsulation) ---
-    private int x, y; // Y is now accessible via getter
+    private int x, y; // Top-left in fixed-point subpixels; getX()/getY() give whole pixels
     private final int width = SPRITE_SIZE; // Drawing width remains 50
-    private final int MAX_X_BOUND = SCREEN_WIDTH - width;
+    private int maxX = DEFAULT_WORLD_WIDTH - width; // Right wall (left edge of the sprite)
 
     private int height;
     private final Color color;
-    private BufferedImage idleSprite;
-    private BufferedImage[] runSprites;
-    private BufferedImage[] attackSprites;
-    private BufferedImage jumpSprite;
-    private BufferedImage hurtSprite;
-    private BufferedImage downSprite;
-
-    private int velY = 0;
-    private float velX = 0;
+    private AnimationSet animations; // Replaced when the sprite sheet is reloaded
+    private Tuning tuning = Tuning.DEFAULTS; // Swapped only between steps; read with plain field loads
+    private final RenderState render = new RenderState();
+    private AnimationListener animationListener;
+
+    private int velY = 0; // Fixed-point pixels per step
+    private int velX = 0;
     private boolean onGround = true;
     private int health = 100;
-    private float superMeter = 0;
+    private int superMeter = 0;
 
     private int direction = 1;
     private boolean hasHit = false;
+    private boolean isSuperAttack = false;
 
-    private boolean isCrouching = false;
-    private boolean isBlocking = false;
-    private int blockCooldown = 0;
-    private boolean isBlockOnCooldown = false;
-
-    // Knockdown & Stun
-    private int stunTimer = 0;
-    private int knockdownTimer = 0;
-    private boolean isKnockedDown = false;
-    private int invulnerabilityTimer = 0;
+    // State Machine (one state and one frame counter replace the per-action timers)
+    private FighterState state = FighterState.IDLE;
+    private int stateFrame = 0; // Frames since entering the current state
 
-    // Dashing
-    private int dashTimer = 0;
-    private boolean isDashing = false;
+    // Cooldowns (tick only while actionable)
+    private int attackCooldown = 0;
+    private int blockCooldown = 0;
     private int dashCooldown = 0;
+    private int invulnerabilityTimer = 0;
 
-    // Attack and Animation
-    private int attackCooldown = 0;
-    private int animationTimer = 0;
-    private int frameIndex = 0;
-    private boolean isRunning = false;
+    // Input Buffer & Motion Commands
+    private final InputBuffer inputBuffer = new InputBuffer();
+    private final MotionRecognizer quarterCircleSuper = MotionRecognizer.quarterCircleForward(InputBuffer.ATTACK);
+    private final MotionRecognizer chargeDashAttack = MotionRecognizer.chargeBackForward(InputBuffer.ATTACK);
+    private final MotionRecognizer doubleTapForward = MotionRecognizer.doubleTap(6);
+    private final MotionRecognizer doubleTapBack = MotionRecognizer.doubleTap(4);
 
-    // --- Public Key Fields ---
-    public final int leftKey, rightKey, jumpKey, attackKey, superAttackKey, crouchKey, dashFwdKey, dashBackKey;
+    // Input arrives as an InputBuffer bitmask (see InputBindings for the keys and pads behind it)
+    public Fighter(int x, int y, Color color, BufferedImage idleSprite, BufferedImage[] runSprites, BufferedImage[] attackSprites, BufferedImage jumpSprite, BufferedImage hurtSprite, BufferedImage downSprite) {
+        this(x, y, color, new AnimationSet(idleSprite, runSprites, attackSprites, jumpSprite, hurtSprite, downSprite));
+    }
 
-    public Fighter(int x, int y, Color color, int left, int right, int jump, int attack, int superAttack, int crouch, int dashFwd, int dashBack, BufferedImage idleSprite, BufferedImage[] runSprites, BufferedImage[] attackSprites, BufferedImage jumpSprite, BufferedImage hurtSprite, BufferedImage downSprite) {
-        this.x = x;
-        this.y = y;
+    private Fighter(int x, int y, Color color, AnimationSet animations) {
+        this.x = FixedPoint.of(x);
+        this.y = FixedPoint.of(y);
         this.color = color;
-        this.idleSprite = idleSprite;
-        this.runSprites = runSprites;
-        this.attackSprites = attackSprites;
-        this.jumpSprite = jumpSprite;
-        this.hurtSprite = hurtSprite;
-        this.downSprite = downSprite;
-        this.leftKey = left;
-        this.rightKey = right;
-        this.jumpKey = jump;
-        this.attackKey = attack;
-        this.superAttackKey = superAttack;
-        this.crouchKey = crouch;
-        this.dashFwdKey = dashFwd;
-        this.dashBackKey = dashBack;
+        this.animations = animations;
         this.height = STAND_HEIGHT;
+        resolveAnimation();
+    }
+
+    /** Copy constructor: same animations, same gameplay state (used for lookahead scratch fighters). */
+    public Fighter(Fighter other) {
+        this(other.getX(), other.getY(), other.color, other.animations);
+        copyFrom(other);
     }
 
-    public void update(boolean[] keys) {
+    /**
+     * Overwrites every piece of gameplay state with {@code other}'s. No allocation, so
+     * search code can reset a scratch fighter many times per frame.
+     */
+    public void copyFrom(Fighter other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.maxX = other.maxX;
+        this.height = other.height;
+        this.velY = other.velY;
+        this.velX = other.velX;
+        this.onGround = other.onGround;
+        this.health = other.health;
+        this.superMeter = other.superMeter;
+        this.direction = other.direction;
+        this.hasHit = other.hasHit;
+        this.isSuperAttack = other.isSuperAttack;
+        this.state = other.state;
+        this.stateFrame = other.stateFrame;
+        this.attackCooldown = other.attackCooldown;
+        this.blockCooldown = other.blockCooldown;
+        this.dashCooldown = other.dashCooldown;
+        this.invulnerabilityTimer = other.invulnerabilityTimer;
+        this.inputBuffer.copyFrom(other.inputBuffer);
+        this.quarterCircleSuper.copyFrom(other.quarterCircleSuper);
+        this.chargeDashAttack.copyFrom(other.chargeDashAttack);
+        this.doubleTapForward.copyFrom(other.doubleTapForward);
+        this.doubleTapBack.copyFrom(other.doubleTapBack);
+        this.tuning = other.tuning; // Configuration rather than state, so not visited
+    }
 
-        // --- ANIMATION TIMER (Always run) ---
-        animationTimer++;
-        if (animationTimer >= RUN_ANIMATION_SPEED) {
-            animationTimer = 0;
-            frameIndex = (frameIndex + 1) % RUN_FRAME_COUNT;
-        }
+    /**
+     * Visits every field {@link #copyFrom} copies, as raw ints (positions in subpixels). Motion
+     * slots: 0 = quarter-circle super, 1 = charge dash attack, 2/3 = double-tap forward/back.
+     */
+    public void visitState(Match.StateVisitor v) {
+        v.field("x", -1, x);
+        v.field("y", -1, y);
+        v.field("maxX", -1, maxX);
+        v.field("height", -1, height);
+        v.field("velX", -1, velX);
+        v.field("velY", -1, velY);
+        v.field("onGround", -1, onGround ? 1 : 0);
+        v.field("health", -1, health);
+        v.field("superMeter", -1, superMeter);
+        v.field("direction", -1, direction);
+        v.field("hasHit", -1, hasHit ? 1 : 0);
+        v.field("isSuperAttack", -1, isSuperAttack ? 1 : 0);
+        v.field("state", -1, state.ordinal());
+        v.field("stateFrame", -1, stateFrame);
+        v.field("attackCooldown", -1, attackCooldown);
+        v.field("blockCooldown", -1, blockCooldown);
+        v.field("dashCooldown", -1, dashCooldown);
+        v.field("invulnerabilityTimer", -1, invulnerabilityTimer);
+        inputBuffer.visitState(v);
+        quarterCircleSuper.visitState(v, 0);
+        chargeDashAttack.visitState(v, 1);
+        doubleTapForward.visitState(v, 2);
+        doubleTapBack.visitState(v, 3);
+    }
 
-        // --- 1. HANDLE KNOCKDOWN STATE ---
-        if (knockdownTimer > 0) {
-            knockdownTimer--;
+    /** {@link #visitState}'s fields mixed straight into a checksum, in the same order. */
+    public long hashState(long h) {
+        h = StateChecksum.mix(h, x);
+        h = StateChecksum.mix(h, y);
+        h = StateChecksum.mix(h, maxX);
+        h = StateChecksum.mix(h, height);
+        h = StateChecksum.mix(h, velX);
+        h = StateChecksum.mix(h, velY);
+        h = StateChecksum.mix(h, onGround ? 1 : 0);
+        h = StateChecksum.mix(h, health);
+        h = StateChecksum.mix(h, superMeter);
+        h = StateChecksum.mix(h, direction);
+        h = StateChecksum.mix(h, hasHit ? 1 : 0);
+        h = StateChecksum.mix(h, isSuperAttack ? 1 : 0);
+        h = StateChecksum.mix(h, state.ordinal());
+        h = StateChecksum.mix(h, stateFrame);
+        h = StateChecksum.mix(h, attackCooldown);
+        h = StateChecksum.mix(h, blockCooldown);
+        h = StateChecksum.mix(h, dashCooldown);
+        h = StateChecksum.mix(h, invulnerabilityTimer);
+        h = inputBuffer.hashState(h);
+        h = quarterCircleSuper.hashState(h);
+        h = chargeDashAttack.hashState(h);
+        h = doubleTapForward.hashState(h);
+        return doubleTapBack.hashState(h);
+    }
 
-            // Apply gravity/fall until ground is reached
-            if (y < GROUND_Y - height) {
-                y += velY;
-                velY += GRAVITY_ACCELERATION;
-            } else {
-                y = GROUND_Y - height;
-                velY = 0;
-                isKnockedDown = true;
-            }
-            // Apply knockback velocity (velX)
-            x += velX;
-            velX *= 0.85;
-
-            if (knockdownTimer == 0) {
-                // End of knockdown: Stand up, start invulnerability
-                isKnockedDown = false;
-                invulnerabilityTimer = WAKEUP_INVULNERABILITY;
-            }
-            return; // EXIT: NO input or other physics if in knockdown
+    /** Advances one simulation step with the given {@link InputBuffer} bitmask. */
+    public void update(int input) {
+
+        // --- INPUT BUFFER (Always record, so presses during stun come out on the first free frame) ---
+        inputBuffer.push(input);
+        int pressed = inputBuffer.pressedThisFrame();
+        int stick = InputBuffer.numpadDirection(input, direction);
+        boolean qcfSuper = quarterCircleSuper.advance(stick, pressed);
+        boolean chargeAttack = chargeDashAttack.advance(stick, pressed);
+        boolean tapForward = doubleTapForward.advance(stick, pressed);
+        boolean tapBack = doubleTapBack.advance(stick, pressed);
+
+        switch (state) {
+            case KNOCKDOWN:
+                updateKnockdown();
+                break;
+            case HITSTUN:
+            case AIR_HITSTUN:
+                updateHitstun();
+                break;
+            default:
+                updateActionable(input, qcfSuper, chargeAttack, tapForward, tapBack);
+                break;
         }
 
-        // --- 2. HANDLE STUN/KNOCKBACK ---
-        if (stunTimer > 0) {
-            stunTimer--;
-            // Apply knockback velocity (velX)
-            x += velX;
-            velX *= 0.85;
-
-            // Check if knockback has dissipated enough to restore control
-            if (Math.abs(velX) < 1.0) {
-                velX = 0;
-            }
-            return; // EXIT: NO user input if in stun
+        // --- STATE TIMER (Timed states end on their own) ---
+        stateFrame++;
+        int duration = tuning.duration(state);
+        if (duration > 0 && stateFrame >= duration) {
+            exitTimedState();
         }
+    }
 
-        // --- 3. HANDLE DASH STATE ---
-        if (dashCooldown > 0) dashCooldown--;
+    /** Falls to the ground and slides with the knockback; no input. */
+    private void updateKnockdown() {
+        if (y < groundY()) {
+            y += velY;
+            velY += tuning.gravity;
+        } else {
+            y = groundY();
+            velY = 0;
+            onGround = true;
+        }
+        slide();
+    }
 
-        if (dashTimer > 0) {
-            dashTimer--;
-            // Apply fixed dash velocity
-            x += velX;
-            if (dashTimer == 0) {
-                isDashing = false;
-                velX = 0; // Stop horizontal movement after dash frames expire
-            }
+    /** Slides with the knockback; no input and no gravity, so air combos keep the target floating. */
+    private void updateHitstun() {
+        slide();
+        if (Math.abs(velX) < STOP_SPEED) {
+            velX = 0;
         }
+    }
 
-        // --- 4. INPUT HANDLING (Standard Movement) ---
+    /** Moves by the horizontal velocity (never through a wall), then applies the current state's friction. */
+    private void slide() {
+        x += velX;
+        clampToWalls(); // Knockback in hitstun and knockdown has no later wall check
+        velX = FixedPoint.mul(velX, tuning.friction(state));
+    }
 
-        // 4a. Block Cooldown Logic
-        if (blockCooldown > 0) {
-            blockCooldown--;
-            if (blockCooldown == 0) {
-                isBlockOnCooldown = false;
-            }
+    /** Y at which the fighter stands on the floor at its current height. */
+    private int groundY() {
+        return FixedPoint.of(GROUND_Y - height);
+    }
+
+    private void updateActionable(int input, boolean qcfSuper, boolean chargeAttack, boolean tapForward, boolean tapBack) {
+
+        // --- 1. BUFFERED ACTIONS (Motions first, then plain buttons) ---
+        if (qcfSuper && superAttack()) {
+            inputBuffer.consume(InputBuffer.ATTACK);
+        } else if (chargeAttack && dashForward()) {
+            attack();
+            inputBuffer.consume(InputBuffer.ATTACK);
         }
+        if (tapForward) dashForward();
+        if (tapBack) dashBack();
 
-        // 4b. Handle Crouching/Blocking state
-        isCrouching = keys[crouchKey];
-        if (isCrouching && onGround && !isBlockOnCooldown) {
-            this.isBlocking = true;
-        } else if (!isCrouching || !onGround) {
-            this.isBlocking = false;
+        if (inputBuffer.wasPressedWithin(InputBuffer.SUPER, tuning.bufferFrames) && superAttack()) {
+            inputBuffer.consume(InputBuffer.SUPER);
+        }
+        if (inputBuffer.wasPressedWithin(InputBuffer.ATTACK, tuning.bufferFrames) && attack()) {
+            inputBuffer.consume(InputBuffer.ATTACK);
+        }
+        if (inputBuffer.wasPressedWithin(InputBuffer.DASH_FWD, tuning.bufferFrames) && dashForward()) {
+            inputBuffer.consume(InputBuffer.DASH_FWD);
+        }
+        if (inputBuffer.wasPressedWithin(InputBuffer.DASH_BACK, tuning.bufferFrames) && dashBack()) {
+            inputBuffer.consume(InputBuffer.DASH_BACK);
         }
 
-        // 4c. Height and Y adjustment for crouching
-        if (isCrouching) {
-            this.height = CROUCH_HEIGHT;
-            this.y = GROUND_Y - CROUCH_HEIGHT;
-        } else {
-            this.height = STAND_HEIGHT;
-            if (onGround) {
-                this.y = GROUND_Y - STAND_HEIGHT;
-            }
+        // --- 2. COOLDOWNS ---
+        if (attackCooldown > 0) attackCooldown--;
+        if (dashCooldown > 0) dashCooldown--;
+        if (blockCooldown > 0) blockCooldown--;
+        if (invulnerabilityTimer > 0) invulnerabilityTimer--;
+
+        // --- 3. MOMENTUM (Dash velocity, or what an attack carried out of a dash) ---
+        if (state == FighterState.DASH) {
+            slide();
+        } else if (state == FighterState.ATTACK && velX != 0) {
+            slide();
+            if (Math.abs(velX) < STOP_SPEED) velX = 0;
         }
 
-        // 4d. User Movement and Running State Check
-        isRunning = false;
-        if (!isDashing && velX == 0) {
-            if (!isCrouching) {
-                if (keys[leftKey]) {
-                    x -= MOVEMENT_SPEED;
-                    isRunning = true;
-                }
-                if (keys[rightKey]) {
-                    x += MOVEMENT_SPEED;
-                    isRunning = true;
-                }
+        // --- 4. NEUTRAL POSTURE (Stand, run, crouch or block follows the stick) ---
+        boolean crouchHeld = (input & InputBuffer.DOWN) != 0;
+        boolean walking = ((input & (InputBuffer.LEFT | InputBuffer.RIGHT)) != 0);
+
+        if (state.isNeutral() && onGround) {
+            if (crouchHeld) {
+                setState(blockCooldown == 0 ? FighterState.BLOCK : FighterState.CROUCH);
+            } else {
+                setState(walking ? FighterState.RUN : FighterState.IDLE);
             }
         }
+        // Height follows the crouch key on every grounded frame, mid-attack too (a crouching attack hits low)
+        if (onGround && (state.isNeutral() || state == FighterState.ATTACK)) {
+            this.height = crouchHeld ? CROUCH_HEIGHT : STAND_HEIGHT;
+            this.y = groundY();
+        }
 
-        // --- 5. PHYSICS & TIMERS ---
+        // User Movement (Grounded, airborne or mid-attack; never while crouching, dashing or sliding)
+        boolean attackFree = state == FighterState.ATTACK && !crouchHeld;
+        if (state == FighterState.RUN || state == FighterState.JUMP || (attackFree && velX == 0)) {
+            if ((input & InputBuffer.LEFT) != 0) x -= tuning.moveSpeed;
+            if ((input & InputBuffer.RIGHT) != 0) x += tuning.moveSpeed;
+        }
+
+        // --- 5. PHYSICS ---
 
         // Corner Boundary Check
-        if (x < 0) {
-            x = 0;
-        } else if (x > MAX_X_BOUND) {
-            x = MAX_X_BOUND;
-        }
+        clampToWalls();
 
-        // Jump
-        if (!isCrouching && !isDashing && keys[jumpKey] && onGround) {
-            velY = JUMP_VELOCITY;
+        // Jump (An attack stays active in the air and ends in JUMP; never out of a crouch)
+        if ((input & InputBuffer.UP) != 0 && onGround && height != CROUCH_HEIGHT
+                && (state == FighterState.IDLE || state == FighterState.RUN || attackFree)) {
+            velY = tuning.jumpVelocity;
             onGround = false;
+            if (state != FighterState.ATTACK) setState(FighterState.JUMP);
         }
 
         // Gravity
         y += velY;
-        if (y >= GROUND_Y - this.height) {
-            y = GROUND_Y - this.height;
+        if (y >= groundY()) {
+            y = groundY();
             velY = 0;
             onGround = true;
+            if (state == FighterState.JUMP) setState(FighterState.IDLE);
         } else {
-            velY += GRAVITY_ACCELERATION;
-        }
-
-        // Attack Cooldown
-        if (attackCooldown > 0) {
-            attackCooldown--;
-            if (attackCooldown == 0) {
-                hasHit = false;
-            }
-        }
-
-        // Invulnerability Timer
-        if (invulnerabilityTimer > 0) {
-            invulnerabilityTimer--;
+            velY += tuning.gravity;
         }
 
         // Meter Clamping
@@ -276,48 +358,128 @@ public class Fighter {
         if (superMeter < 0) superMeter = 0;
     }
 
+    // --- State Machine ---
+
+    /** Switches state and restarts the frame counter. Re-entering a stun restarts it; free states just continue. */
+    private void setState(FighterState next) {
+        if (next != state || !next.actionable) {
+            state = next;
+            stateFrame = 0;
+        }
+    }
+
+    /** Enters {@code next} if the transition table allows it from the current state. */
+    private boolean tryEnter(FighterState next) {
+        if (!state.canTransitionTo(next)) return false;
+        setState(next);
+        return true;
+    }
+
+    /** A timed state ran out: clean up after it and return to neutral (or the air). */
+    private void exitTimedState() {
+        if (state == FighterState.KNOCKDOWN) {
+            invulnerabilityTimer = tuning.wakeupInvulnerability;
+        }
+        switch (state) {
+            case KNOCKDOWN:
+            case DASH:
+            case ATTACK:
+            case HITSTUN:
+            case AIR_HITSTUN:
+                velX = 0;
+                break;
+            default:
+                break;
+        }
+        setState(onGround ? FighterState.IDLE : FighterState.JUMP);
+    }
+
     // --- Getters and Setters ---
     /** Returns the smaller, physical collision box for fighter-to-fighter checks. */
     public Rectangle getRect() {
-        int currentCollisionHeight = isCrouching ? CROUCH_HEIGHT : STAND_HEIGHT;
+        Rectangle rect = new Rectangle();
+        getRect(rect);
+        return rect;
+    }
+
+    /** Writes the collision box into {@code out} (no allocation, for per-frame debug capture). */
+    public void getRect(Rectangle out) {
         // Uses smaller width (20) and offsets it (15) from the main X coordinate
-        return new Rectangle(x + COLLISION_OFFSET_X, y, COLLISION_WIDTH, currentCollisionHeight);
+        out.setBounds(getX() + COLLISION_OFFSET_X, getY(), COLLISION_WIDTH, height);
     }
 
     public int getHealth() { return health; }
     public int getDirection() { return direction; }
-    public boolean isBlockOnCooldown() { return isBlockOnCooldown; }
-    public int getX() { return x; }
-    public int getY() { return y; }
-    public float getSuperMeter() { return superMeter; }
+    public boolean isBlockOnCooldown() { return blockCooldown > 0; }
+    public int getX() { return FixedPoint.toInt(x); }
+    public int getY() { return FixedPoint.toInt(y); }
+    public int getSuperMeter() { return superMeter; }
     public boolean isInvulnerable() { return invulnerabilityTimer > 0; }
-    public boolean isKnockedDown() { return isKnockedDown || knockdownTimer > 0; }
+    public boolean isKnockedDown() { return state == FighterState.KNOCKDOWN; }
     public boolean onGround() { return onGround; }
-    public boolean isBlocking() { return isBlocking; }
+    public boolean isBlocking() { return state == FighterState.BLOCK; }
+    public FighterState getState() { return state; }
+    public int getStateFrame() { return stateFrame; }
+    public boolean isSuperAttack() { return isSuperAttack; }
+    public InputBuffer getInputBuffer() { return inputBuffer; }
 
     /** Helper for AI to know if the fighter can take action (move, attack, dash). */
     public boolean canAct() {
-        return stunTimer == 0 && knockdownTimer == 0;
+        return state.actionable;
     }
 
-    /** Helper for AI to check if attack cooldown is clear. */
+    /** Helper for AI to check if an attack could start right now. */
     public boolean isAttackReady() {
-        return attackCooldown == 0;
+        return attackCooldown == 0 && state.canTransitionTo(FighterState.ATTACK);
+    }
+
+    /** Helper for AI to check if a dash or backstep is available. */
+    public boolean isDashReady() {
+        return dashCooldown == 0;
     }
 
     /** Resets health and all status effects for a new round. */
     public void resetHealth() {
         this.health = 100;
-        this.isKnockedDown = false;
-        this.knockdownTimer = 0;
-        this.stunTimer = 0;
+        this.state = FighterState.IDLE;
+        this.stateFrame = 0;
+        this.height = STAND_HEIGHT;
         this.velX = 0;
         this.velY = 0;
         this.invulnerabilityTimer = 0;
         this.attackCooldown = 0;
-        this.isDashing = false;
+        this.blockCooldown = 0;
         this.dashCooldown = 0;
         this.superMeter = 0;
+        this.inputBuffer.clear();
+        this.quarterCircleSuper.reset();
+        this.chargeDashAttack.reset();
+        this.doubleTapForward.reset();
+        this.doubleTapBack.reset();
+        resolveAnimation();
+    }
+
+    /** Training mode: tops health and meter back up without touching the current state. */
+    public void refill() {
+        this.health = 100;
+        this.superMeter = MAX_METER;
+    }
+
+    /** Switches to another tuning snapshot; only between simulation steps. */
+    public void setTuning(Tuning tuning) {
+        this.tuning = tuning;
+    }
+
+    public Tuning getTuning() {
+        return tuning;
+    }
+
+    /** Wears reloaded sprites from the next frame drawn; the animation carries on where it was. */
+    public void setSprites(FighterSprites sprites) {
+        animations = new AnimationSet(sprites.idleSprite, sprites.runSprites, sprites.attackSprites,
+                sprites.jumpSprite, sprites.hurtSprite, sprites.downSprite);
+        render.clip = currentClip();
+        render.sprite = render.clip.frameAt(render.time);
     }
 
     public void setDirection(int newDirection) {
@@ -326,21 +488,36 @@ public class Fighter {
         }
     }
 
+    /** Moves the right wall for a stage {@code worldWidth} pixels wide. */
+    public void setWorldWidth(int worldWidth) {
+        maxX = worldWidth - width;
+        clampToWalls();
+    }
+
+    /** Largest X the fighter can stand at. */
+    public int getMaxX() {
+        return maxX;
+    }
+
     public void setX(int newX) {
-        this.x = newX;
+        this.x = FixedPoint.of(newX);
+        clampToWalls();
+    }
+
+    private void clampToWalls() {
         if (x < 0) {
             x = 0;
-        } else if (x > MAX_X_BOUND) {
-            x = MAX_X_BOUND;
+        } else if (x > FixedPoint.of(maxX)) {
+            x = FixedPoint.of(maxX);
         }
     }
 
     /** Allows GamePanel to reset vertical position during round start. */
     public void setY(int newY) {
-        this.y = newY;
+        this.y = FixedPoint.of(newY);
     }
 
-    public void gainMeter(double amount) {
+    public void gainMeter(int amount) {
         this.superMeter += amount;
         if (this.superMeter > MAX_METER) this.superMeter = MAX_METER;
     }
@@ -348,11 +525,9 @@ public class Fighter {
     // --- Dash Methods ---
 
     private boolean startDash(int directionMultiplier) {
-        if (stunTimer == 0 && onGround) {
-            isDashing = true;
-            dashTimer = DASH_FRAMES;
-            dashCooldown = DASH_COOLDOWN;
-            velX = (float) (directionMultiplier * DASH_DISTANCE) / DASH_FRAMES;
+        if (onGround && tryEnter(FighterState.DASH)) {
+            dashCooldown = tuning.dashCooldown;
+            velX = directionMultiplier * tuning.dashVelocity;
             return true;
         }
         return false;
@@ -375,9 +550,16 @@ public class Fighter {
      * collision box when facing forward (direction == 1).
      */
     public Rectangle getAttackRect() {
+        Rectangle rect = new Rectangle();
+        getAttackRect(rect);
+        return rect;
+    }
+
+    /** Writes the active hitbox into {@code out}; returns false (and an empty box) when not attacking. */
+    public boolean getAttackRect(Rectangle out) {
         if (isAttackActive()) {
             int offsetY;
-            if (isCrouching) {
+            if (height == CROUCH_HEIGHT) {
                 offsetY = CROUCH_ATTACK_OFFSET_Y;
             } else {
                 offsetY = STAND_ATTACK_OFFSET_Y;
@@ -393,32 +575,36 @@ public class Fighter {
             int offsetX = direction == 1 ? aggressiveStartOffset : -ATTACK_HITBOX_WIDTH;
             // -----------------------------
 
-            return new Rectangle(x + offsetX, y + offsetY, ATTACK_HITBOX_WIDTH, ATTACK_HITBOX_HEIGHT);
+            out.setBounds(getX() + offsetX, getY() + offsetY, ATTACK_HITBOX_WIDTH, ATTACK_HITBOX_HEIGHT);
+            return true;
         }
-        return new Rectangle(0, 0, 0, 0);
+        out.setBounds(0, 0, 0, 0);
+        return false;
     }
 
     public boolean attack() {
-        if (attackCooldown == 0 && stunTimer == 0) {
-            attackCooldown = ATTACK_DURATION;
+        if (attackCooldown == 0 && tryEnter(FighterState.ATTACK)) {
+            attackCooldown = tuning.attackCooldown;
             hasHit = false;
+            isSuperAttack = false;
             return true;
         }
         return false;
     }
 
     public boolean superAttack() {
-        if (superMeter >= SUPER_ATTACK_COST && attackCooldown == 0 && stunTimer == 0) {
-            attackCooldown = ATTACK_DURATION;
+        if (superMeter >= SUPER_ATTACK_COST && attackCooldown == 0 && tryEnter(FighterState.ATTACK)) {
+            attackCooldown = tuning.attackCooldown;
             superMeter -= SUPER_ATTACK_COST;
             hasHit = false;
+            isSuperAttack = true;
             return true;
         }
         return false;
     }
 
     public boolean isAttackActive() {
-        return attackCooldown > ATTACK_DURATION - ACTIVE_HIT_FRAME && attackCooldown > 0;
+        return state == FighterState.ATTACK;
     }
 
     public boolean canHit() {
@@ -431,16 +617,16 @@ public class Fighter {
     }
 
     public void takeDamage(int damage, int attackerDirection) {
-        if (isInvulnerable() || knockdownTimer > 0) {
+        if (isInvulnerable() || state == FighterState.KNOCKDOWN) {
             return;
         }
 
         boolean isFacingAttack = (attackerDirection != this.direction);
 
-        if (isBlocking && isFacingAttack) {
-            // Damage Blocked
-            blockCooldown = MAX_BLOCK_COOLDOWN;
-            this.isBlocking = false;
+        if (state == FighterState.BLOCK && isFacingAttack) {
+            // Damage Blocked: the guard drops until the cooldown runs out
+            blockCooldown = tuning.blockCooldown;
+            setState(FighterState.CROUCH);
             return;
         }
 
@@ -450,21 +636,21 @@ public class Fighter {
         }
 
         // --- HIT FLASH TRIGGER ---
-        this.invulnerabilityTimer = HIT_FLASH_DURATION;
+        this.invulnerabilityTimer = tuning.hitInvulnerability;
         // -------------------------
 
-        gainMeter(METER_GAIN_TAKEN);
+        gainMeter(tuning.meterGainTaken);
 
-        boolean isSuper = damage == 50; // Simple way to check if it was a heavy hit
+        boolean isSuper = damage == tuning.superDamage; // Simple way to check if it was a heavy hit
         int knockbackSign = attackerDirection * -1; // Push away from attacker
 
         if (isSuper) {
             // SUPER ATTACK: Always results in knockdown/heavy stun
-            knockdownTimer = KNOCKDOWN_DURATION;
-            velX = (float) (knockbackSign * KNOCKBACK_STRENGTH_HEAVY);
+            setState(FighterState.KNOCKDOWN);
+            velX = knockbackSign * tuning.knockbackHeavy;
 
             if (!onGround) {
-                velY = FALL_VELOCITY;
+                velY = tuning.fallVelocity;
             }
 
         } else {
@@ -472,57 +658,77 @@ public class Fighter {
 
             if (!onGround) {
                 // AIR COMBO STUN: Longer stun, lighter knockback to keep opponent floating
-                stunTimer = AIR_STUN_DURATION;
-                velX = (float) (knockbackSign * (KNOCKBACK_STRENGTH_LIGHT / 2.0));
+                setState(FighterState.AIR_HITSTUN);
+                velX = knockbackSign * (tuning.knockbackLight / 2);
             } else {
                 // GROUND STUN: Standard stun
-                stunTimer = REGULAR_STUN_DURATION;
-                velX = (float) (knockbackSign * KNOCKBACK_STRENGTH_LIGHT);
+                setState(FighterState.HITSTUN);
+                velX = knockbackSign * tuning.knockbackLight;
             }
         }
     }
 
-    // --- Drawing ---
-    public void draw(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g;
-
-        // 1. Determine which sprite frame to draw
-        BufferedImage currentSprite = idleSprite;
+    // --- Animation ---
 
-        // --- STATE DRAWING PRIORITY ---
+    public void setAnimationListener(AnimationListener listener) {
+        this.animationListener = listener;
+    }
 
-        // P1: Hurt/Knocked Down (Highest Priority)
-        if (stunTimer > 0 && hurtSprite != null) {
-            currentSprite = hurtSprite;
-        } else if (knockdownTimer > 0 && downSprite != null) {
-            // We use the same frame for the duration of the knockdown fall
-            currentSprite = downSprite;
-        }
-        // P2: Attack Animation
-        else if (attackCooldown > 0 && attackSprites != null) {
-            int attackFrameIndex = (ATTACK_DURATION - attackCooldown) * attackSprites.length / ATTACK_DURATION;
-            // Clamp frame index to prevent array bounds error
-            if (attackFrameIndex >= attackSprites.length) {
-                attackFrameIndex = attackSprites.length - 1;
+    /**
+     * Picks this step's clip and frame, fires the events of any frame that starts now, and caches
+     * what draw() needs. Called once per simulation step (by {@link Match}), never per render.
+     */
+    public void resolveAnimation() {
+        AnimationClip clip = currentClip();
+        // The swing plays through the active frames and the recovery after them
+        int time = isSwinging() ? tuning.attackCooldown - attackCooldown : stateFrame;
+
+        if (animationListener != null) {
+            // Catch up on steps since the last resolve; a fresh clip also fires its first frame
+            int from;
+            if (clip == render.clip && time > render.time) {
+                from = render.time + 1;
+            } else {
+                from = (time <= 1) ? 0 : time;
+            }
+            for (int t = from; t <= time; t++) {
+                AnimationClip.Event[] events = clip.eventsAt(t);
+                if (events == null) continue;
+                for (AnimationClip.Event event : events) {
+                    animationListener.onAnimationEvent(this, event);
+                }
             }
-            currentSprite = attackSprites[attackFrameIndex];
-        }
-        // P3: Jump/Airborne
-        else if (!onGround && jumpSprite != null) {
-            currentSprite = jumpSprite;
         }
-        // P4: Running
-        else if (runSprites != null && isRunning && onGround) {
-            currentSprite = runSprites[frameIndex];
+
+        render.clip = clip;
+        render.time = time;
+        render.sprite = clip.frameAt(time);
+        render.visible = !(isInvulnerable() && invulnerabilityTimer % 5 != 0); // Invulnerability flash
+        if (state == FighterState.BLOCK) {
+            render.indicator = BLOCK_COLOR;
+        } else if (blockCooldown > 0) {
+            render.indicator = BLOCK_COOLDOWN_COLOR;
+        } else {
+            render.indicator = null;
         }
-        // P5: Idle (Fallback)
-        // currentSprite is already idleSprite by default
+    }
 
-        // 2. Invulnerability Flash Check
-        boolean isFlashing = isInvulnerable() && (invulnerabilityTimer % 5 != 0);
+    private boolean isSwinging() {
+        return state.actionable && attackCooldown > 0;
+    }
 
-        if (!isFlashing) {
-            if (currentSprite != null) {
+    private AnimationClip currentClip() {
+        return isSwinging() ? animations.attack(isSuperAttack) : animations.forState(state);
+    }
+
+    // --- Drawing ---
+    public void draw(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        int x = getX();
+        int y = getY();
+
+        if (render.visible) {
+            if (render.sprite != null) {
                 int drawX = x;
                 int drawWidth = width;
 
@@ -534,7 +740,7 @@ public class Fighter {
 
                 // --- APPLIED VERTICAL OFFSET FOR DRAWING ---
                 // Shifts the sprite down 40px to meet the feet on the ground line (GROUND_Y=400)
-                g2.drawImage(currentSprite, drawX, y + SPRITE_VERTICAL_OFFSET, drawWidth, height, null);
+                g2.drawImage(render.sprite, drawX, y + SPRITE_VERTICAL_OFFSET, drawWidth, height, null);
             } else {
                 // FALLBACK: Draw color block if sprite not found
                 g.setColor(color);
@@ -542,15 +748,10 @@ public class Fighter {
             }
         }
 
-        // Draw status indicators over the fighter (always draw)
-
-        // Draw block indicators
-        if (isBlocking) {
-            g.setColor(new Color(50, 200, 255, 180));
-            g.fillRect(x - 5, y - 5, width + 10, height + 10);
-        } else if (isBlockOnCooldown()) {
-            g.setColor(new Color(255, 50, 50, 80));
+        // Draw block indicators over the fighter (always draw)
+        if (render.indicator != null) {
+            g.setColor(render.indicator);
             g.fillRect(x - 5, y - 5, width + 10, height + 10);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,164 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * One character's sprites, sliced from {@code /assets/fighter_sheet_<n>.png}. Shared by the
+ * game and the headless tools, so a replay renders exactly what was played.
+ */
+public class FighterSprites {
+
+    public static final int UNIQUE_SPRITE_SHEETS = 4;
+    /** Sheets here override the bundled ones and are watched for edits (see {@link TuningWatcher}). */
+    public static final String SPRITE_DIR = System.getProperty("fightgame.spriteDir", "config/sprites");
+
+    public BufferedImage idleSprite;
+    public BufferedImage[] runSprites;
+    public BufferedImage[] attackSprites;
+    public BufferedImage jumpSprite;
+    public BufferedImage hurtSprite;
+    public BufferedImage downSprite;
+
+    /** A fighter at ({@code x}, {@code y}) wearing these sprites. */
+    public Fighter newFighter(int x, int y, Color color) {
+        return new Fighter(x, y, color, idleSprite, runSprites, attackSprites, jumpSprite, hurtSprite, downSprite);
+    }
+
+    /** Sprites for {@code count} characters; past the unique sheets, the last one is reused. */
+    public static List<FighterSprites> loadAll(int count) {
+        List<FighterSprites> all = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (i < UNIQUE_SPRITE_SHEETS) {
+                all.add(load(i));
+            } else {
+                // FALLBACK FOR INDEXES 4, 5, 6
+                FighterSprites last = all.get(UNIQUE_SPRITE_SHEETS - 1);
+                FighterSprites clone = new FighterSprites();
+                clone.idleSprite = last.idleSprite;
+                clone.runSprites = last.runSprites;
+                clone.attackSprites = last.attackSprites;
+                clone.jumpSprite = last.jumpSprite;
+                clone.hurtSprite = last.hurtSprite;
+                clone.downSprite = last.downSprite;
+                all.add(clone);
+            }
+        }
+        return all;
+    }
+
+    /** File name of sheet {@code index}. */
+    public static String sheetName(int index) {
+        return "fighter_sheet_" + index + ".png";
+    }
+
+    /** The sheet character {@code index} wears (characters past the unique sheets share the last). */
+    public static int sheetOf(int index) {
+        return Math.min(index, UNIQUE_SPRITE_SHEETS - 1);
+    }
+
+    /** Sheet {@code index}, or a red box for every frame if it can't be read. */
+    public static FighterSprites load(int index) {
+        try {
+            return read(index);
+        } catch (IOException e) {
+            System.err.println("Error loading sprite sheet for index " + index + ": " + e.getMessage());
+
+            // Fallback (Red box)
+            final int FALLBACK_SIZE = Fighter.SPRITE_SIZE;
+            BufferedImage fallback = new BufferedImage(FALLBACK_SIZE, FALLBACK_SIZE, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2_fallback = fallback.createGraphics();
+            g2_fallback.setColor(Color.RED);
+            g2_fallback.fillRect(0, 0, FALLBACK_SIZE, FALLBACK_SIZE);
+            g2_fallback.dispose();
+
+            FighterSprites assets = new FighterSprites();
+            assets.idleSprite = fallback;
+            assets.runSprites = new BufferedImage[]{fallback, fallback, fallback, fallback, fallback, fallback};
+            assets.attackSprites = new BufferedImage[]{fallback, fallback, fallback, fallback, fallback, fallback};
+            assets.jumpSprite = fallback;
+            assets.hurtSprite = fallback;
+            assets.downSprite = fallback;
+            return assets;
+        }
+    }
+
+    /**
+     * Sheet {@code index} from {@link #SPRITE_DIR} if there is one there (so artists can edit it
+     * while the game runs), otherwise the bundled one. Throws instead of falling back, so a
+     * half-saved sheet never replaces a good one.
+     */
+    public static FighterSprites read(int index) throws IOException {
+        final int FRAME_SIZE = Fighter.SPRITE_SIZE; // 100
+        final int RUN_FRAME_COUNT = Fighter.RUN_FRAME_COUNT; // 6
+        final int ATTACK_FRAME_COUNT = Fighter.ATTACK_FRAME_COUNT; // 6
+
+        FighterSprites assets = new FighterSprites();
+        // --- FIX: Using Resource Stream for Sprite Sheets ---
+        String assetPath = "/assets/" + sheetName(index);
+        File override = new File(SPRITE_DIR, sheetName(index));
+        try (InputStream is = override.isFile() ? new FileInputStream(override) : FighterSprites.class.getResourceAsStream(assetPath)) {
+            if (is == null) throw new IOException("Resource not found: " + assetPath);
+
+            BufferedImage baseSpriteSheet = ImageIO.read(is);
+            if (baseSpriteSheet == null) throw new IOException("Not a readable image: " + sheetName(index));
+
+            if (baseSpriteSheet.getHeight() < FRAME_SIZE * 6) {
+                System.err.println("Sprite sheet for index " + index + " is too short. Expected at least 600px tall.");
+                throw new IOException("Sheet height is incorrect.");
+            }
+
+            // --- SLICING LOGIC (Using baseSpriteSheet) ---
+            if (index == 2) {
+                // Armored Skeleton Layout
+                assets.idleSprite = baseSpriteSheet.getSubimage(0, 0, FRAME_SIZE, FRAME_SIZE);
+                assets.runSprites = new BufferedImage[RUN_FRAME_COUNT];
+                for (int j = 0; j < RUN_FRAME_COUNT; j++) {
+                    int xOffset = j * FRAME_SIZE;
+                    int yOffset = 1 * FRAME_SIZE;
+                    assets.runSprites[j] = baseSpriteSheet.getSubimage(xOffset, yOffset, FRAME_SIZE, FRAME_SIZE);
+                }
+
+                assets.jumpSprite = baseSpriteSheet.getSubimage(5 * FRAME_SIZE, 0, FRAME_SIZE, FRAME_SIZE);
+                assets.hurtSprite = baseSpriteSheet.getSubimage(0, 4 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
+                assets.downSprite = baseSpriteSheet.getSubimage(1 * FRAME_SIZE, 4 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
+
+                assets.attackSprites = new BufferedImage[ATTACK_FRAME_COUNT];
+                for (int j = 0; j < ATTACK_FRAME_COUNT; j++) {
+                    int xOffset = (j + 1) * FRAME_SIZE;
+                    int yOffset = 2 * FRAME_SIZE;
+                    assets.attackSprites[j] = baseSpriteSheet.getSubimage(xOffset, yOffset, FRAME_SIZE, FRAME_SIZE);
+                }
+            }
+            // Default Layout (Orc/Knight, etc.)
+            else {
+                assets.idleSprite = baseSpriteSheet.getSubimage(0, 0, FRAME_SIZE, FRAME_SIZE);
+                assets.runSprites = new BufferedImage[RUN_FRAME_COUNT];
+                for (int j = 0; j < RUN_FRAME_COUNT; j++) {
+                    int xOffset = j * FRAME_SIZE;
+                    int yOffset = 1 * FRAME_SIZE;
+                    assets.runSprites[j] = baseSpriteSheet.getSubimage(xOffset, yOffset, FRAME_SIZE, FRAME_SIZE);
+                }
+
+                assets.jumpSprite = baseSpriteSheet.getSubimage(0, 5 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
+                assets.hurtSprite = baseSpriteSheet.getSubimage(0, 4 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
+                assets.downSprite = baseSpriteSheet.getSubimage(1 * FRAME_SIZE, 4 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
+
+                assets.attackSprites = new BufferedImage[ATTACK_FRAME_COUNT];
+                for (int j = 0; j < ATTACK_FRAME_COUNT; j++) {
+                    int xOffset = j * FRAME_SIZE;
+                    int yOffset = 2 * FRAME_SIZE;
+                    assets.attackSprites[j] = baseSpriteSheet.getSubimage(xOffset, yOffset, FRAME_SIZE, FRAME_SIZE);
+                }
+            }
+            // --- END SLICING LOGIC ---
+        }
+        return assets;
+    }
+}
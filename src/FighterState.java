@@ -0,0 +1,69 @@
+/**
+ * Every state a {@link Fighter} can be in. A fighter is in exactly one state at a time and
+ * counts frames since entering it; timed states end on their own after {@link #duration} frames.
+ *
+ * Which states may follow which lives in one transition table, so "can I attack out of a dash?"
+ * is a single lookup instead of a chain of timer checks.
+ */
+public enum FighterState {
+    //          duration, actionable
+    IDLE(0, true),
+    RUN(0, true),
+    CROUCH(0, true),      // Crouching while the block is on cooldown
+    BLOCK(0, true),
+    JUMP(0, true),        // Airborne and free to act
+    DASH(10, true),
+    ATTACK(10, true),     // Active frames only; recovery is Fighter's attack cooldown
+    HITSTUN(8, false),
+    AIR_HITSTUN(15, false), // Longer stun for air combos
+    KNOCKDOWN(90, false);
+
+    /** Frames before the state ends by itself, or 0 if it only ends through a transition. */
+    public final int duration;
+    /** Whether the fighter reads input (and its cooldowns tick) in this state. */
+    public final boolean actionable;
+
+    private static final FighterState[] VALUES = values();
+    private static final boolean[][] TRANSITIONS = new boolean[VALUES.length][VALUES.length];
+
+    static {
+        allow(IDLE, RUN, CROUCH, BLOCK, JUMP, DASH, ATTACK);
+        allow(RUN, IDLE, CROUCH, BLOCK, JUMP, DASH, ATTACK);
+        allow(CROUCH, IDLE, RUN, BLOCK, DASH, ATTACK);
+        allow(BLOCK, IDLE, RUN, CROUCH, DASH, ATTACK);
+        allow(JUMP, IDLE, ATTACK);
+        allow(DASH, IDLE, ATTACK); // Attacking out of a dash keeps its momentum
+        allow(ATTACK, IDLE, JUMP);
+        allow(HITSTUN, IDLE, JUMP);
+        allow(AIR_HITSTUN, IDLE, JUMP);
+        allow(KNOCKDOWN, IDLE, JUMP);
+
+        // Getting hit interrupts anything except a knockdown
+        for (FighterState from : VALUES) {
+            if (from == KNOCKDOWN) continue;
+            TRANSITIONS[from.ordinal()][HITSTUN.ordinal()] = true;
+            TRANSITIONS[from.ordinal()][AIR_HITSTUN.ordinal()] = true;
+            TRANSITIONS[from.ordinal()][KNOCKDOWN.ordinal()] = true;
+        }
+    }
+
+    FighterState(int duration, boolean actionable) {
+        this.duration = duration;
+        this.actionable = actionable;
+    }
+
+    private static void allow(FighterState from, FighterState... to) {
+        for (FighterState next : to) {
+            TRANSITIONS[from.ordinal()][next.ordinal()] = true;
+        }
+    }
+
+    public boolean canTransitionTo(FighterState next) {
+        return TRANSITIONS[ordinal()][next.ordinal()];
+    }
+
+    /** Free, grounded states whose posture (stand/run/crouch/block) follows the stick every frame. */
+    public boolean isNeutral() {
+        return this == IDLE || this == RUN || this == CROUCH || this == BLOCK;
+    }
+}
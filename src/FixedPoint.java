@@ -0,0 +1,33 @@
+/**
+ * 16.16 fixed-point helpers for gameplay physics. Positions and velocities are ints in
+ * 1/65536 pixel units, so every step is plain integer math: the same bits on any JVM or CPU,
+ * which replays, rollback and lockstep netplay all rely on. Tuning values are converted
+ * once, when a {@link Tuning} is loaded; nothing in the simulation touches float or double.
+ */
+public final class FixedPoint {
+
+    public static final int SHIFT = 16;
+    public static final int ONE = 1 << SHIFT;
+
+    private FixedPoint() {}
+
+    /** Whole pixels to fixed-point. */
+    public static int of(int pixels) {
+        return pixels << SHIFT;
+    }
+
+    /** Fixed-point to whole pixels, rounded down. */
+    public static int toInt(int fixed) {
+        return fixed >> SHIFT;
+    }
+
+    /** {@code numerator / denominator} as fixed-point, rounded toward zero. */
+    public static int ratio(int numerator, int denominator) {
+        return (int) (((long) numerator << SHIFT) / denominator);
+    }
+
+    /** {@code a * b}, rounded toward zero so left and right moves decay exactly alike. */
+    public static int mul(int a, int b) {
+        return (int) ((long) a * b / ONE);
+    }
+}
@@ -0,0 +1,222 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.locks.LockSupport;
+import javax.imageio.ImageIO;
+
+/**
+ * Records rendered frames to disk without slowing the game. The render thread copies each
+ * frame out of the offscreen buffer into a pool of {@code int[]} frames allocated when the
+ * recording starts; a background thread encodes them, either as a Y4M stream (raw YUV 4:2:0,
+ * written through a FileChannel, which ffmpeg and most players read directly) or as a PNG
+ * sequence. The pool is a ring like {@link MatchTelemetry}'s: if the encoder falls behind and
+ * every frame is still waiting, the new frame is dropped and counted, so capturing never waits.
+ *
+ * Files go under {@code recordings/}.
+ */
+public class FrameRecorder {
+
+    public static final String Y4M = "y4m", PNG = "png";
+
+    private static final int POOL_SIZE = 8;     // Frames the encoder may fall behind before drops (8 x 1.6 MB at 800x500)
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+    private static final String OUTPUT_DIR = "recordings";
+
+    private final String format;
+    private final int width, height;
+    private final File output;
+
+    // --- Frame Pool (one producer: the render thread; one consumer: the encoder) ---
+    private final BufferedImage[] images = new BufferedImage[POOL_SIZE]; // PNG encoding wraps the same pixels
+    private final int[][] frames = new int[POOL_SIZE][];
+    private volatile long writeSeq = 0;
+    private volatile long readSeq = 0;
+    private volatile long dropped = 0;  // Written by the producer only
+    private volatile long written = 0;  // Written by the encoder only
+
+    // --- Encoder State ---
+    private FileChannel channel;        // Y4M only
+    private ByteBuffer yuv;
+    private volatile boolean running = true;
+    private final Thread encoderThread;
+
+    /**
+     * Starts recording {@code width} x {@code height} frames in {@code format} (Y4M or PNG).
+     * Throws if the output can't be created; nothing is left running in that case.
+     */
+    public FrameRecorder(String format, int width, int height, int fps) throws IOException {
+        if (!format.equals(Y4M) && !format.equals(PNG)) throw new IllegalArgumentException("Unknown recording format '" + format + "'");
+        this.format = format;
+        this.width = width & ~1; // 4:2:0 chroma covers 2x2 blocks
+        this.height = height & ~1;
+
+        File dir = new File(OUTPUT_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        if (format.equals(Y4M)) {
+            output = new File(dir, "match-" + stamp + ".y4m");
+            channel = FileChannel.open(output.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            String header = "YUV4MPEG2 W" + this.width + " H" + this.height + " F" + fps + ":1 Ip A1:1 C420jpeg XCOLORRANGE=FULL\n";
+            writeFully(ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));
+            int lumaBytes = this.width * this.height;
+            yuv = ByteBuffer.allocateDirect("FRAME\n".length() + lumaBytes + lumaBytes / 2);
+        } else {
+            output = new File(dir, "match-" + stamp);
+            if (!output.isDirectory() && !output.mkdirs()) throw new IOException("Cannot create " + output);
+        }
+
+        for (int i = 0; i < POOL_SIZE; i++) {
+            images[i] = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+            frames[i] = ((DataBufferInt) images[i].getRaster().getDataBuffer()).getData();
+        }
+
+        encoderThread = new Thread(this::encodeLoop, "frame-recorder");
+        encoderThread.setDaemon(true);
+        encoderThread.setPriority(Thread.MIN_PRIORITY); // Encoding yields to the game
+        encoderThread.start();
+    }
+
+    /** False once stopped, or if the encoder gave up after a write error. */
+    public boolean isRecording() {
+        return running;
+    }
+
+    public File getOutput() {
+        return output;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    /** Frames taken so far; all of them reach the file unless it fails. */
+    public long getCaptured() {
+        return writeSeq;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    // --- Capture (render thread) ---
+
+    /**
+     * Copies {@code source} into the next free pool frame. Drops the frame instead if the pool is
+     * full or the source isn't the size the recording started with (F8 changed the render mode);
+     * those show up in the REC indicator's dropped count.
+     */
+    public void capture(BufferedImage source) {
+        long write = writeSeq;
+        if (write - readSeq >= POOL_SIZE || source.getWidth() != width || source.getHeight() != height) {
+            dropped++;
+            return;
+        }
+        int slot = (int) (write % POOL_SIZE);
+        int type = source.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+            source.getRaster().getDataElements(0, 0, width, height, frames[slot]); // Straight copy of packed pixels
+        } else {
+            source.getRGB(0, 0, width, height, frames[slot], 0, width);
+        }
+        writeSeq = write + 1; // Publishes the frame to the encoder
+    }
+
+    /** Stops taking frames; the encoder finishes what is queued, then closes the file. */
+    public void stop() {
+        running = false;
+    }
+
+    /** {@link #stop}, then waits up to {@code millis} for the queued frames to be written. */
+    public void stopAndWait(long millis) {
+        stop();
+        try {
+            encoderThread.join(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Encoder (background thread) ---
+
+    private void encodeLoop() {
+        try {
+            while (running) {
+                if (!drain()) LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            drain();
+        } catch (IOException e) {
+            System.err.println("Warning: Recording stopped, could not write " + output + ". Error: " + e.getMessage());
+            running = false;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Warning: Could not close " + output + ". Error: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Encodes everything captured so far. Returns false if there was nothing to do. */
+    private boolean drain() throws IOException {
+        long read = readSeq;
+        long write = writeSeq;
+        if (read == write) return false;
+        for (; read < write; read++) {
+            int slot = (int) (read % POOL_SIZE);
+            if (format.equals(Y4M)) {
+                writeY4mFrame(frames[slot]);
+            } else {
+                File file = new File(output, String.format("frame-%06d.png", written + 1));
+                if (!ImageIO.write(images[slot], "png", file)) throw new IOException("No PNG writer");
+            }
+            written++;
+            readSeq = read + 1; // Hands the frame back to the render thread
+        }
+        return true;
+    }
+
+    /** One frame as full-range BT.601 YUV 4:2:0 (C420jpeg), chroma averaged over each 2x2 block. */
+    private void writeY4mFrame(int[] rgb) throws IOException {
+        yuv.clear();
+        yuv.put((byte) 'F').put((byte) 'R').put((byte) 'A').put((byte) 'M').put((byte) 'E').put((byte) '\n');
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int p = rgb[row + x];
+                int r = (p >> 16) & 0xFF, g = (p >> 8) & 0xFF, b = p & 0xFF;
+                yuv.put((byte) ((77 * r + 150 * g + 29 * b + 128) >> 8));
+            }
+        }
+        int chromaStart = yuv.position();
+        int chromaBytes = (width / 2) * (height / 2);
+        for (int y = 0; y < height; y += 2) {
+            int row = y * width;
+            for (int x = 0; x < width; x += 2) {
+                int p0 = rgb[row + x], p1 = rgb[row + x + 1], p2 = rgb[row + width + x], p3 = rgb[row + width + x + 1];
+                int r = ((p0 >> 16) & 0xFF) + ((p1 >> 16) & 0xFF) + ((p2 >> 16) & 0xFF) + ((p3 >> 16) & 0xFF);
+                int g = ((p0 >> 8) & 0xFF) + ((p1 >> 8) & 0xFF) + ((p2 >> 8) & 0xFF) + ((p3 >> 8) & 0xFF);
+                int b = (p0 & 0xFF) + (p1 & 0xFF) + (p2 & 0xFF) + (p3 & 0xFF);
+                // Sums of four pixels, so the shift also takes the average
+                int index = chromaStart + (y / 2) * (width / 2) + x / 2;
+                yuv.put(index, (byte) Math.min(255, ((-43 * r - 85 * g + 128 * b + 512) >> 10) + 128));
+                yuv.put(index + chromaBytes, (byte) Math.min(255, ((128 * r - 107 * g - 21 * b + 512) >> 10) + 128));
+            }
+        }
+        yuv.position(chromaStart + 2 * chromaBytes);
+        yuv.flip();
+        writeFully(yuv);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+}
@@ -0,0 +1,334 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless property check for the simulation. It plays seeded random input sequences for
+ * both fighters through the real round flow ({@link DesyncCheck.Run}) and checks invariants
+ * after every step:
+ *   health in [0, 100], meter in [0, MAX_METER], x within the walls, no negative timers or
+ *   counters, and no fighter kept from acting longer than a knockdown could explain.
+ * Sequences run in parallel. The first failing sequence for each invariant is shrunk to a
+ * minimal reproduction and printed: first its frames are cut down, then its inputs.
+ *
+ * Sequence n always gets the same inputs for a given seed, so the results don't depend on the
+ * thread count. Run it before and after changing {@code Fighter.update}.
+ *
+ * Usage: java FuzzCheck [sequences=20000] [frames=1800] [seed=1] [threads=cores]
+ */
+public class FuzzCheck {
+
+    private static final int MAX_HEALTH = 100;
+    private static final int MAX_HOLD = 12;          // Inputs are held 1..12 frames, so motions and charges come out
+    private static final int STUCK_FRAMES = 4 * FighterState.KNOCKDOWN.duration; // Without acting or being hit
+    private static final int SHRINK_BUDGET = 20_000; // Replays per failure
+    private static final int PROGRESS_EVERY = 5_000; // Sequences
+
+    /** Fighter fields that count frames and may never go negative. */
+    private static final String[] COUNTERS = {
+            "stateFrame", "attackCooldown", "blockCooldown", "dashCooldown", "invulnerabilityTimer",
+            "input.framesSincePress", "motion.framesSinceStep", "motion.heldCharge",
+    };
+
+    /** Button names for printing inputs, in {@link InputBuffer} bit order. */
+    private static final String[] BUTTONS = {"LEFT", "RIGHT", "UP", "DOWN", "ATTACK", "SUPER", "DASH_FWD", "DASH_BACK"};
+
+    /** The first broken invariant in a run. */
+    private static class Violation {
+        final String invariant; // Failures are grouped, and shrunk, by this
+        final String detail;
+        final int frame;        // Index of the step after which it was seen
+
+        Violation(String invariant, String detail, int frame) {
+            this.invariant = invariant;
+            this.detail = detail;
+            this.frame = frame;
+        }
+    }
+
+    /** A failing sequence; {@code inputs[frame][fighter]}. */
+    private static class Failure {
+        final long sequence;
+        final int[][] inputs;
+        final Violation violation;
+
+        Failure(long sequence, int[][] inputs, Violation violation) {
+            this.sequence = sequence;
+            this.inputs = inputs;
+            this.violation = violation;
+        }
+    }
+
+    /** Checks the counters as the fighter visits its state; no allocation per step. */
+    private static class CounterCheck implements Match.StateVisitor {
+        String negative; // First negative counter, as "name[slot]=value", or null
+
+        @Override
+        public void field(String name, int slot, int value) {
+            if (value >= 0 || negative != null) return;
+            for (String counter : COUNTERS) {
+                if (counter.equals(name)) {
+                    negative = slot < 0 ? name + "=" + value : name + "[" + slot + "]=" + value;
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Runs after every match step, before a knockout resets the round; keeps the first violation. */
+    private static class Invariants implements Runnable {
+        final DesyncCheck.Run run;
+        final CounterCheck counters = new CounterCheck();
+        final int[] previousHealth = new int[DesyncCheck.Run.FIGHTERS];
+        final int[] stuckFrames = new int[DesyncCheck.Run.FIGHTERS]; // Steps without acting or being hit
+        int frame;
+        Violation violation;
+
+        Invariants(DesyncCheck.Run run) {
+            this.run = run;
+            for (int i = 0; i < previousHealth.length; i++) previousHealth[i] = run.match.getFighter(i).getHealth();
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < DesyncCheck.Run.FIGHTERS && violation == null; i++) {
+                violation = check(i, run.match.getFighter(i));
+            }
+        }
+
+        private Violation check(int i, Fighter f) {
+            String who = "fighter " + (i + 1) + " ";
+            if (f.getHealth() < 0 || f.getHealth() > MAX_HEALTH) {
+                return new Violation("health", who + "health " + f.getHealth(), frame);
+            }
+            if (f.getSuperMeter() < 0 || f.getSuperMeter() > Fighter.MAX_METER) {
+                return new Violation("meter", who + "meter " + f.getSuperMeter(), frame);
+            }
+            if (f.getX() < 0 || f.getX() > f.getMaxX()) {
+                return new Violation("x", who + "x " + f.getX() + " outside [0, " + f.getMaxX() + "]", frame);
+            }
+            counters.negative = null;
+            f.visitState(counters);
+            if (counters.negative != null) {
+                return new Violation("timers", who + counters.negative, frame);
+            }
+
+            boolean hit = f.getHealth() < previousHealth[i];
+            previousHealth[i] = f.getHealth();
+            stuckFrames[i] = (f.canAct() || hit) ? 0 : stuckFrames[i] + 1;
+            if (stuckFrames[i] > STUCK_FRAMES) {
+                return new Violation("stuck", who + "unable to act for " + stuckFrames[i] + " frames in "
+                        + f.getState() + " (state frame " + f.getStateFrame() + ")", frame);
+            }
+            return null;
+        }
+
+        /** A new round: everyone is back at full health and free. */
+        void roundReset() {
+            for (int i = 0; i < previousHealth.length; i++) {
+                previousHealth[i] = run.match.getFighter(i).getHealth();
+                stuckFrames[i] = 0;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long sequences = args.length > 0 ? Long.parseLong(args[0]) : 20_000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 1800;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("Fuzzing %d sequences of %d frames (seed %d, %d threads)%n", sequences, frames, seed, threads);
+        long start = System.nanoTime();
+        AtomicLong next = new AtomicLong();
+        AtomicLong steps = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<Map<String, Failure>>> workers = new ArrayList<>();
+        for (int t = 0; t < Math.max(1, threads); t++) {
+            workers.add(pool.submit(() -> {
+                // Each worker keeps its own lowest failing sequence per invariant
+                Map<String, Failure> found = new TreeMap<>();
+                int[][] inputs = new int[frames][DesyncCheck.Run.FIGHTERS];
+                long n;
+                while ((n = next.getAndIncrement()) < sequences) {
+                    generate(seed, n, inputs);
+                    Violation violation = play(inputs, inputs.length);
+                    steps.addAndGet(violation == null ? frames : violation.frame + 1);
+                    if (violation != null && !found.containsKey(violation.invariant)) {
+                        found.put(violation.invariant, new Failure(n, copy(inputs, violation.frame + 1), violation));
+                    }
+                    if ((n + 1) % PROGRESS_EVERY == 0) System.out.printf("  %d sequences%n", n + 1);
+                }
+                return found;
+            }));
+        }
+        Map<String, Failure> failures = new TreeMap<>();
+        for (Future<Map<String, Failure>> worker : workers) {
+            for (Failure failure : worker.get().values()) {
+                Failure known = failures.get(failure.violation.invariant);
+                if (known == null || failure.sequence < known.sequence) failures.put(failure.violation.invariant, failure);
+            }
+        }
+        pool.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d steps in %.1f s (%.0f steps/s)%n", steps.get(), seconds, steps.get() / seconds);
+        if (failures.isEmpty()) {
+            System.out.println("OK: every invariant held");
+            return;
+        }
+        for (Failure failure : failures.values()) report(failure);
+        System.exit(1);
+    }
+
+    // --- Inputs ---
+
+    /** Fills {@code inputs} with sequence {@code n}'s frames: random button sets, each held for a while. */
+    private static void generate(long seed, long n, int[][] inputs) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + n);
+        for (int fighter = 0; fighter < DesyncCheck.Run.FIGHTERS; fighter++) {
+            int frame = 0;
+            while (frame < inputs.length) {
+                int mask = randomMask(random);
+                int end = Math.min(inputs.length, frame + 1 + random.nextInt(MAX_HOLD));
+                for (; frame < end; frame++) inputs[frame][fighter] = mask;
+            }
+        }
+    }
+
+    /** Mostly plausible play (nothing, a direction, a direction plus a button), sometimes any combination. */
+    private static int randomMask(SplittableRandom random) {
+        int roll = random.nextInt(10);
+        if (roll < 2) return 0;
+        int direction = 1 << random.nextInt(4);
+        if (roll < 5) return direction;
+        if (roll < 8) return direction | (InputBuffer.ATTACK << random.nextInt(4));
+        return random.nextInt(1 << InputBuffer.BUTTON_COUNT); // Opposite directions, every button at once...
+    }
+
+    private static int[][] copy(int[][] inputs, int frames) {
+        int[][] copy = new int[frames][];
+        for (int i = 0; i < frames; i++) copy[i] = inputs[i].clone();
+        return copy;
+    }
+
+    // --- Play ---
+
+    /** Plays the first {@code frames} of {@code inputs} from a fresh match; returns the first violation, or null. */
+    private static Violation play(int[][] inputs, int frames) {
+        DesyncCheck.Run run = new DesyncCheck.Run(DesyncCheck.Run.newFighters(null, null));
+        Invariants invariants = new Invariants(run);
+        run.afterStep = invariants;
+        for (int frame = 0; frame < frames; frame++) {
+            invariants.frame = frame;
+            if (!run.step(inputs[frame])) return null; // Match over
+            if (invariants.violation != null) return invariants.violation;
+            if (run.roundEnded) invariants.roundReset();
+        }
+        return null;
+    }
+
+    // --- Shrinking ---
+
+    /**
+     * Makes the failure as small as it will go while still breaking the same invariant: drops
+     * ever smaller runs of frames, then clears whole inputs and single buttons.
+     */
+    private static Failure shrink(Failure failure) {
+        String invariant = failure.violation.invariant;
+        int[][] inputs = failure.inputs;
+        Violation violation = failure.violation;
+        int budget = SHRINK_BUDGET;
+
+        // Each pass can open the way for the other, so repeat both until neither helps
+        boolean changed = true;
+        while (changed && budget > 0) {
+            changed = false;
+
+            // --- Fewer frames ---
+            for (int chunk = inputs.length / 2; chunk >= 1 && budget > 0; chunk /= 2) {
+                for (int from = 0; from + chunk <= inputs.length && budget > 0; ) {
+                    int[][] candidate = new int[inputs.length - chunk][];
+                    System.arraycopy(inputs, 0, candidate, 0, from);
+                    System.arraycopy(inputs, from + chunk, candidate, from, inputs.length - from - chunk);
+                    Violation v = play(candidate, candidate.length);
+                    budget--;
+                    if (v != null && v.invariant.equals(invariant)) {
+                        inputs = copy(candidate, v.frame + 1); // Anything after the failure is noise
+                        violation = v;
+                        changed = true;
+                    } else {
+                        from += chunk;
+                    }
+                }
+            }
+
+            // --- Simpler inputs ---
+            for (int frame = 0; frame < inputs.length && budget > 0; frame++) {
+                for (int fighter = 0; fighter < DesyncCheck.Run.FIGHTERS; fighter++) {
+                    int original = inputs[frame][fighter];
+                    if (original == 0) continue;
+                    for (int candidate : simpler(original)) {
+                        inputs[frame][fighter] = candidate;
+                        Violation v = play(inputs, inputs.length);
+                        budget--;
+                        if (v != null && v.invariant.equals(invariant)) {
+                            violation = v;
+                            changed = true;
+                            break;
+                        }
+                        inputs[frame][fighter] = original;
+                    }
+                }
+            }
+            inputs = copy(inputs, violation.frame + 1);
+        }
+        return new Failure(failure.sequence, inputs, violation);
+    }
+
+    /** Nothing pressed, then the input with one button released at a time. */
+    private static int[] simpler(int mask) {
+        int[] options = new int[1 + Integer.bitCount(mask)];
+        int count = 1;
+        for (int bit = 0; bit < InputBuffer.BUTTON_COUNT; bit++) {
+            if ((mask & (1 << bit)) != 0) options[count++] = mask & ~(1 << bit);
+        }
+        return options;
+    }
+
+    // --- Report ---
+
+    private static void report(Failure found) {
+        Failure minimal = shrink(found);
+        System.out.printf("FAIL %s: %s at frame %d of sequence %d%n", found.violation.invariant,
+                found.violation.detail, found.violation.frame + 1, found.sequence);
+        System.out.printf("  Minimal reproduction, %d frames (from %d): %s%n", minimal.inputs.length,
+                found.inputs.length, minimal.violation.detail);
+        System.out.printf("    %-11s %-24s %s%n", "frames", "fighter 1", "fighter 2");
+        int from = 0;
+        for (int frame = 1; frame <= minimal.inputs.length; frame++) {
+            if (frame < minimal.inputs.length && Arrays.equals(minimal.inputs[frame], minimal.inputs[from])) continue;
+            String frames = (frame - from == 1) ? String.valueOf(from + 1) : (from + 1) + "-" + frame;
+            System.out.printf("    %-11s %-24s %s%n", frames, describe(minimal.inputs[from][0]), describe(minimal.inputs[from][1]));
+            from = frame;
+        }
+    }
+
+    private static String describe(int mask) {
+        if (mask == 0) return "-";
+        StringBuilder sb = new StringBuilder();
+        for (int bit = 0; bit < BUTTONS.length; bit++) {
+            if ((mask & (1 << bit)) == 0) continue;
+            if (sb.length() > 0) sb.append('+');
+            sb.append(BUTTONS[bit]);
+        }
+        return sb.toString();
+    }
+}
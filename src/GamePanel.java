@@ -4,10 +4,10 @@ import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import javax.imageio.ImageIO;
 import java.lang.Math;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 
 // WARNING: This file assumes Fighter.java and Spark.java exist externally.
 
@@ -21,86 +21,126 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
     private static final int GAME_FPS = 60;
     private static final int ROUND_DURATION_SECONDS = 90; // 1 minute 30 seconds
     private static final int GROUND_Y = 400; // PHYSICAL GROUND LINE (Matching Fighter.java)
-    private static final int GROUND_VISUAL_OFFSET = 5; // Moves the green block up 5px to meet sprite feet
     private static final int INITIAL_STOCKS = 3;
     private static final int ROUND_END_PAUSE_DURATION = 120; // 2 seconds pause
     private static final int MAX_SPARKS_PER_HIT = 12; // Controls spark intensity
 
-    // Game States (PAUSE = 7 added)
-    private final int START_MENU = 0, MODE_SELECT = 1, CHARACTER_SELECT = 2, FIGHT = 4, AI_FIGHT = 5, GAME_OVER = 6, PAUSE = 7;
+    // Game Modes (what the menus set up; the screen shown is the top of the scene stack)
+    private final int FIGHT = 0, AI_FIGHT = 1, TRAINING = 2;
 
     // Combat
-    private static final int REGULAR_DAMAGE = 10;
-    private static final int SUPER_DAMAGE = 50;
     private static final int FIGHT_SPLASH_DURATION = 60;
-    private static final int PUSH_BACK_AMOUNT = 2;
-
-    // Fighter Start Positions
-    private static final int P1_START_X = 200;
-    private static final int P2_START_X = 550;
-
-    // AI Variables (Integrated from AIOpponent)
-    private static final int AI_MIN_REACT_TIME = 1;
-    private static final int AI_MAX_REACT_TIME = 3;
-    private static final int AI_ATTACK_RANGE = 50;
-    private static final int AI_BLOCK_RANGE = 80;
-    private int aiReactTimer = 0;
-
-
-    // --- Stage Structure ---
-    private static class Stage {
-        String name;
-        Color topColor;
-        Color bottomColor; // Now used for mid-ground color
-
-        public Stage(String name, Color top, Color bottom) {
-            this.name = name;
-            this.topColor = top;
-            this.bottomColor = bottom;
-        }
-    }
 
-    // --- Fighter Asset Structure ---
-    private static class FighterAssets {
-        BufferedImage idleSprite;
-        BufferedImage[] runSprites;
-        BufferedImage[] attackSprites;
-        BufferedImage jumpSprite;
-        BufferedImage hurtSprite;
-        BufferedImage downSprite;
-    }
+    // Simulation Speed (F9/F10 slower/faster, F11 turbo). Timers count steps, so they scale with it.
+    private static final float[] SPEEDS = {0.25f, 0.5f, 1f, 2f, 4f};
+    private static final String[] SPEED_LABELS = {"SPEED 0.25x", "SPEED 0.5x", "", "SPEED 2x", "SPEED 4x"};
+    private static final int NORMAL_SPEED = 2;
+    private static final int TURBO_RENDER_INTERVAL = 16; // Turbo renders once per this many steps
+
+    // Render Modes (F8 cycles): straight to the screen, or into a 1x/2x virtual-size buffer upscaled once
+    private static final int[] FRAMEBUFFER_SCALES = {0, 1, 1, 2, 2};
+    private static final boolean[] FRAMEBUFFER_BILINEAR = {false, false, true, false, true};
+    private static final String[] RENDER_MODE_LABELS = {"RENDER: NATIVE", "RENDER: 800x500 NEAREST",
+            "RENDER: 800x500 BILINEAR", "RENDER: 1600x1000 NEAREST", "RENDER: 1600x1000 BILINEAR"};
+    private static final long RENDER_LABEL_NANOS = 2_000_000_000L;
+
+    // Player Profiles (initials entered before character select)
+    private static final int INITIALS_LENGTH = 3;
+    private static final int LEADERBOARD_SIZE = 5;
+
+    // Match Formats (how many fighters, and who is on which team)
+    private static final int FORMAT_DUEL = 0, FORMAT_PARTY = 1, FORMAT_TEAMS = 2;
+    private static final int PARTY_FIGHTER_COUNT = 4;
+
+    // AI Difficulty (presets loaded from assets/ai_profiles.properties)
+    private final java.util.List<AIProfile> aiProfiles = AIProfile.loadAll();
+    private int selectedProfileIndex = Math.min(1, aiProfiles.size() - 1); // Normal by default
+
 
     // --- 2. FIELDS ---
     private Timer timer;
-    private int state = START_MENU;
+
+    // Scenes: only the top of the stack updates, draws and takes input (see Scene)
+    private final Deque<Scene> scenes = new ArrayDeque<>();
+    private final Scene startMenu = new StartMenuScene();
+    private final Scene modeSelect = new ModeSelectScene();
+    private final Scene nameEntry = new NameEntryScene();
+    private final Scene characterSelect = new CharacterSelectScene();
+    private final Scene gameOver = new GameOverScene();
 
     // ASSET FIELDS
-    private final ArrayList<FighterAssets> fighterAssetSets = new ArrayList<>();
-    // NOTE: Spark class is external, assuming it exists.
-    private final ArrayList<Spark> activeSparks = new ArrayList<>();
-    private BufferedImage groundTileSprite;
+    private java.util.List<FighterSprites> fighterAssetSets;
+    // Stage, camera, fighters, sparks and HUD (shared with the headless replay renderer)
+    private final MatchView view = new MatchView(VIRTUAL_WIDTH, VIRTUAL_HEIGHT, INITIAL_STOCKS);
 
     // CHARACTER SELECT FIELDS (4 CHOICES)
     private final Color[] availableColors = {Color.BLUE, Color.RED, Color.MAGENTA, Color.YELLOW};
     private int p1SelectionIndex = 0;
     private int p2SelectionIndex = 1;
 
-    // STAGE SELECT FIELDS
-    private final Stage[] availableStages = {
+    // STAGE SELECT FIELDS (layers come from assets/stages.properties; plain gradients if it can't be read)
+    private final Stage[] availableStages = Stage.loadAll(new Stage[] {
             new Stage("Daytime City", new Color(135, 206, 235), new Color(240, 240, 240)),
             new Stage("Night Arena", new Color(0, 0, 50), new Color(40, 40, 90)),
             new Stage("Volcano Summit", new Color(150, 50, 0), new Color(70, 70, 70)),
             new Stage("Frost Peaks", new Color(150, 200, 255), new Color(200, 220, 240))
-    };
+    });
     private int selectedStageIndex = 0;
 
-    private int p1Stocks;
-    private int p2Stocks;
-
-    // NOTE: Fighter class is external, assuming it exists.
+    // MATCH FIELDS (player1/player2 are the two human slots, always match fighters 0 and 1)
+    private Match match;
     private Fighter player1, player2;
-
-    private final boolean[] keys = new boolean[600];
+    private boolean[] cpuControlled = new boolean[0];
+    private AIOpponent[] cpuBrains = new AIOpponent[0];
+    private int[] fighterColorIndices = new int[0];
+    private int matchFormat = FORMAT_DUEL;
+    private TrainingMode training; // Only set in training mode
+    private final MatchTelemetry telemetry = new MatchTelemetry();
+
+    // Player profiles: win/loss, ELO and character usage, saved across restarts
+    private final ProfileStore profiles = new ProfileStore(ProfileStore.DEFAULT_PATH);
+    private final char[][] playerInitials = {"AAA".toCharArray(), "BBB".toCharArray()};
+    private final int[] initialsCursor = new int[2];
+    private String[] fighterProfileNames = new String[0];
+    private java.util.List<PlayerProfile> leaderboard = profiles.top(LEADERBOARD_SIZE);
+    private String ratingText = ""; // Rating changes shown on the Game Over screen
+
+    // Input: every backend (keyboard, gamepads) feeds the two human players' input state
+    private final InputBindings inputBindings = InputBindings.load();
+    private final PlayerInput[] playerInputs = {new PlayerInput(), new PlayerInput()};
+    private final KeyboardBackend keyboard = new KeyboardBackend(inputBindings);
+    private final java.util.List<InputBackend> inputBackends = new ArrayList<>();
+    private boolean holdTappedKeys = false; // No step ran this tick (training freeze/slow motion), keep taps for the next one
+
+    // Live tuning: edits to the tuning file and sprite sheets land between simulation steps
+    private final TuningWatcher liveTuning = new TuningWatcher();
+    private long liveTuningVersion = 0; // Last version applied
+
+    // Simulation speed
+    private final SimulationClock clock = new SimulationClock();
+    private int speedIndex = NORMAL_SPEED;
+    private int turboSteps = 0;
+    private long turboSampleStart = 0;
+    private String turboLabel = "TURBO";
+
+    // Render mode (-Dfightgame.renderMode=0..4 picks the starting one)
+    private int renderMode = Math.max(0, Math.min(RENDER_MODE_LABELS.length - 1, Integer.getInteger("fightgame.renderMode", 0)));
+    private BufferedImage framebuffer;
+    private long renderModeShownAt = 0;
+
+    // Recording (Insert): frames copied from the offscreen buffer, encoded on a background thread
+    private static final String RECORD_FORMAT = System.getProperty("fightgame.recordFormat", FrameRecorder.Y4M);
+    private volatile FrameRecorder recorder; // Only set while recording
+    private volatile FrameRecorder finishingRecorder; // Stopped, may still be encoding queued frames
+    private boolean recorderHookAdded = false;
+
+    // Input-to-photon latency (F12, or -Dfightgame.latency=true to start with it on)
+    private final LatencyProbe latency = new LatencyProbe(Boolean.getBoolean("fightgame.latency"));
+    private final Runnable latencyPresent = () -> {
+        // Queued behind Swing's repaint, so the frame has been copied to the screen by now
+        Toolkit.getDefaultToolkit().sync();
+        latency.framePresented();
+    };
 
     private boolean showFightText = false;
     private int fightTimer = 0;
@@ -116,9 +156,8 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
     private int menuTransitionTimer = 0; // Input Gate Timer (5 frames)
 
-    // PAUSE MENU FIELDS
-    private int pauseMenuSelection = 0; // 0: Resume, 1: Main Menu, 2: Quit Game
-    private final String[] pauseMenuOptions = {"Resume", "Return to Main Menu", "Quit Game"};
+    // PAUSE MENU (the selection lives in each PauseScene)
+    static final String[] PAUSE_MENU_OPTIONS = {"Resume", "Return to Main Menu", "Quit Game"};
 
 
     // --- 3. CONSTRUCTOR & INITIALIZATION ---
@@ -129,255 +168,100 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
         setPreferredSize(new Dimension(VIRTUAL_WIDTH, VIRTUAL_HEIGHT));
         setFocusable(true);
         addKeyListener(this);
+        startInputBackends();
 
-        loadImages(); // Load all sprite assets once
+        fighterAssetSets = FighterSprites.loadAll(availableColors.length); // Load all sprite assets once
 
+        clock.setTurboBatch(TURBO_RENDER_INTERVAL);
+        switchTo(startMenu);
         timer = new Timer(1000 / GAME_FPS, this);
         timer.start();
     }
 
-    private void loadImages() {
-        final int FRAME_SIZE = Fighter.SPRITE_SIZE; // 100
-        final int RUN_FRAME_COUNT = Fighter.RUN_FRAME_COUNT; // 6
-        final int ATTACK_FRAME_COUNT = Fighter.ATTACK_FRAME_COUNT; // 6
-
-        int UNIQUE_SPRITE_SHEETS = 4;
-
-        // --- TILE ASSET LOADING (Resource Stream) ---
-        try {
-            // Loading ground_tiles.jpg using a resource stream
-            InputStream is = getClass().getResourceAsStream("/assets/ground_tiles.jpg");
-            if (is == null) throw new IOException("Resource not found: assets/ground_tiles.jpg");
-
-            BufferedImage tileSheet = ImageIO.read(is);
-
-            // Slicing 400px wide area (4 tiles) by 100px tall
-            BufferedImage originalSlice = tileSheet.getSubimage(100, 0, 400, 100);
-
-            // Resize the sliced image to 100x100 so it tiles cleanly
-            groundTileSprite = new BufferedImage(FRAME_SIZE, FRAME_SIZE, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2 = groundTileSprite.createGraphics();
-            g2.drawImage(originalSlice, 0, 0, FRAME_SIZE, FRAME_SIZE, null);
-            g2.dispose();
-
-        } catch (IOException e) {
-            System.err.println("Warning: Could not load assets/ground_tiles.jpg. Using solid color fallback. Error: " + e.getMessage());
-            // Create a temporary black fallback tile
-            groundTileSprite = new BufferedImage(FRAME_SIZE, FRAME_SIZE, BufferedImage.TYPE_INT_ARGB);
-            Graphics2D g2_fallback = groundTileSprite.createGraphics();
-            g2_fallback.setColor(new Color(50, 50, 50));
-            g2_fallback.fillRect(0, 0, FRAME_SIZE, FRAME_SIZE);
-            g2_fallback.dispose();
-        }
-        // --------------------------
-
-
-        for (int i = 0; i < availableColors.length; i++) {
-            FighterAssets assets = new FighterAssets();
-
-            if (i < UNIQUE_SPRITE_SHEETS) {
-                // --- FIX: Using Resource Stream for Sprite Sheets ---
-                String assetPath = "/assets/fighter_sheet_" + i + ".png";
-                try {
-                    InputStream is = getClass().getResourceAsStream(assetPath);
-                    if (is == null) throw new IOException("Resource not found: " + assetPath);
-
-                    BufferedImage baseSpriteSheet = ImageIO.read(is);
-
-                    if (baseSpriteSheet.getHeight() < FRAME_SIZE * 6) {
-                        System.err.println("Sprite sheet for index " + i + " is too short. Expected at least 600px tall.");
-                        throw new IOException("Sheet height is incorrect.");
-                    }
-
-                    // --- SLICING LOGIC (Using baseSpriteSheet) ---
-                    if (i == 2) {
-                        // Armored Skeleton Layout
-                        assets.idleSprite = baseSpriteSheet.getSubimage(0, 0, FRAME_SIZE, FRAME_SIZE);
-                        assets.runSprites = new BufferedImage[RUN_FRAME_COUNT];
-                        for (int j = 0; j < RUN_FRAME_COUNT; j++) {
-                            int xOffset = j * FRAME_SIZE;
-                            int yOffset = 1 * FRAME_SIZE;
-                            assets.runSprites[j] = baseSpriteSheet.getSubimage(xOffset, yOffset, FRAME_SIZE, FRAME_SIZE);
-                        }
-
-                        assets.jumpSprite = baseSpriteSheet.getSubimage(5 * FRAME_SIZE, 0, FRAME_SIZE, FRAME_SIZE);
-                        assets.hurtSprite = baseSpriteSheet.getSubimage(0, 4 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
-                        assets.downSprite = baseSpriteSheet.getSubimage(1 * FRAME_SIZE, 4 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
-
-                        assets.attackSprites = new BufferedImage[ATTACK_FRAME_COUNT];
-                        for (int j = 0; j < ATTACK_FRAME_COUNT; j++) {
-                            int xOffset = (j + 1) * FRAME_SIZE;
-                            int yOffset = 2 * FRAME_SIZE;
-                            assets.attackSprites[j] = baseSpriteSheet.getSubimage(xOffset, yOffset, FRAME_SIZE, FRAME_SIZE);
-                        }
-                    }
-                    // Default Layout (Orc/Knight, etc.)
-                    else {
-                        assets.idleSprite = baseSpriteSheet.getSubimage(0, 0, FRAME_SIZE, FRAME_SIZE);
-                        assets.runSprites = new BufferedImage[RUN_FRAME_COUNT];
-                        for (int j = 0; j < RUN_FRAME_COUNT; j++) {
-                            int xOffset = j * FRAME_SIZE;
-                            int yOffset = 1 * FRAME_SIZE;
-                            assets.runSprites[j] = baseSpriteSheet.getSubimage(xOffset, yOffset, FRAME_SIZE, FRAME_SIZE);
-                        }
-
-                        assets.jumpSprite = baseSpriteSheet.getSubimage(0, 5 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
-                        assets.hurtSprite = baseSpriteSheet.getSubimage(0, 4 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
-                        assets.downSprite = baseSpriteSheet.getSubimage(1 * FRAME_SIZE, 4 * FRAME_SIZE, FRAME_SIZE, FRAME_SIZE);
-
-                        assets.attackSprites = new BufferedImage[ATTACK_FRAME_COUNT];
-                        for (int j = 0; j < ATTACK_FRAME_COUNT; j++) {
-                            int xOffset = j * FRAME_SIZE;
-                            int yOffset = 2 * FRAME_SIZE;
-                            assets.attackSprites[j] = baseSpriteSheet.getSubimage(xOffset, yOffset, FRAME_SIZE, FRAME_SIZE);
-                        }
-                    }
-                    // --- END SLICING LOGIC ---
-
-                    fighterAssetSets.add(assets);
-
-                } catch (IOException e) {
-                    System.err.println("Error loading sprite sheet for index " + i + ": " + e.getMessage());
-
-                    // Fallback (Red box)
-                    final int FALLBACK_SIZE = FRAME_SIZE;
-                    BufferedImage fallback = new BufferedImage(FALLBACK_SIZE, FALLBACK_SIZE, BufferedImage.TYPE_INT_ARGB);
-                    Graphics2D g2_fallback = fallback.createGraphics();
-                    g2_fallback.setColor(Color.RED);
-                    g2_fallback.fillRect(0, 0, FALLBACK_SIZE, FALLBACK_SIZE);
-                    g2_fallback.dispose();
-
-                    assets.idleSprite = fallback;
-                    assets.runSprites = new BufferedImage[]{fallback, fallback, fallback, fallback, fallback, fallback};
-                    assets.attackSprites = new BufferedImage[]{fallback, fallback, fallback, fallback, fallback, fallback};
-                    assets.jumpSprite = fallback;
-                    assets.hurtSprite = fallback;
-                    assets.downSprite = fallback;
-                    fighterAssetSets.add(assets);
-                }
+    /** Starts the input backends named in the bindings file; the keyboard always drives the menus. */
+    private void startInputBackends() {
+        for (String name : inputBindings.getBackends()) {
+            InputBackend backend;
+            if (name.equals("keyboard")) {
+                backend = keyboard;
+            } else if (name.equals("evdev")) {
+                if (!System.getProperty("os.name", "").startsWith("Linux")) continue;
+                backend = new EvdevBackend(inputBindings);
             } else {
-                // FALLBACK FOR INDEXES 4, 5, 6
-                FighterAssets lastAssets = fighterAssetSets.get(UNIQUE_SPRITE_SHEETS - 1);
-
-                FighterAssets cloneAssets = new FighterAssets();
-                cloneAssets.idleSprite = lastAssets.idleSprite;
-                cloneAssets.runSprites = lastAssets.runSprites;
-                cloneAssets.attackSprites = lastAssets.attackSprites;
-                cloneAssets.jumpSprite = lastAssets.jumpSprite;
-                cloneAssets.hurtSprite = lastAssets.hurtSprite;
-                cloneAssets.downSprite = lastAssets.downSprite;
-
-                fighterAssetSets.add(cloneAssets);
+                System.err.println("Warning: Unknown input backend '" + name + "'. Skipping it.");
+                continue;
             }
+            backend.start(playerInputs);
+            inputBackends.add(backend);
         }
     }
 
-    // --- AIOpponent Logic (Integrated) ---
-    private void runAILogic(Fighter player1, Fighter player2, boolean[] keys) {
-
-        if (!player2.canAct()) {
-            keys[player2.leftKey] = keys[player2.rightKey] = keys[player2.jumpKey] = keys[player2.crouchKey] = false;
-            return;
-        }
-
-        // Reset all active movement/defense keys before making a new decision
-        keys[player2.leftKey] = keys[player2.rightKey] = keys[player2.jumpKey] = keys[player2.crouchKey] = false;
-
-        int distance = Math.abs(player1.getX() - player2.getX());
-        int directionToPlayerKey = (player1.getX() < player2.getX()) ? player2.leftKey : player2.rightKey;
-
-        // --- IMMEDIATE ATTACK CHECK (Highest Priority) ---
-        if (distance < AI_ATTACK_RANGE && player2.isAttackReady()) {
-            if (player2.getSuperMeter() >= Fighter.SUPER_ATTACK_COST) {
-                player2.superAttack();
-            } else {
-                player2.attack();
-            }
-            return;
-        }
-        // ----------------------------------------------------
-
-
-        // --- React Timer (GATES MOVEMENT AND DEFENSE) ---
-        if (aiReactTimer > 0) {
-            aiReactTimer--;
+    private void initializeFighters() {
+        if (p1SelectionIndex == p2SelectionIndex) {
+            p2SelectionIndex = (p2SelectionIndex + 1) % availableColors.length;
         }
 
-        if (aiReactTimer == 0) {
-            aiReactTimer = (int) (Math.random() * (AI_MAX_REACT_TIME - AI_MIN_REACT_TIME)) + AI_MIN_REACT_TIME;
+        int count = (matchFormat == FORMAT_DUEL) ? 2 : PARTY_FIGHTER_COUNT;
+        int[] startX = Match.startPositions(count);
+
+        Fighter[] fighters = new Fighter[count];
+        int[] teams = new int[count];
+        cpuControlled = new boolean[count];
+        cpuBrains = new AIOpponent[count];
+        fighterColorIndices = new int[count];
+
+        // CPU fighters take the characters the humans didn't pick, in menu order
+        fighterColorIndices[0] = p1SelectionIndex;
+        fighterColorIndices[1] = p2SelectionIndex;
+        int nextFree = 0;
+        for (int i = 2; i < count; i++) {
+            while (nextFree == p1SelectionIndex || nextFree == p2SelectionIndex) nextFree++;
+            fighterColorIndices[i] = nextFree % availableColors.length;
+            nextFree++;
         }
 
+        for (int i = 0; i < count; i++) {
+            Color color = availableColors[fighterColorIndices[i]];
 
-        // --- 1. DEFENSE LOGIC (High Priority) ---
-        if (player1.isAttackActive() && distance < AI_BLOCK_RANGE) {
-            boolean isFacingAttacker = player1.getDirection() != player2.getDirection();
+            // Fighters 0 and 1 take the human players' input (playerInputs); CPUs get theirs from the AI
+            fighters[i] = fighterAssetSets.get(fighterColorIndices[i]).newFighter(startX[i], GROUND_Y, color);
 
-            if (isFacingAttacker) {
-                if (Math.random() < 0.90) { // 90% chance to block
-                    keys[player2.crouchKey] = true;
-                    return;
-                }
-            }
-        }
+            fighters[i].setAnimationListener(this::onAnimationEvent);
 
-        // --- 2. MOVEMENT LOGIC (Move toward player) ---
-        else {
-            if (distance > AI_ATTACK_RANGE * 2) {
-                // If far, walk toward
-                keys[directionToPlayerKey] = true;
-            } else if (distance > AI_ATTACK_RANGE) {
-                // If just outside range, hop or walk slightly toward
-                if (Math.random() < 0.2 && player2.onGround()) {
-                    keys[player2.jumpKey] = true;
-                } else {
-                    keys[directionToPlayerKey] = true;
-                }
-            } else {
-                // If too close (overlapping): try to jump away
-                keys[directionToPlayerKey == player2.leftKey ? player2.rightKey : player2.leftKey] = true; // Walk away
+            cpuControlled[i] = (i == 1) ? gameStateMode == AI_FIGHT : i >= 2; // The training dummy is driven by TrainingMode
+            if (cpuControlled[i]) {
+                cpuBrains[i] = new AIOpponent(aiProfiles.get(selectedProfileIndex), System.nanoTime() + i);
             }
+            teams[i] = (matchFormat == FORMAT_TEAMS) ? i % 2 : i; // 2v2: P1 + CPU 3 vs P2 + CPU 4
         }
-    }
-    // --- END AIOpponent Logic ---
-
 
-    private void initializeFighters() {
-        if (p1SelectionIndex == p2SelectionIndex) {
-            p2SelectionIndex = (p2SelectionIndex + 1) % availableColors.length;
+        // Humans play under their initials; CPUs share one profile per difficulty (unrated when it plays both sides)
+        fighterProfileNames = new String[count];
+        for (int i = 0; i < count; i++) {
+            fighterProfileNames[i] = cpuControlled[i] ? "CPU " + aiProfiles.get(selectedProfileIndex).name : initialsOf(i);
         }
 
-        p1Stocks = INITIAL_STOCKS;
-        p2Stocks = INITIAL_STOCKS;
-
-        FighterAssets assets1 = fighterAssetSets.get(p1SelectionIndex);
-        FighterAssets assets2 = fighterAssetSets.get(p2SelectionIndex);
-
-        // Player 1 (Keyset 1)
-        player1 = new Fighter(
-                P1_START_X, GROUND_Y, availableColors[p1SelectionIndex],
-                KeyEvent.VK_A, KeyEvent.VK_D, KeyEvent.VK_W,
-                KeyEvent.VK_F, KeyEvent.VK_G,
-                KeyEvent.VK_S,
-                KeyEvent.VK_E, KeyEvent.VK_R,
-                assets1.idleSprite, assets1.runSprites, assets1.attackSprites,
-                assets1.jumpSprite, assets1.hurtSprite, assets1.downSprite
-        );
-        // Player 2 (Keyset 2)
-        player2 = new Fighter(
-                P2_START_X, GROUND_Y, availableColors[p2SelectionIndex],
-                KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT, KeyEvent.VK_UP,
-                KeyEvent.VK_L, KeyEvent.VK_K,
-                KeyEvent.VK_DOWN,
-                KeyEvent.VK_I, KeyEvent.VK_O,
-                assets2.idleSprite, assets2.runSprites, assets2.attackSprites,
-                assets2.jumpSprite, assets2.hurtSprite, assets2.downSprite
-        );
-
-        // Clear P2 keys if in AI mode
-        if (gameStateMode == AI_FIGHT) {
-            keys[player2.leftKey] = keys[player2.rightKey] = keys[player2.jumpKey] = false;
-            keys[player2.attackKey] = keys[player2.superAttackKey] = keys[player2.crouchKey] = false;
-            keys[player2.dashFwdKey] = keys[player2.dashBackKey] = false;
+        match = new Match(fighters, teams, INITIAL_STOCKS);
+        match.setTuning(liveTuning.current());
+
+        // Stages wider than the screen scroll; fighters may spread at most one screen apart
+        Stage stage = availableStages[selectedStageIndex];
+        match.setWorld(stage.worldWidth, VIRTUAL_WIDTH - Fighter.SPRITE_SIZE);
+
+        Color[] hudColors = new Color[count];
+        for (int i = 0; i < count; i++) hudColors[i] = availableColors[fighterColorIndices[i]];
+        view.begin(match, stage, stage.worldWidth, hudColors, gameStateMode != TRAINING);
+        player1 = fighters[0];
+        player2 = fighters[1];
+
+        training = null;
+        if (gameStateMode == TRAINING) {
+            AIOpponent dummyBrain = new AIOpponent(aiProfiles.get(selectedProfileIndex), System.nanoTime());
+            training = new TrainingMode(match, dummyBrain, GROUND_Y);
+        } else {
+            telemetry.endMatch(-1); // Previous match left from the pause menu
+            match.setHitListener(telemetry);
+            telemetry.beginMatch(match);
         }
 
         // Reset the round timer for the start of the match
@@ -385,205 +269,187 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
     }
 
     private void resetGame() {
-        p1Stocks = INITIAL_STOCKS;
-        p2Stocks = INITIAL_STOCKS;
-        state = MODE_SELECT;
+        switchTo(modeSelect);
         winnerText = "";
     }
 
-    // --- 4. GAME LOOP (actionPerformed) ---
-
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        // --- Decrement Menu Input Gate Timer ---
-        if (menuTransitionTimer > 0) {
-            menuTransitionTimer--;
-        }
-        // ----------------------------------------
+    // --- SCENE STACK ---
 
-        // If paused, just repaint and stop processing game logic
-        if (state == PAUSE) {
-            repaint();
-            return;
-        }
+    /** The live scene: the only one that updates, draws and takes input. */
+    private Scene scene() {
+        return scenes.peek();
+    }
 
-        if (state == FIGHT || state == AI_FIGHT) {
+    /** Drops every scene, ending any match left on the stack, and shows {@code next}. */
+    private void switchTo(Scene next) {
+        scenes.clear();
+        scenes.push(next);
+    }
 
-            // --- PAUSE/ROUND RESET LOGIC ---
-            if (roundEndTimer > 0) {
-                roundEndTimer--;
-                if (roundEndTimer <= 0) {
-                    player1.resetHealth();
-                    player2.resetHealth();
+    /** Suspends the live scene under {@code overlay} until {@link #closeScene()}. */
+    private void pushScene(Scene overlay) {
+        scenes.push(overlay);
+    }
 
-                    // Reset positions for start of round (Recalculated)
-                    player1.setX(P1_START_X);
-                    player1.setY(GROUND_Y - Fighter.SPRITE_SIZE);
-                    player2.setX(P2_START_X);
-                    player2.setY(GROUND_Y - Fighter.SPRITE_SIZE);
+    /** Closes the live scene; the one underneath carries on from where it was suspended. */
+    private void closeScene() {
+        scenes.pop();
+    }
 
-                    roundEndMessage = "";
-                    showFightText = true;
-                    fightTimer = FIGHT_SPLASH_DURATION;
-                    roundTimeRemaining = ROUND_DURATION_SECONDS * GAME_FPS;
-                }
-                repaint();
-                return;
-            }
+    /** True if the selected mode puts at least one CPU fighter in the match. */
+    private boolean hasCpuFighters() {
+        return gameStateMode == AI_FIGHT || gameStateMode == TRAINING || matchFormat != FORMAT_DUEL;
+    }
 
-            // --- MAIN GAME TIMER ---
-            if (roundTimeRemaining > 0 && roundEndTimer == 0) {
-                roundTimeRemaining--;
-            }
+    /** "Team N" in 2v2, otherwise "Player N" (teams are player indices in duels and free-for-all). */
+    private String teamLabel(int team) {
+        return (matchFormat == FORMAT_TEAMS ? "Team " : "Player ") + (team + 1);
+    }
 
-            // --- UPDATE SPARKS (Placeholder) ---
-            /*
-            for (int i = activeSparks.size() - 1; i >= 0; i--) {
-                Spark s = activeSparks.get(i);
-                s.update();
-                if (!s.isAlive()) {
-                    activeSparks.remove(i);
-                }
-            }
-            */
-            // -------------------------
+    // --- 4. GAME LOOP (actionPerformed) ---
 
-            // --- CHECK FOR TIME OVER ---
-            if (roundTimeRemaining <= 0) {
-                if (player1.getHealth() != player2.getHealth()) {
-                    if (player1.getHealth() > player2.getHealth()) {
-                        roundEndMessage = "Player 1 Wins Round (Time)!";
-                        p2Stocks--;
-                    } else {
-                        roundEndMessage = "Player 2 Wins Round (Time)!";
-                        p1Stocks--;
-                    }
-                } else {
-                    roundEndMessage = "Time Over - Draw!";
-                }
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        // Menus always tick once; during a match the clock decides how many steps fit in this tick
+        boolean simulating = isSimulating();
+        int steps = simulating ? clock.stepsThisTick() : 1;
+
+        // Turbo ticks back to back instead of waiting for the next 60 Hz slot
+        int delay = (simulating && clock.isTurbo()) ? 0 : 1000 / GAME_FPS;
+        if (timer.getDelay() != delay) timer.setDelay(delay);
+
+        for (int s = 0; s < steps; s++) {
+            updateGame();
+            if (!holdTappedKeys) releaseTappedKeys();
+            if (!isSimulating()) break; // Match ended or was left: don't fast-forward the menus
+        }
+        // No step this tick (slow motion): taps stay pending for the next step that runs
 
-                if (p1Stocks <= 0 || p2Stocks <= 0) {
-                    winnerText = (p1Stocks <= 0) ? "Player 2 Wins!" : (p2Stocks <= 0) ? "Player 1 Wins!" : "DRAW!";
-                    state = GAME_OVER;
-                }
-                roundEndTimer = ROUND_END_PAUSE_DURATION;
-            }
-            // -------------------------
+        if (clock.isTurbo()) sampleTurboRate(steps);
+        repaint();
+        if (latency.isEnabled()) SwingUtilities.invokeLater(latencyPresent);
+    }
 
+    private boolean isSimulating() {
+        return scene().isSimulating();
+    }
 
-            // --- AI LOGIC FOR PLAYER 2 ---
-            if (state == AI_FIGHT && roundEndTimer == 0) {
-                runAILogic(player1, player2, keys);
-            }
-            // -----------------------------
+    /** Turbo's steps-per-second readout, rebuilt once a second. */
+    private void sampleTurboRate(int steps) {
+        turboSteps += steps;
+        long now = System.nanoTime();
+        if (turboSampleStart == 0) {
+            turboSampleStart = now;
+        } else if (now - turboSampleStart >= 1_000_000_000L) {
+            turboLabel = "TURBO " + (turboSteps * 1_000_000_000L / (now - turboSampleStart)) + " steps/s";
+            turboSteps = 0;
+            turboSampleStart = now;
+        }
+    }
 
-            // Update movement
-            player1.update(keys);
-            player2.update(keys);
-
-            // --- DIRECTIONAL FACING / AUTO-TURN LOGIC ---
-            if (player1.getX() < player2.getX()) {
-                player1.setDirection(1);
-                player2.setDirection(-1);
-            } else if (player1.getX() > player2.getX()) {
-                player1.setDirection(-1);
-                player2.setDirection(1);
-            }
+    /** F9/F10 slower/faster, F11 turbo on/off. Returns true if the key was a speed key. */
+    private boolean handleSpeedKey(int keyCode) {
+        if (keyCode == KeyEvent.VK_F9 || keyCode == KeyEvent.VK_F10) {
+            speedIndex = Math.max(0, Math.min(SPEEDS.length - 1, speedIndex + (keyCode == KeyEvent.VK_F9 ? -1 : 1)));
+            clock.setRate(SPEEDS[speedIndex]);
+            return true;
+        } else if (keyCode == KeyEvent.VK_F11) {
+            clock.setTurbo(!clock.isTurbo());
+            turboSteps = 0;
+            turboSampleStart = 0;
+            turboLabel = "TURBO";
+            return true;
+        }
+        return false;
+    }
 
-            // --- FIGHTER-TO-FIGHTER COLLISION ---
-            Rectangle r1 = player1.getRect();
-            Rectangle r2 = player2.getRect();
+    /** Swaps in the latest tuning snapshot and any reloaded sprite sheets; runs only between steps. */
+    private void applyLiveTuning() {
+        liveTuningVersion = liveTuning.getVersion();
+        if (match != null) match.setTuning(liveTuning.current());
 
-            if (r1.intersects(r2)) {
-                if (player1.getX() < player2.getX()) {
-                    player1.setX(player1.getX() - PUSH_BACK_AMOUNT);
-                    player2.setX(player2.getX() + PUSH_BACK_AMOUNT);
-                } else {
-                    player1.setX(player1.getX() + PUSH_BACK_AMOUNT);
-                    player2.setX(player2.getX() - PUSH_BACK_AMOUNT);
-                }
+        for (int sheet = 0; sheet < FighterSprites.UNIQUE_SPRITE_SHEETS; sheet++) {
+            FighterSprites sprites = liveTuning.takeSprites(sheet);
+            if (sprites == null) continue;
+            for (int i = 0; i < fighterAssetSets.size(); i++) {
+                if (FighterSprites.sheetOf(i) == sheet) fighterAssetSets.set(i, sprites); // Menus and new matches
             }
-
-            // --- ATTACK COLLISION LOGIC ---
-
-            // P1 Attack Check
-            if (player1.canHit()) {
-                int damage = keys[player1.superAttackKey] ? SUPER_DAMAGE : REGULAR_DAMAGE;
-                boolean isSuper = damage == SUPER_DAMAGE;
-
-                if (player1.getAttackRect().intersects(player2.getRect()) && !player2.isKnockedDown()) {
-                    player2.takeDamage(damage, player1.getDirection());
-                    player1.registerHit(isSuper);
-                    player1.gainMeter(isSuper ? Fighter.METER_GAIN_HIT * 2 : Fighter.METER_GAIN_HIT);
-
-                    // Generate sparks/sound based on result (Placeholder)
-                    // if (player2.isBlocking()) { generateSparks(...); } else { generateSparks(...); }
-                }
+            if (match == null) continue;
+            for (int i = 0; i < match.getFighterCount(); i++) {
+                if (FighterSprites.sheetOf(fighterColorIndices[i]) == sheet) match.getFighter(i).setSprites(sprites);
             }
+        }
+    }
 
-            // P2 Attack Check
-            if (player2.canHit()) {
-                int damage = keys[player2.superAttackKey] ? SUPER_DAMAGE : REGULAR_DAMAGE;
-                boolean isSuper = damage == SUPER_DAMAGE;
+    /** One tick of game logic: the live scene's update (a menu tick or one match step). */
+    private void updateGame() {
+        holdTappedKeys = false;
+        if (liveTuning.getVersion() != liveTuningVersion) applyLiveTuning();
 
-                if (player2.getAttackRect().intersects(player1.getRect()) && !player1.isKnockedDown()) {
-                    player1.takeDamage(damage, player2.getDirection());
-                    player2.registerHit(isSuper);
-                    player2.gainMeter(isSuper ? Fighter.METER_GAIN_HIT * 2 : Fighter.METER_GAIN_HIT);
+        // --- Decrement Menu Input Gate Timer ---
+        if (menuTransitionTimer > 0) {
+            menuTransitionTimer--;
+        }
+        // ----------------------------------------
 
-                    // Generate sparks/sound based on result (Placeholder)
-                    // if (player1.isBlocking()) { generateSparks(...); } else { generateSparks(...); }
-                }
-            }
+        // Scenes under the top one are suspended: a paused match doesn't step
+        scene().update();
+    }
 
-            // --- CHECK FOR HEALTH/STOCK LOSS (ROUND/MATCH END) ---
+    /** Match over: declares the winner, closes the telemetry stream and updates every fighter's profile. */
+    private void finishMatch(int winner) {
+        if (scene() == gameOver) return; // Already recorded; a match ends once
 
-            boolean stockLost = false;
-            String finalWinner = null;
+        winnerText = (winner < 0) ? "DRAW!" : teamLabel(winner) + " Wins!";
+        switchTo(gameOver);
+        telemetry.endMatch(winner);
 
-            if (player1.getHealth() <= 0) {
-                p1Stocks--;
-                stockLost = true;
-                if (p1Stocks <= 0) {
-                    finalWinner = "Player 2 Wins!";
-                } else {
-                    roundEndMessage = "Player 2 Wins Round!";
-                }
-            }
+        int count = match.getFighterCount();
+        int[] before = new int[count];
+        int[] teams = new int[count];
+        for (int i = 0; i < count; i++) {
+            before[i] = profiles.get(fighterProfileNames[i]).rating;
+            teams[i] = match.getTeam(i);
+        }
+        profiles.recordMatch(fighterProfileNames, teams, fighterColorIndices, winner);
+        leaderboard = profiles.top(LEADERBOARD_SIZE);
 
-            if (player2.getHealth() <= 0) {
-                p2Stocks--;
-                stockLost = true;
-                if (p2Stocks <= 0) {
-                    finalWinner = "Player 1 Wins!";
-                } else {
-                    roundEndMessage = "Player 1 Wins Round!";
-                }
-            }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (cpuControlled[i]) continue;
+            int rating = profiles.get(fighterProfileNames[i]).rating;
+            int change = rating - before[i];
+            if (text.length() > 0) text.append("     ");
+            text.append(fighterProfileNames[i]).append("  ").append(rating)
+                    .append(change >= 0 ? " (+" : " (").append(change).append(')');
+        }
+        ratingText = text.toString();
+    }
 
-            // 1. CHECK FOR GAME OVER (Match End)
-            if (finalWinner != null) {
-                winnerText = finalWinner;
-                state = GAME_OVER;
-            }
+    private String initialsOf(int player) {
+        return new String(playerInitials[player]);
+    }
 
-            // 2. START NEW ROUND (If match is NOT over, but a stock was lost)
-            if (stockLost && state != GAME_OVER) {
-                roundEndTimer = ROUND_END_PAUSE_DURATION;
-            }
+    /** True if Player 2 is a human in the selected mode. */
+    private boolean hasSecondPlayer() {
+        return gameStateMode == FIGHT;
+    }
 
-            if (showFightText) {
-                fightTimer--;
-                if (fightTimer <= 0) showFightText = false;
-            }
-        }
-        repaint();
+    /**
+     * Applies releases that arrived before the simulation saw the press.
+     * A tap shorter than one tick is still held for one full step, so it lands in the input buffer.
+     */
+    private void releaseTappedKeys() {
+        for (PlayerInput input : playerInputs) input.endStep();
     }
 
-    // NEW: Helper method to generate a burst of sparks
-    private void generateSparks(int centerX, int centerY, int count) {
-        for (int i = 0; i < count; i++) {
-            // activeSparks.add(new Spark(centerX, centerY)); // Placeholder
+    /** Animation events from the fighters' clips: sparks at the striking hand, one-shot sounds. */
+    private void onAnimationEvent(Fighter fighter, AnimationClip.Event event) {
+        if (event.type == AnimationClip.Event.SPARK) {
+            view.sparkAt(fighter, event.sparkCount);
+        } else if (event.type == AnimationClip.Event.SOUND && !clock.isTurbo()) {
+            // Turbo runs hundreds of steps a second; one sound thread per hit would pile up
+            SoundPlayer.playSound("assets/sounds/" + event.soundFile);
         }
     }
 
@@ -598,146 +464,132 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
         float scaleX = (float) getWidth() / VIRTUAL_WIDTH;
         float scaleY = (float) getHeight() / VIRTUAL_HEIGHT;
         float scaleFactor = Math.min(scaleX, scaleY);
+        int bufferScale = FRAMEBUFFER_SCALES[renderMode];
+        boolean bilinear = FRAMEBUFFER_BILINEAR[renderMode];
+        if (recorder != null && bufferScale == 0) {
+            // Recording needs a buffer to copy from; native mode records through a 1x one
+            bufferScale = 1;
+            bilinear = true;
+        }
+        if (bufferScale > 0 && !bilinear && scaleFactor >= bufferScale) {
+            // Nearest-neighbour only stays crisp at whole multiples of the buffer's pixels
+            scaleFactor = (float) Math.floor(scaleFactor / bufferScale) * bufferScale;
+        }
         int scaledWidth = (int) (VIRTUAL_WIDTH * scaleFactor);
         int scaledHeight = (int) (VIRTUAL_HEIGHT * scaleFactor);
         int offsetX = (getWidth() - scaledWidth) / 2;
         int offsetY = (getHeight() - scaledHeight) / 2;
-
-        g2.translate(offsetX, offsetY);
-        g2.scale(scaleFactor, scaleFactor);
         // --- SCALING END ---
 
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // --- BACKGROUND DRAWING ---
-        Color top = (state >= FIGHT) ? availableStages[selectedStageIndex].topColor : new Color(255, 80, 0);
-        Color bottom = (state >= FIGHT) ? availableStages[selectedStageIndex].bottomColor : new Color(255, 200, 0);
-
-        GradientPaint gp = new GradientPaint(0, 0, top, 0, VIRTUAL_HEIGHT, bottom);
-        g2.setPaint(gp);
-        g2.fillRect(0, 0, VIRTUAL_WIDTH, VIRTUAL_HEIGHT);
-
-        // Ground
-        if (state >= FIGHT) {
-            final int TILE_SIZE = Fighter.SPRITE_SIZE;
-
-            if (groundTileSprite != null) {
-                int startY = GROUND_Y - GROUND_VISUAL_OFFSET;
-
-                for (int x = 0; x < VIRTUAL_WIDTH; x += TILE_SIZE) {
-                    for (int y = startY; y < VIRTUAL_HEIGHT; y += TILE_SIZE) {
-                        g2.drawImage(groundTileSprite, x, y, TILE_SIZE, TILE_SIZE, null);
-                    }
-                }
-            } else {
-                g.setColor(Color.GREEN.darker());
-                g.fillRect(0, GROUND_Y - GROUND_VISUAL_OFFSET, VIRTUAL_WIDTH, VIRTUAL_HEIGHT - GROUND_Y + GROUND_VISUAL_OFFSET);
-            }
+        if (bufferScale == 0) {
+            g2.translate(offsetX, offsetY);
+            g2.scale(scaleFactor, scaleFactor);
+            drawScene(g2);
+            // Restore transformations before returning
+            g2.scale(1.0 / scaleFactor, 1.0 / scaleFactor);
+            g2.translate(-offsetX, -offsetY);
+            latency.frameRendered();
+            return;
         }
-        // --------------------------
-
-        g.setColor(Color.WHITE);
-        FontMetrics fm = g2.getFontMetrics();
-
-        if (state == START_MENU) {
-            g.setFont(new Font("Arial", Font.BOLD, 64));
-            fm = g2.getFontMetrics();
-            drawCenteredString(g, "JAVA FIGHTER", 150, fm, Color.WHITE);
-
-            g.setFont(new Font("Arial", Font.PLAIN, 24));
-            fm = g2.getFontMetrics();
-            drawCenteredString(g, "Press ENTER to Begin", 350, fm, Color.WHITE);
-            drawCenteredString(g, "Press ESC to Quit", 400, fm, Color.WHITE);
-
-        } else if (state == MODE_SELECT) {
-            g.setFont(new Font("Arial", Font.BOLD, 48));
-            fm = g2.getFontMetrics();
-            drawCenteredString(g, "SELECT MODE", 150, fm, Color.WHITE);
 
-            g.setFont(new Font("Arial", Font.PLAIN, 30));
-            fm = g2.getFontMetrics();
-            drawCenteredString(g, "1. LOCAL VERSUS (2 Players)", 250, fm, Color.WHITE);
-            drawCenteredString(g, "2. SINGLE PLAYER (VS AI)", 300, fm, Color.WHITE);
-
-        } else if (state == CHARACTER_SELECT) {
-            g.setFont(new Font("Arial", Font.BOLD, 48));
-            fm = g2.getFontMetrics();
-            drawCenteredString(g, "SELECT YOUR FIGHTER", 100, fm, Color.WHITE);
-
-            drawCharacterSelection(g2, 150, 200, p1SelectionIndex, "PLAYER 1 (A/D)", p2SelectionIndex);
-            drawCharacterSelection(g2, VIRTUAL_WIDTH - 350, 200, p2SelectionIndex, gameStateMode == AI_FIGHT ? "AI OPPONENT" : "PLAYER 2 (Arrows)", p1SelectionIndex);
-
-            // Consolidated Stage Select Display
-            g.setFont(new Font("Arial", Font.BOLD, 24));
-            fm = g2.getFontMetrics();
-            drawCenteredString(g, "STAGE: " + availableStages[selectedStageIndex].name, 450, fm, Color.WHITE);
-
-            g.setFont(new Font("Arial", Font.PLAIN, 18));
-            fm = g2.getFontMetrics();
-            drawCenteredString(g, "Use Player 2's Arrows to Change Stage. Press ENTER to Fight!", 480, fm, Color.WHITE);
-
-
-        } else if (state == FIGHT || state == AI_FIGHT || state == PAUSE) {
-            // Draw Fighters
-            player1.draw(g);
-            player2.draw(g);
-
-            // Draw Sparks
-            // for (Spark s : activeSparks) { s.draw(g); }
-
-            // Draw HUD
-            drawHealthBar(g, 50, 50, player1.getHealth(), availableColors[p1SelectionIndex]);
-            drawHealthBar(g, VIRTUAL_WIDTH - 150, 50, player2.getHealth(), availableColors[p2SelectionIndex]);
+        // Fill cost is fixed by the buffer size; the screen only pays for one scaled blit
+        BufferedImage buffer = getFramebuffer(bufferScale);
+        Graphics2D bg = buffer.createGraphics();
+        bg.scale(bufferScale, bufferScale);
+        drawScene(bg);
+        bg.dispose();
+        if (recorder != null) recorder.capture(buffer);
+
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, bilinear
+                ? RenderingHints.VALUE_INTERPOLATION_BILINEAR : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2.drawImage(buffer, offsetX, offsetY, scaledWidth, scaledHeight, null);
+        if (recorder != null) drawRecordingIndicator(g2, offsetX, offsetY);
+        latency.frameRendered();
+    }
 
-            drawSuperMeter(g, 50, 70, player1.getSuperMeter(), availableColors[p1SelectionIndex]);
-            drawSuperMeter(g, VIRTUAL_WIDTH - 150, 70, player2.getSuperMeter(), availableColors[p2SelectionIndex]);
+    /** Recording dot and counters, drawn on the screen after the capture so they stay out of the video. */
+    private void drawRecordingIndicator(Graphics2D g2, int x, int y) {
+        if (!recorder.isRecording()) {
+            stopRecording(); // The encoder hit a write error
+            return;
+        }
+        g2.setColor(Color.RED);
+        g2.fillOval(x + 10, y + 10, 12, 12);
+        g2.setFont(new Font("Arial", Font.BOLD, 14));
+        long dropped = recorder.getDropped();
+        g2.drawString("REC " + recorder.getCaptured() + (dropped > 0 ? "  (" + dropped + " dropped)" : ""), x + 28, y + 21);
+    }
 
-            drawStocks(g, 50, 95, p1Stocks, availableColors[p1SelectionIndex]);
-            drawStocks(g, VIRTUAL_WIDTH - 150, 95, p2Stocks, availableColors[p2SelectionIndex]);
+    /** Insert: starts recording at the current buffer size, or stops and reports what was written. */
+    private void toggleRecording() {
+        if (recorder != null) {
+            stopRecording();
+            return;
+        }
+        int scale = Math.max(1, FRAMEBUFFER_SCALES[renderMode]);
+        try {
+            recorder = new FrameRecorder(RECORD_FORMAT, VIRTUAL_WIDTH * scale, VIRTUAL_HEIGHT * scale, GAME_FPS);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Warning: Could not start recording. Error: " + e.getMessage());
+            return;
+        }
+        if (!recorderHookAdded) {
+            // The menus quit through System.exit; let the encoder finish the queued frames first
+            recorderHookAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                FrameRecorder active = recorder;
+                if (active != null) active.stopAndWait(2000);
+                FrameRecorder finishing = finishingRecorder;
+                if (finishing != null) finishing.stopAndWait(2000);
+            }));
+        }
+    }
 
-            // --- DRAW TIMER ---
-            g.setFont(new Font("Arial", Font.BOLD, 48));
-            fm = g2.getFontMetrics();
-            drawTimer(g, fm);
-            // ------------------
+    private void stopRecording() {
+        FrameRecorder finished = recorder;
+        recorder = null;
+        finished.stop();
+        finishingRecorder = finished;
+        System.out.println("Recording saved to " + finished.getOutput().getPath() +  " (" + finished.getCaptured()
+                + " frames, " + finished.getDropped() + " dropped)");
+    }
 
+    /** Offscreen buffer in the screen's pixel format, reallocated only when the scale changes. */
+    private BufferedImage getFramebuffer(int bufferScale) {
+        int width = VIRTUAL_WIDTH * bufferScale;
+        int height = VIRTUAL_HEIGHT * bufferScale;
+        if (framebuffer == null || framebuffer.getWidth() != width || framebuffer.getHeight() != height) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            framebuffer = (gc != null)
+                    ? gc.createCompatibleImage(width, height, Transparency.OPAQUE)
+                    : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        return framebuffer;
+    }
 
-            // Draw ROUND END Message
-            if (roundEndTimer > 0) {
-                g.setFont(new Font("Arial", Font.BOLD, 56));
-                fm = g2.getFontMetrics();
-                drawCenteredString(g, roundEndMessage, 200, fm, Color.RED);
-            }
-            // Draw "FIGHT!" splash
-            else if (showFightText) {
-                g.setFont(new Font("Arial", Font.BOLD, 72));
-                fm = g2.getFontMetrics();
-                drawCenteredString(g, "FIGHT!", 200, fm, Color.YELLOW);
-            }
+    /** Draws the whole frame in virtual coordinates; {@code g2} is already scaled to its target. */
+    private void drawScene(Graphics2D g2) {
+        Graphics g = g2;
+        FontMetrics fm;
 
-            // --- DRAW PAUSE MENU ---
-            if (state == PAUSE) {
-                drawPauseMenu(g2, fm);
-            }
-            // -----------------------
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        scene().render(g2);
 
-        } else if (state == GAME_OVER) {
-            g.setFont(new Font("Arial", Font.BOLD, 48));
+        // Render mode name, briefly after switching
+        if (renderModeShownAt != 0 && System.nanoTime() - renderModeShownAt < RENDER_LABEL_NANOS) {
+            g.setFont(new Font("Arial", Font.BOLD, 14));
             fm = g2.getFontMetrics();
-            drawCenteredString(g, winnerText, 200, fm, Color.RED);
-            g.setFont(new Font("Arial", Font.PLAIN, 24));
-            fm = g2.getFontMetrics();
-            drawCenteredString(g, "Press R to Restart", 300, fm, Color.WHITE);
-            drawCenteredString(g, "Press ESC to Quit", 340, fm, Color.WHITE);
+            g.setColor(Color.BLACK);
+            g.drawString(RENDER_MODE_LABELS[renderMode], 12, VIRTUAL_HEIGHT - 10);
+            g.setColor(Color.WHITE);
+            g.drawString(RENDER_MODE_LABELS[renderMode], 10, VIRTUAL_HEIGHT - 12);
         }
 
-        // Restore transformations before returning
-        g2.scale(1.0 / scaleFactor, 1.0 / scaleFactor);
-        g2.translate(-offsetX, -offsetY);
+        latency.draw(g2);
     }
 
     // Helper method to draw a centered string with simulated shadow
-    private void drawCenteredString(Graphics g, String text, int y, FontMetrics fm, Color color) {
+    private static void drawCenteredString(Graphics g, String text, int y, FontMetrics fm, Color color) {
         int x_pos = (VIRTUAL_WIDTH - fm.stringWidth(text)) / 2;
         // Draw Shadow
         g.setColor(Color.BLACK);
@@ -747,24 +599,66 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
         g.drawString(text, x_pos, y);
     }
 
-    private void drawTimer(Graphics g, FontMetrics fm) {
-        int seconds = roundTimeRemaining / GAME_FPS;
+    /** Top rated players, one row each, starting at {@code y}. */
+    private void drawLeaderboard(Graphics2D g2, int y) {
+        if (leaderboard.isEmpty()) return;
+        g2.setFont(new Font("Arial", Font.BOLD, 16));
+        FontMetrics fm = g2.getFontMetrics();
+        drawCenteredString(g2, "TOP PLAYERS", y, fm, Color.YELLOW);
+
+        g2.setFont(new Font("Arial", Font.PLAIN, 16));
+        fm = g2.getFontMetrics();
+        for (int i = 0; i < leaderboard.size(); i++) {
+            PlayerProfile p = leaderboard.get(i);
+            String row = (i + 1) + ". " + p.name + "   " + p.rating + "   " + p.wins + "W " + p.losses + "L";
+            drawCenteredString(g2, row, y + 22 + i * 20, fm, Color.WHITE);
+        }
+    }
 
-        // Timer display string (M:SS format)
-        String timeString = String.format("%d:%02d", seconds / 60, seconds % 60);
+    /** Arcade-style initials with the cursor letter underlined, plus the player's current record. */
+    private void drawInitialsEntry(Graphics2D g2, int x, int player, String label) {
+        g2.setColor(Color.WHITE);
+        g2.setFont(new Font("Arial", Font.BOLD, 24));
+        g2.drawString(label, x, 170);
 
-        // Color changes near time over
-        Color timeColor = Color.WHITE;
-        if (seconds <= 10) {
-            timeColor = Color.RED;
-        } else if (seconds <= 30) {
-            timeColor = Color.YELLOW;
+        g2.setFont(new Font("Arial", Font.BOLD, 64));
+        for (int i = 0; i < INITIALS_LENGTH; i++) {
+            int letterX = x + i * 60;
+            g2.setColor(i == initialsCursor[player] ? Color.YELLOW : Color.WHITE);
+            g2.drawString(String.valueOf(playerInitials[player][i]), letterX, 260);
+            if (i == initialsCursor[player]) g2.fillRect(letterX, 270, 44, 5);
         }
 
-        int x_pos = (VIRTUAL_WIDTH - fm.stringWidth(timeString)) / 2;
-        int y_pos = 65; // Position in the center top of the screen
+        PlayerProfile p = profiles.get(initialsOf(player));
+        g2.setColor(Color.LIGHT_GRAY);
+        g2.setFont(new Font("Arial", Font.PLAIN, 18));
+        if (p.matches() == 0) {
+            g2.drawString("New player", x, 310);
+        } else {
+            g2.drawString("Rating " + p.rating + "   " + p.wins + "W " + p.losses + "L " + p.draws + "D", x, 310);
+            int favorite = p.favoriteCharacter();
+            if (favorite >= 0 && favorite < availableColors.length) {
+                g2.drawString("Favorite:", x, 335);
+                g2.setColor(availableColors[favorite]);
+                g2.fillRect(x + 80, 321, 16, 16);
+            }
+        }
+    }
 
-        drawCenteredString(g, timeString, y_pos, fm, timeColor);
+    /** Game over: per-fighter stats from the telemetry drain thread, once it has caught up with this match. */
+    private void drawMatchStats(Graphics g, FontMetrics fm) {
+        MatchTelemetry.Summary summary = telemetry.getSummary();
+        if (summary == null || summary.matchId != telemetry.getMatchId() || !summary.matchOver) return;
+
+        g.setFont(new Font("Arial", Font.PLAIN, 16));
+        fm = g.getFontMetrics();
+        for (int i = 0; i < summary.fighters.length; i++) {
+            MatchTelemetry.FighterStats stats = summary.fighters[i];
+            String text = String.format("P%d   Damage/Round %.0f   Hits %d   Block Rate %.0f%%   Supers %d/%d landed",
+                    i + 1, stats.damagePerRound, stats.hitsLanded, stats.blockRate() * 100,
+                    stats.supersLanded, stats.supersUsed);
+            drawCenteredString(g, text, 400 + i * 22, fm, availableColors[fighterColorIndices[i]]);
+        }
     }
 
     private void drawCharacterSelection(Graphics2D g2, int x, int y, int selectionIndex, String label, int opponentIndex) {
@@ -810,86 +704,14 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
         }
     }
 
-    private void drawStocks(Graphics g, int x, int y, int stocks, Color color) {
-        final int STOCK_SIZE = 15;
-        final int GAP = 5;
-
-        g.setFont(new Font("Arial", Font.BOLD, 12));
-        g.setColor(Color.WHITE);
-        g.drawString("STOCKS:", x, y - 5);
-
-        for (int i = 0; i < INITIAL_STOCKS; i++) {
-            int stockX = x + 50 + i * (STOCK_SIZE + GAP);
-
-            if (i < stocks) {
-                g.setColor(color);
-            } else {
-                g.setColor(Color.DARK_GRAY);
-            }
-            g.fillOval(stockX, y - STOCK_SIZE + 2, STOCK_SIZE, STOCK_SIZE);
-            g.setColor(Color.BLACK);
-            g.drawOval(stockX, y - STOCK_SIZE + 2, STOCK_SIZE, STOCK_SIZE);
-        }
-    }
-
-    private void drawHealthBar(Graphics g, int x, int y, int health, Color color) {
-        final int BAR_WIDTH = 100;
-        final int BAR_HEIGHT = 10;
-
-        // Draw black shadow/outline
-        g.setColor(Color.BLACK);
-        g.fillRect(x - 2, y - 2, BAR_WIDTH + 4, BAR_HEIGHT + 4);
-
-        // Draw background (lost health area)
-        g.setColor(new Color(50, 50, 50));
-        g.fillRect(x, y, BAR_WIDTH, BAR_HEIGHT);
-
-        // Draw health portion (clamped at 0)
-        g.setColor(color);
-        int currentWidth = Math.max(0, Math.min(BAR_WIDTH, health));
-        g.fillRect(x, y, currentWidth, BAR_HEIGHT);
-    }
-
-    private void drawSuperMeter(Graphics g, int x, int y, float meter, Color color) {
-        final int BAR_WIDTH = 100;
-        final int BAR_HEIGHT = 5;
-
-        Graphics2D g2 = (Graphics2D) g;
-
-        // Draw background (empty meter)
-        g.setColor(Color.GRAY.darker());
-        g2.fillRect(x, y, BAR_WIDTH, BAR_HEIGHT);
-
-        // Draw meter fill (orange/yellow)
-        g.setColor(new Color(255, 165, 0));
-        int currentWidth = (int) Math.max(0, Math.min(BAR_WIDTH, meter));
-        g2.fillRect(x, y, currentWidth, BAR_HEIGHT);
-
-        // Draw outer outline
-        g.setColor(Color.BLACK);
-        g2.drawRect(x - 1, y - 1, BAR_WIDTH + 1, BAR_HEIGHT + 1);
-
-        // Pulsing border when Super Attack is Ready
-        if (meter >= Fighter.SUPER_ATTACK_COST) {
-            if ((System.currentTimeMillis() / 150) % 2 == 0) {
-                g2.setColor(Color.YELLOW);
-            } else {
-                g2.setColor(Color.ORANGE);
-            }
-            g2.setStroke(new BasicStroke(2));
-            g2.drawRect(x - 2, y - 2, BAR_WIDTH + 3, BAR_HEIGHT + 3);
-            g2.setStroke(new BasicStroke(1));
-        }
-    }
-
-    // Helper method to draw the Pause Menu
-    private void drawPauseMenu(Graphics2D g2, FontMetrics fm) {
+    /** The pause overlay with option {@code selection} highlighted; also drawn by {@link VisualCheck}. */
+    static void drawPauseMenu(Graphics2D g2, int selection) {
         // Draw Semi-transparent Overlay
         g2.setColor(new Color(0, 0, 0, 180));
         g2.fillRect(0, 0, VIRTUAL_WIDTH, VIRTUAL_HEIGHT);
 
         g2.setFont(new Font("Arial", Font.BOLD, 64));
-        fm = g2.getFontMetrics();
+        FontMetrics fm = g2.getFontMetrics();
         drawCenteredString(g2, "PAUSED", 100, fm, Color.WHITE);
 
         int startY = 200;
@@ -898,9 +720,9 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
         g2.setFont(new Font("Arial", Font.BOLD, 36));
         fm = g2.getFontMetrics();
 
-        for (int i = 0; i < pauseMenuOptions.length; i++) {
-            Color color = (i == pauseMenuSelection) ? Color.YELLOW : Color.WHITE;
-            drawCenteredString(g2, pauseMenuOptions[i], startY + i * lineHeight, fm, color);
+        for (int i = 0; i < PAUSE_MENU_OPTIONS.length; i++) {
+            Color color = (i == selection) ? Color.YELLOW : Color.WHITE;
+            drawCenteredString(g2, PAUSE_MENU_OPTIONS[i], startY + i * lineHeight, fm, color);
         }
 
         g2.setFont(new Font("Arial", Font.PLAIN, 20));
@@ -912,6 +734,8 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
     @Override
     public void keyPressed(KeyEvent e) {
+        long pressedAt = System.nanoTime(); // Start of the latency trace, before any of our own work
+
         // --- Input Gate Check (Must be at the top) ---
         if (menuTransitionTimer > 0) {
             if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
@@ -920,42 +744,221 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
             return;
         }
 
-        keys[e.getKeyCode()] = true;
-        int max = availableColors.length;
+        if (e.getKeyCode() == KeyEvent.VK_F8) {
+            renderMode = (renderMode + 1) % RENDER_MODE_LABELS.length;
+            renderModeShownAt = System.nanoTime();
+            repaint();
+            return;
+        }
+
+        if (e.getKeyCode() == KeyEvent.VK_INSERT) {
+            toggleRecording();
+            repaint();
+            return;
+        }
+
+        if (e.getKeyCode() == KeyEvent.VK_F12) {
+            // Turning the probe off saves what it measured
+            if (latency.isEnabled()) latency.export(RENDER_MODE_LABELS[renderMode] + ", speed " + SPEEDS[speedIndex] + "x");
+            latency.setEnabled(!latency.isEnabled());
+            repaint();
+            return;
+        }
+
+        // Speed controls work in any match (and stack with training's own slow motion)
+        if (isSimulating() && handleSpeedKey(e.getKeyCode())) {
+            return;
+        }
+        keyboard.keyPressed(e.getKeyCode(), pressedAt);
+
+        scene().keyPressed(e.getKeyCode());
+    }
+
+    private void editInitials(int player, int keyCode, int up, int down, int left, int right) {
+        char[] initials = playerInitials[player];
+        int cursor = initialsCursor[player];
+        if (keyCode == up) {
+            initials[cursor] = (initials[cursor] == 'Z') ? 'A' : (char) (initials[cursor] + 1);
+        } else if (keyCode == down) {
+            initials[cursor] = (initials[cursor] == 'A') ? 'Z' : (char) (initials[cursor] - 1);
+        } else if (keyCode == left) {
+            initialsCursor[player] = (cursor - 1 + INITIALS_LENGTH) % INITIALS_LENGTH;
+        } else if (keyCode == right) {
+            initialsCursor[player] = (cursor + 1) % INITIALS_LENGTH;
+        }
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        // A tap between two ticks stays latched in PlayerInput until the next step has recorded it
+        keyboard.keyReleased(e.getKeyCode());
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {}
+
+    // --- 7. SCENES ---
+
+    /** Menu screens share the orange gradient in place of a stage. */
+    private static void drawMenuBackground(Graphics2D g2) {
+        g2.setPaint(new GradientPaint(0, 0, new Color(255, 80, 0), 0, VIRTUAL_HEIGHT, new Color(255, 200, 0)));
+        g2.fillRect(0, 0, VIRTUAL_WIDTH, VIRTUAL_HEIGHT);
+        g2.setColor(Color.WHITE);
+    }
 
-        if (state == START_MENU) {
-            if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                keys[KeyEvent.VK_ENTER] = false;
-                state = MODE_SELECT;
+    /** Title screen with the leaderboard. */
+    private class StartMenuScene implements Scene {
+        @Override
+        public void render(Graphics2D g2) {
+            drawMenuBackground(g2);
+
+            g2.setFont(new Font("Arial", Font.BOLD, 64));
+            FontMetrics fm = g2.getFontMetrics();
+            drawCenteredString(g2, "JAVA FIGHTER", 150, fm, Color.WHITE);
+
+            g2.setFont(new Font("Arial", Font.PLAIN, 24));
+            fm = g2.getFontMetrics();
+            drawCenteredString(g2, "Press ENTER to Begin", 350, fm, Color.WHITE);
+            drawCenteredString(g2, "Press ESC to Quit", 400, fm, Color.WHITE);
+
+            drawLeaderboard(g2, 200);
+        }
+
+        @Override
+        public void keyPressed(int keyCode) {
+            if (keyCode == KeyEvent.VK_ENTER) {
+                switchTo(modeSelect);
                 menuTransitionTimer = 5;
-            } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+            } else if (keyCode == KeyEvent.VK_ESCAPE) {
                 System.exit(0);
             }
-        } else if (state == MODE_SELECT) {
-            if (e.getKeyCode() == KeyEvent.VK_1) {
-                keys[KeyEvent.VK_1] = false;
+        }
+    }
+
+    /** Picks the mode and match format. */
+    private class ModeSelectScene implements Scene {
+        @Override
+        public void render(Graphics2D g2) {
+            drawMenuBackground(g2);
+
+            g2.setFont(new Font("Arial", Font.BOLD, 48));
+            FontMetrics fm = g2.getFontMetrics();
+            drawCenteredString(g2, "SELECT MODE", 150, fm, Color.WHITE);
+
+            g2.setFont(new Font("Arial", Font.PLAIN, 30));
+            fm = g2.getFontMetrics();
+            drawCenteredString(g2, "1. LOCAL VERSUS (2 Players)", 250, fm, Color.WHITE);
+            drawCenteredString(g2, "2. SINGLE PLAYER (VS AI)", 300, fm, Color.WHITE);
+            drawCenteredString(g2, "3. PARTY (4-Player Free-For-All)", 350, fm, Color.WHITE);
+            drawCenteredString(g2, "4. TEAM BATTLE (2v2)", 400, fm, Color.WHITE);
+            drawCenteredString(g2, "5. TRAINING (Frame Data)", 450, fm, Color.WHITE);
+        }
+
+        @Override
+        public void keyPressed(int keyCode) {
+            if (keyCode == KeyEvent.VK_1) {
                 gameStateMode = FIGHT;
-                state = CHARACTER_SELECT;
+                matchFormat = FORMAT_DUEL;
+                switchTo(nameEntry);
                 menuTransitionTimer = 5;
-            } else if (e.getKeyCode() == KeyEvent.VK_2) {
-                keys[KeyEvent.VK_2] = false;
+            } else if (keyCode == KeyEvent.VK_2) {
                 gameStateMode = AI_FIGHT;
-                state = CHARACTER_SELECT;
+                matchFormat = FORMAT_DUEL;
+                switchTo(nameEntry);
+                menuTransitionTimer = 5;
+            } else if (keyCode == KeyEvent.VK_5) {
+                // Training: P1 against a dummy, with frame data overlays
+                gameStateMode = TRAINING;
+                matchFormat = FORMAT_DUEL;
+                switchTo(characterSelect);
+                menuTransitionTimer = 5;
+            } else if (keyCode == KeyEvent.VK_3 || keyCode == KeyEvent.VK_4) {
+                // Party modes: both humans plus two CPUs on one screen
+                gameStateMode = FIGHT;
+                matchFormat = (keyCode == KeyEvent.VK_3) ? FORMAT_PARTY : FORMAT_TEAMS;
+                switchTo(nameEntry);
+                menuTransitionTimer = 5;
+            }
+        }
+    }
+
+    /** Initials for each human player, which select their profiles. */
+    private class NameEntryScene implements Scene {
+        @Override
+        public void render(Graphics2D g2) {
+            drawMenuBackground(g2);
+
+            g2.setFont(new Font("Arial", Font.BOLD, 48));
+            FontMetrics fm = g2.getFontMetrics();
+            drawCenteredString(g2, "ENTER YOUR INITIALS", 100, fm, Color.WHITE);
+
+            drawInitialsEntry(g2, 150, 0, "PLAYER 1 (W/S, A/D)");
+            if (hasSecondPlayer()) {
+                drawInitialsEntry(g2, VIRTUAL_WIDTH - 350, 1, "PLAYER 2 (Arrows)");
+            }
+
+            g2.setFont(new Font("Arial", Font.PLAIN, 18));
+            fm = g2.getFontMetrics();
+            drawCenteredString(g2, "Press ENTER to Continue", 480, fm, Color.WHITE);
+        }
+
+        @Override
+        public void keyPressed(int keyCode) {
+            // P1: W/S change the letter, A/D move the cursor. P2: the same on the arrows.
+            editInitials(0, keyCode, KeyEvent.VK_W, KeyEvent.VK_S, KeyEvent.VK_A, KeyEvent.VK_D);
+            if (hasSecondPlayer()) {
+                editInitials(1, keyCode, KeyEvent.VK_UP, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT, KeyEvent.VK_RIGHT);
+            }
+            if (keyCode == KeyEvent.VK_ENTER) {
+                switchTo(characterSelect);
                 menuTransitionTimer = 5;
             }
-        } else if (state == CHARACTER_SELECT) {
+        }
+    }
+
+    /** Fighters, stage and AI difficulty; ENTER starts the match. */
+    private class CharacterSelectScene implements Scene {
+        @Override
+        public void render(Graphics2D g2) {
+            drawMenuBackground(g2);
+
+            g2.setFont(new Font("Arial", Font.BOLD, 48));
+            FontMetrics fm = g2.getFontMetrics();
+            drawCenteredString(g2, "SELECT YOUR FIGHTER", 100, fm, Color.WHITE);
+
+            drawCharacterSelection(g2, 150, 200, p1SelectionIndex, "PLAYER 1 (A/D)", p2SelectionIndex);
+            drawCharacterSelection(g2, VIRTUAL_WIDTH - 350, 200, p2SelectionIndex, gameStateMode == AI_FIGHT ? "AI OPPONENT" : gameStateMode == TRAINING ? "TRAINING DUMMY" : "PLAYER 2 (Arrows)", p1SelectionIndex);
+
+            // Consolidated Stage Select Display
+            g2.setFont(new Font("Arial", Font.BOLD, 24));
+            fm = g2.getFontMetrics();
+            drawCenteredString(g2, "STAGE: " + availableStages[selectedStageIndex].name, 450, fm, Color.WHITE);
+
+            if (hasCpuFighters()) {
+                drawCenteredString(g2, "AI DIFFICULTY: " + aiProfiles.get(selectedProfileIndex).name + " (W/S)", 415, fm, Color.WHITE);
+            }
+
+            g2.setFont(new Font("Arial", Font.PLAIN, 18));
+            fm = g2.getFontMetrics();
+            drawCenteredString(g2, "Use Player 2's Arrows to Change Stage. Press ENTER to Fight!", 480, fm, Color.WHITE);
+        }
+
+        @Override
+        public void keyPressed(int keyCode) {
+            int max = availableColors.length;
+
             // P1 Character Selection
-            if (e.getKeyCode() == KeyEvent.VK_A) {
+            if (keyCode == KeyEvent.VK_A) {
                 p1SelectionIndex = (p1SelectionIndex - 1 + max) % max;
-            } else if (e.getKeyCode() == KeyEvent.VK_D) {
+            } else if (keyCode == KeyEvent.VK_D) {
                 p1SelectionIndex = (p1SelectionIndex + 1) % max;
             }
 
             // P2 Character Selection (Local Mode)
             if (gameStateMode == FIGHT) {
-                if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+                if (keyCode == KeyEvent.VK_LEFT) {
                     p2SelectionIndex = (p2SelectionIndex - 1 + max) % max;
-                } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+                } else if (keyCode == KeyEvent.VK_RIGHT) {
                     p2SelectionIndex = (p2SelectionIndex + 1) % max;
                 }
             } else {
@@ -964,87 +967,314 @@ public class GamePanel extends JPanel implements KeyListener, ActionListener {
 
                 // AI Mode: Use P2's Arrow Keys for STAGE Selection
                 int stageMax = availableStages.length;
-                if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+                if (keyCode == KeyEvent.VK_LEFT) {
                     selectedStageIndex = (selectedStageIndex - 1 + stageMax) % stageMax;
-                } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+                } else if (keyCode == KeyEvent.VK_RIGHT) {
                     selectedStageIndex = (selectedStageIndex + 1) % stageMax;
                 }
             }
 
+            // AI Difficulty (any mode with CPU fighters)
+            if (hasCpuFighters()) {
+                int profileMax = aiProfiles.size();
+                if (keyCode == KeyEvent.VK_W) {
+                    selectedProfileIndex = (selectedProfileIndex - 1 + profileMax) % profileMax;
+                } else if (keyCode == KeyEvent.VK_S) {
+                    selectedProfileIndex = (selectedProfileIndex + 1) % profileMax;
+                }
+            }
+
             // Final Transition to Fight
-            if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                keys[KeyEvent.VK_ENTER] = false;
+            if (keyCode == KeyEvent.VK_ENTER) {
 
                 // START FIGHT! (Consolidated Logic)
                 initializeFighters();
-                showFightText = true;
+                showFightText = gameStateMode != TRAINING;
                 fightTimer = FIGHT_SPLASH_DURATION;
 
-                // Set the final state (FIGHT or AI_FIGHT)
-                state = gameStateMode;
+                // The menus leave the stack; the match is the only scene running
+                switchTo(new MatchScene());
             }
-        } else if (state == PAUSE) {
-            if (e.getKeyCode() == KeyEvent.VK_W || e.getKeyCode() == KeyEvent.VK_UP) {
-                pauseMenuSelection = (pauseMenuSelection - 1 + pauseMenuOptions.length) % pauseMenuOptions.length;
-            } else if (e.getKeyCode() == KeyEvent.VK_S || e.getKeyCode() == KeyEvent.VK_DOWN) {
-                pauseMenuSelection = (pauseMenuSelection + 1) % pauseMenuOptions.length;
-            } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
-                keys[KeyEvent.VK_ENTER] = false; // Consume key press
-
-                if (pauseMenuSelection == 0) { // Resume
-                    state = gameStateMode;
-                    // SoundPlayer.playSound("assets/sounds/unpause.wav");
-                } else if (pauseMenuSelection == 1) { // Return to Main Menu
-                    state = START_MENU;
-                    winnerText = "";
-                    // SoundPlayer.playSound("assets/sounds/menu_back.wav");
-                } else if (pauseMenuSelection == 2) { // Quit Game
-                    System.exit(0);
+        }
+    }
+
+    /**
+     * A running match (local, versus AI or training): the round flow and one simulation step
+     * per update. While a PauseScene sits on top it gets no updates at all.
+     */
+    private class MatchScene implements Scene {
+        @Override
+        public boolean isSimulating() {
+            return true;
+        }
+
+        @Override
+        public void update() {
+            view.tick();
+
+            if (gameStateMode == TRAINING) {
+                updateTraining();
+                return;
+            }
+
+            // --- PAUSE/ROUND RESET LOGIC ---
+            if (roundEndTimer > 0) {
+                roundEndTimer--;
+                if (roundEndTimer <= 0) {
+                    // Reset health and positions for start of round (Recalculated)
+                    match.resetRound(GROUND_Y);
+                    view.resetCamera(match);
+                    telemetry.beginRound();
+
+                    roundEndMessage = "";
+                    showFightText = true;
+                    fightTimer = FIGHT_SPLASH_DURATION;
+                    roundTimeRemaining = ROUND_DURATION_SECONDS * GAME_FPS;
                 }
-            } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
-                // ESCAPE also resumes game from pause
-                state = gameStateMode;
-                // SoundPlayer.playSound("assets/sounds/unpause.wav");
+                return;
+            }
+
+            // --- MAIN GAME TIMER ---
+            if (roundTimeRemaining > 0 && roundEndTimer == 0) {
+                roundTimeRemaining--;
+            }
+
+            view.updateSparks();
+
+            // --- CHECK FOR TIME OVER ---
+            if (roundTimeRemaining <= 0) {
+                int leader = match.leadingTeam();
+                if (match.resolveTimeOver()) {
+                    roundEndMessage = teamLabel(leader) + " Wins Round (Time)!";
+                    telemetry.roundEnd(leader);
+                } else {
+                    roundEndMessage = "Time Over - Draw!";
+                    telemetry.roundEnd(-1);
+                }
+
+                if (match.isOver()) {
+                    finishMatch(match.winningTeam());
+                }
+                roundEndTimer = ROUND_END_PAUSE_DURATION;
+                return; // The round is over: no step on the frame time ran out (as in DesyncCheck.Run)
+            }
+            // -------------------------
+
+
+            // --- INPUTS: keyboard or gamepad for humans, AI decisions for CPU fighters ---
+            latency.stepStarted();
+            for (int i = 0; i < match.getFighterCount(); i++) {
+                if (match.isEliminated(i)) continue;
+                Fighter fighter = match.getFighter(i);
+
+                if (cpuControlled[i]) {
+                    Fighter target = match.nearestOpponent(i);
+                    match.setInput(i, target == null ? 0 : cpuBrains[i].decide(fighter, target));
+                } else {
+                    match.setInput(i, playerInputs[i].sample());
+                    latency.inputSampled(playerInputs[i].takePressTime());
+                }
+            }
+            // -----------------------------
+
+            // Update movement, facing, fighter-to-fighter collision and attacks
+            match.step();
+            latency.stepFinished();
+            telemetry.afterStep();
+            view.updateCamera(match);
+
+            // --- CHECK FOR HEALTH/STOCK LOSS (ROUND/MATCH END) ---
+            if (match.resolveKnockouts()) {
+                telemetry.roundEnd(match.leadingTeam());
+
+                // 1. CHECK FOR GAME OVER (Match End)
+                if (match.isOver()) {
+                    finishMatch(match.winningTeam());
+                } else {
+                    // 2. START NEW ROUND (If match is NOT over, but a stock was lost)
+                    roundEndMessage = teamLabel(match.leadingTeam()) + " Wins Round!";
+                    roundEndTimer = ROUND_END_PAUSE_DURATION;
+                }
+            }
+
+            if (showFightText) {
+                fightTimer--;
+                if (fightTimer <= 0) showFightText = false;
+            }
+        }
+
+        /**
+         * Training: the mode decides how many simulation steps this tick gets (0 while frozen,
+         * fractional rates in slow motion). No round clock, knockouts or round flow.
+         */
+        private void updateTraining() {
+            int steps = training.stepsThisTick();
+            holdTappedKeys = (steps == 0);
+
+            for (int s = 0; s < steps; s++) {
+                latency.stepStarted();
+                match.setInput(0, playerInputs[0].sample());
+                latency.inputSampled(playerInputs[0].takePressTime());
+                match.setInput(1, training.dummyInput());
+                match.step();
+                latency.stepFinished();
+                training.afterStep();
+                view.updateCamera(match);
+                view.updateSparks();
             }
-        } else if (state == FIGHT || state == AI_FIGHT) {
+        }
+
+        @Override
+        public void render(Graphics2D g2) {
+            FontMetrics fm;
+
+            // Sky, parallax layers and floor, from the stage's cached layer images
+            view.drawStage(g2);
+
+            // World layer (fighters, sparks, training boxes), then the HUD
+            view.drawWorld(g2, match, gameStateMode == TRAINING ? training : null);
+            view.drawHud(g2, match, roundTimeRemaining / GAME_FPS);
+
+            if (gameStateMode == TRAINING) {
+                // Training overlay replaces the round clock
+                training.draw(g2);
+            }
+
+            // Speed indicator (nothing at normal speed)
+            String speedLabel = clock.isTurbo() ? turboLabel : SPEED_LABELS[speedIndex];
+            if (!speedLabel.isEmpty()) {
+                g2.setFont(new Font("Arial", Font.BOLD, 16));
+                fm = g2.getFontMetrics();
+                drawCenteredString(g2, speedLabel, 95, fm, Color.CYAN);
+            }
+
+            // Draw ROUND END Message
+            if (roundEndTimer > 0) {
+                g2.setFont(new Font("Arial", Font.BOLD, 56));
+                fm = g2.getFontMetrics();
+                drawCenteredString(g2, roundEndMessage, 200, fm, Color.RED);
+            }
+            // Draw "FIGHT!" splash
+            else if (showFightText) {
+                g2.setFont(new Font("Arial", Font.BOLD, 72));
+                fm = g2.getFontMetrics();
+                drawCenteredString(g2, "FIGHT!", 200, fm, Color.YELLOW);
+            }
+        }
+
+        @Override
+        public void keyPressed(int keyCode) {
+            if (gameStateMode == TRAINING) {
+                if (keyCode == KeyEvent.VK_P || keyCode == KeyEvent.VK_ESCAPE) {
+                    pushScene(new PauseScene(this));
+                } else if (training.keyPressed(keyCode)) {
+                    keyboard.cancel(keyCode); // Training keys never reach the fighters
+                }
+                return;
+            }
+
             // PAUSE Check
-            if (e.getKeyCode() == KeyEvent.VK_P || e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+            if (keyCode == KeyEvent.VK_P || keyCode == KeyEvent.VK_ESCAPE) {
                 if (roundEndTimer == 0) { // Only allow pause if not in round-end sequence
-                    state = PAUSE;
-                    pauseMenuSelection = 0; // Reset selection to Resume
+                    pushScene(new PauseScene(this)); // Opens on Resume
                     // SoundPlayer.playSound("assets/sounds/pause.wav");
                 }
             }
 
-            if (roundEndTimer == 0) {
-                // P1 Input (Always Active)
-                if (e.getKeyCode() == player1.attackKey) { player1.attack(); }
-                if (e.getKeyCode() == player1.superAttackKey) { player1.superAttack(); }
-                if (e.getKeyCode() == player1.dashFwdKey) { player1.dashForward(); }
-                if (e.getKeyCode() == player1.dashBackKey) { player1.dashBack(); }
-
-                // P2 Input (Only Active in Local FIGHT Mode)
-                if (state == FIGHT) {
-                    if (e.getKeyCode() == player2.attackKey) { player2.attack(); }
-                    if (e.getKeyCode() == player2.superAttackKey) { player2.superAttack(); }
-                    if (e.getKeyCode() == player2.dashFwdKey) { player2.dashForward(); }
-                    if (e.getKeyCode() == player2.dashBackKey) { player2.dashBack(); }
+            // Attacks and dashes are no longer fired from here: each fighter reads them
+            // from its input buffer during the simulation step (see Fighter.update).
+        }
+    }
+
+    /**
+     * The pause menu over a suspended match. The match isn't stepped or redrawn: its last frame
+     * is drawn once into an image, which stays on screen under the menu until it closes.
+     */
+    private class PauseScene implements Scene {
+        private final Scene paused;
+        private int selection = 0; // 0: Resume, 1: Main Menu, 2: Quit Game
+        private BufferedImage lastFrame;
+        private int lastFrameScale;
+
+        PauseScene(Scene paused) {
+            this.paused = paused;
+        }
+
+        @Override
+        public void render(Graphics2D g2) {
+            // Cached at the target's scale (redrawn only if F8 changes it), so it stays as sharp as a live frame
+            int scale = Math.max(1, (int) Math.ceil(g2.getTransform().getScaleX()));
+            if (lastFrame == null || lastFrameScale != scale) {
+                lastFrame = new BufferedImage(VIRTUAL_WIDTH * scale, VIRTUAL_HEIGHT * scale, BufferedImage.TYPE_INT_RGB);
+                lastFrameScale = scale;
+                Graphics2D fg = lastFrame.createGraphics();
+                fg.scale(scale, scale);
+                fg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                paused.render(fg);
+                fg.dispose();
+            }
+            g2.drawImage(lastFrame, 0, 0, VIRTUAL_WIDTH, VIRTUAL_HEIGHT, null);
+            drawPauseMenu(g2, selection);
+        }
+
+        @Override
+        public void keyPressed(int keyCode) {
+            if (keyCode == KeyEvent.VK_W || keyCode == KeyEvent.VK_UP) {
+                selection = (selection - 1 + PAUSE_MENU_OPTIONS.length) % PAUSE_MENU_OPTIONS.length;
+            } else if (keyCode == KeyEvent.VK_S || keyCode == KeyEvent.VK_DOWN) {
+                selection = (selection + 1) % PAUSE_MENU_OPTIONS.length;
+            } else if (keyCode == KeyEvent.VK_ENTER) {
+
+                if (selection == 0) { // Resume
+                    closeScene();
+                    // SoundPlayer.playSound("assets/sounds/unpause.wav");
+                } else if (selection == 1) { // Return to Main Menu
+                    telemetry.endMatch(-1);
+                    switchTo(startMenu);
+                    winnerText = "";
+                    // SoundPlayer.playSound("assets/sounds/menu_back.wav");
+                } else if (selection == 2) { // Quit Game
+                    System.exit(0);
                 }
+            } else if (keyCode == KeyEvent.VK_ESCAPE) {
+                // ESCAPE also resumes game from pause
+                closeScene();
+                // SoundPlayer.playSound("assets/sounds/unpause.wav");
             }
-        } else if (state == GAME_OVER) {
-            if (e.getKeyCode() == KeyEvent.VK_R) {
+        }
+    }
+
+    /** Winner, rating changes and match stats over the last stage. */
+    private class GameOverScene implements Scene {
+        @Override
+        public void update() {
+            view.tick();
+        }
+
+        @Override
+        public void render(Graphics2D g2) {
+            view.drawStage(g2);
+
+            g2.setFont(new Font("Arial", Font.BOLD, 48));
+            FontMetrics fm = g2.getFontMetrics();
+            drawCenteredString(g2, winnerText, 200, fm, Color.RED);
+            g2.setFont(new Font("Arial", Font.PLAIN, 24));
+            fm = g2.getFontMetrics();
+            drawCenteredString(g2, "Press R to Restart", 300, fm, Color.WHITE);
+            drawCenteredString(g2, "Press ESC to Quit", 340, fm, Color.WHITE);
+            g2.setFont(new Font("Arial", Font.BOLD, 22));
+            fm = g2.getFontMetrics();
+            drawCenteredString(g2, ratingText, 255, fm, Color.YELLOW);
+            drawMatchStats(g2, fm);
+        }
+
+        @Override
+        public void keyPressed(int keyCode) {
+            if (keyCode == KeyEvent.VK_R) {
                 resetGame();
-            } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+            } else if (keyCode == KeyEvent.VK_ESCAPE) {
                 System.exit(0);
             }
         }
     }
-
-    @Override
-    public void keyReleased(KeyEvent e) {
-        keys[e.getKeyCode()] = false;
-    }
-
-    @Override
-    public void keyTyped(KeyEvent e) {}
 }
\ No newline at end of file
@@ -0,0 +1,320 @@
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * The fight HUD (health bars, super meters, stocks and round timer), kept in a cached overlay
+ * image at screen resolution. Each fighter's slot and the timer are separate dirty regions:
+ * a region is only cleared and redrawn when a value it shows changes (health, meter pixels,
+ * stocks, or the displayed second), so most frames just blit the overlay.
+ * The timer is composed from digit glyphs rendered once per color and scale, so no text is
+ * rasterized while the clock counts down.
+ */
+public class HudOverlay {
+
+    // --- Layout (virtual coordinates) ---
+    public static final int HEIGHT = 150;      // Overlay covers the top of the screen
+    private static final int SLOT_WIDTH = 100;
+    private static final int BAR_WIDTH = 100;
+    private static final int HEALTH_HEIGHT = 10;
+    private static final int METER_HEIGHT = 5;
+    private static final int METER_OFFSET = 20;
+    private static final int STOCKS_OFFSET = 45;
+    private static final int STOCK_SIZE = 15;
+    private static final int STOCK_GAP = 5;
+    private static final int TIMER_Y = 65;     // Baseline, centered horizontally
+    private static final int TIMER_REGION_WIDTH = 200;
+    private static final int REGION_MARGIN = 6; // Covers outlines, shadows and the pulse border
+    private static final int SLOT_REGION_WIDTH = BAR_WIDTH + 2 * REGION_MARGIN + 10; // Stocks reach past the bars
+    private static final int SLOT_REGION_HEIGHT = STOCKS_OFFSET + 2 * REGION_MARGIN;
+
+    private static final Font TIMER_FONT = new Font("Arial", Font.BOLD, 48);
+    private static final Font STOCKS_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Color HEALTH_BACKGROUND = new Color(50, 50, 50);
+    private static final Color METER_BACKGROUND = Color.GRAY.darker();
+    private static final Color METER_FILL = new Color(255, 165, 0);
+    private static final String GLYPH_CHARS = "0123456789:";
+    private static final Color[] TIMER_COLORS = {Color.WHITE, Color.YELLOW, Color.RED};
+    private static final int TIMER_SHADOW = 3;
+    private static final int COLON = 10; // Index of ':' in GLYPH_CHARS
+    private static final BasicStroke PULSE_STROKE = new BasicStroke(2);
+    private static final BasicStroke DEFAULT_STROKE = new BasicStroke(1);
+
+    private final int width;
+    private final int maxStocks;
+    private final float superCost;
+
+    // Fighter slots
+    private int count = 0;
+    private int[] slotX = new int[0];
+    private int slotY;
+    private Color[] colors = new Color[0];
+
+    // Values currently drawn in the overlay (-1 = dirty)
+    private int[] shownHealth = new int[0];
+    private int[] shownMeter = new int[0];
+    private int[] shownStocks = new int[0];
+    private boolean[] superReady = new boolean[0];
+    private int shownSeconds = -1;
+    private boolean showTimer = true;
+    private LongSupplier pulseClock = System::currentTimeMillis; // Millis; drives the super-ready pulse
+
+    // Overlay and glyphs at the current screen scale
+    private BufferedImage overlay;
+    private float overlayScale = 0f;
+    private BufferedImage[][] glyphs; // [color][char]
+    private int[] glyphAdvance;       // Virtual pixels per char
+    private int[] glyphWidth;         // Glyph image size in virtual pixels
+    private int glyphHeight;
+    private int glyphAscent;
+    private final int[] timerChars = new int[5];
+    private final AffineTransform deviceTransform = new AffineTransform();
+
+    public HudOverlay(int width, int maxStocks, float superCost) {
+        this.width = width;
+        this.maxStocks = maxStocks;
+        this.superCost = superCost;
+    }
+
+    /** Lays out one slot per fighter (the classic corners for 1v1, even columns otherwise). */
+    public void configure(Color[] fighterColors, boolean showTimer) {
+        count = fighterColors.length;
+        colors = fighterColors.clone();
+        slotX = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (count == 2) {
+                slotX[i] = (i == 0) ? 50 : width - 150;
+            } else {
+                int slotWidth = width / count;
+                slotX[i] = i * slotWidth + (slotWidth - SLOT_WIDTH) / 2;
+            }
+        }
+        slotY = (count == 2) ? 50 : 90;
+        shownHealth = new int[count];
+        shownMeter = new int[count];
+        shownStocks = new int[count];
+        superReady = new boolean[count];
+        this.showTimer = showTimer;
+        invalidate();
+    }
+
+    /** Replaces the wall clock behind the super-ready pulse, so offscreen checks draw the same frame every run. */
+    void setPulseClock(LongSupplier clock) {
+        pulseClock = clock;
+    }
+
+    /** Marks every region dirty, e.g. after the overlay was reallocated. */
+    public void invalidate() {
+        Arrays.fill(shownHealth, -1);
+        Arrays.fill(shownMeter, -1);
+        Arrays.fill(shownStocks, -1);
+        shownSeconds = -1;
+        if (overlay != null) {
+            Graphics2D g = overlay.createGraphics();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, overlay.getWidth(), overlay.getHeight());
+            g.dispose();
+        }
+    }
+
+    /**
+     * Brings the overlay up to date and draws it, then the super-ready pulse on top.
+     * @param g Graphics scaled to virtual coordinates; the overlay is cached at its device scale.
+     * @param secondsLeft Round clock in whole seconds (ignored without a timer).
+     */
+    public void draw(Graphics2D g, Match match, int secondsLeft) {
+        AffineTransform transform = g.getTransform();
+        ensureOverlay((float) transform.getScaleX());
+
+        Graphics2D og = null;
+        for (int i = 0; i < count; i++) {
+            Fighter f = match.getFighter(i);
+            int health = Math.max(0, Math.min(BAR_WIDTH, f.getHealth()));
+            int meter = Math.max(0, Math.min(BAR_WIDTH, f.getSuperMeter()));
+            int stocks = match.getStocks(i);
+            superReady[i] = f.getSuperMeter() >= superCost;
+            if (health == shownHealth[i] && meter == shownMeter[i] && stocks == shownStocks[i]) continue;
+
+            if (og == null) og = overlayGraphics();
+            clearRegion(og, slotRegionX(i), slotRegionY(), SLOT_REGION_WIDTH, SLOT_REGION_HEIGHT);
+            drawSlot(og, i, health, meter, stocks);
+            shownHealth[i] = health;
+            shownMeter[i] = meter;
+            shownStocks[i] = stocks;
+        }
+
+        if (showTimer && secondsLeft != shownSeconds) {
+            if (og == null) og = overlayGraphics();
+            clearRegion(og, timerRegionX(), timerRegionY(), TIMER_REGION_WIDTH, timerRegionHeight());
+            drawTimer(og, secondsLeft);
+            shownSeconds = secondsLeft;
+        }
+        if (og != null) og.dispose();
+
+        // Copy just the regions, pixel for pixel: no scaling, and no blending of the empty overlay
+        deviceTransform.setToTranslation(transform.getTranslateX(), transform.getTranslateY());
+        g.setTransform(deviceTransform);
+        for (int i = 0; i < count; i++) {
+            blit(g, slotRegionX(i), slotRegionY(), SLOT_REGION_WIDTH, SLOT_REGION_HEIGHT);
+        }
+        if (showTimer) blit(g, timerRegionX(), timerRegionY(), TIMER_REGION_WIDTH, timerRegionHeight());
+        g.setTransform(transform);
+
+        // Pulsing border when Super Attack is Ready (animated, so drawn live)
+        boolean pulseOn = (pulseClock.getAsLong() / 150) % 2 == 0;
+        for (int i = 0; i < count; i++) {
+            if (!superReady[i]) continue;
+            g.setColor(pulseOn ? Color.YELLOW : Color.ORANGE);
+            g.setStroke(PULSE_STROKE);
+            g.drawRect(slotX[i] - 2, slotY + METER_OFFSET - 2, BAR_WIDTH + 3, METER_HEIGHT + 3);
+            g.setStroke(DEFAULT_STROKE);
+        }
+    }
+
+    // --- Regions (virtual coordinates) ---
+
+    private int slotRegionX(int i) { return slotX[i] - REGION_MARGIN; }
+    private int slotRegionY() { return slotY - REGION_MARGIN; }
+    private int timerRegionX() { return (width - TIMER_REGION_WIDTH) / 2; }
+    private int timerRegionY() { return TIMER_Y - glyphAscent - REGION_MARGIN; }
+    private int timerRegionHeight() { return glyphHeight + 2 * REGION_MARGIN; }
+
+    /** Copies one region of the overlay to the screen; {@code g} is in unscaled device space. */
+    private void blit(Graphics2D g, int x, int y, int w, int h) {
+        int x1 = Math.max(0, Math.round(x * overlayScale));
+        int y1 = Math.max(0, Math.round(y * overlayScale));
+        int x2 = Math.min(overlay.getWidth(), Math.round((x + w) * overlayScale));
+        int y2 = Math.min(overlay.getHeight(), Math.round((y + h) * overlayScale));
+        g.drawImage(overlay, x1, y1, x2, y2, x1, y1, x2, y2, null);
+    }
+
+    // --- Region Drawing (into the overlay) ---
+
+    private void drawSlot(Graphics2D g, int i, int health, int meter, int stocks) {
+        int x = slotX[i];
+        int y = slotY;
+
+        // Health: black outline, lost health, remaining health
+        g.setColor(Color.BLACK);
+        g.fillRect(x - 2, y - 2, BAR_WIDTH + 4, HEALTH_HEIGHT + 4);
+        g.setColor(HEALTH_BACKGROUND);
+        g.fillRect(x, y, BAR_WIDTH, HEALTH_HEIGHT);
+        g.setColor(colors[i]);
+        g.fillRect(x, y, health, HEALTH_HEIGHT);
+
+        // Super meter
+        int meterY = y + METER_OFFSET;
+        g.setColor(METER_BACKGROUND);
+        g.fillRect(x, meterY, BAR_WIDTH, METER_HEIGHT);
+        g.setColor(METER_FILL);
+        g.fillRect(x, meterY, meter, METER_HEIGHT);
+        g.setColor(Color.BLACK);
+        g.drawRect(x - 1, meterY - 1, BAR_WIDTH + 1, METER_HEIGHT + 1);
+
+        // Stocks
+        int stocksY = y + STOCKS_OFFSET;
+        g.setFont(STOCKS_FONT);
+        g.setColor(Color.WHITE);
+        g.drawString("STOCKS:", x, stocksY - 5);
+        for (int s = 0; s < maxStocks; s++) {
+            int stockX = x + 50 + s * (STOCK_SIZE + STOCK_GAP);
+            g.setColor(s < stocks ? colors[i] : Color.DARK_GRAY);
+            g.fillOval(stockX, stocksY - STOCK_SIZE + 2, STOCK_SIZE, STOCK_SIZE);
+            g.setColor(Color.BLACK);
+            g.drawOval(stockX, stocksY - STOCK_SIZE + 2, STOCK_SIZE, STOCK_SIZE);
+        }
+    }
+
+    /** M:SS from cached glyphs; yellow under 30 seconds, red under 10. */
+    private void drawTimer(Graphics2D g, int seconds) {
+        int colorIndex = (seconds <= 10) ? 2 : (seconds <= 30) ? 1 : 0;
+        int minutes = seconds / 60;
+        int n = 0;
+        if (minutes >= 10) timerChars[n++] = (minutes / 10) % 10;
+        timerChars[n++] = minutes % 10;
+        timerChars[n++] = COLON;
+        timerChars[n++] = (seconds % 60) / 10;
+        timerChars[n++] = seconds % 10;
+
+        int total = 0;
+        for (int c = 0; c < n; c++) total += glyphAdvance[timerChars[c]];
+        int x = (width - total) / 2;
+        for (int c = 0; c < n; c++) {
+            int ch = timerChars[c];
+            g.drawImage(glyphs[colorIndex][ch], x, TIMER_Y - glyphAscent, glyphWidth[ch], glyphHeight, null);
+            x += glyphAdvance[ch];
+        }
+    }
+
+    // --- Overlay & Glyph Caches ---
+
+    private void ensureOverlay(float scale) {
+        if (overlay != null && scale == overlayScale) return;
+        overlayScale = scale;
+        overlay = new BufferedImage(Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(HEIGHT * scale)),
+                BufferedImage.TYPE_INT_ARGB);
+        buildGlyphs(scale);
+        invalidate();
+    }
+
+    private Graphics2D overlayGraphics() {
+        Graphics2D g = overlay.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.scale(overlayScale, overlayScale);
+        return g;
+    }
+
+    private static void clearRegion(Graphics2D g, int x, int y, int w, int h) {
+        Composite old = g.getComposite();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(x, y, w, h);
+        g.setComposite(old);
+    }
+
+    /** One image per timer color and character, with the drop shadow baked in, at screen resolution. */
+    private void buildGlyphs(float scale) {
+        Font font = TIMER_FONT.deriveFont(TIMER_FONT.getSize2D() * scale);
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D pg = probe.createGraphics();
+        FontMetrics virtualMetrics = pg.getFontMetrics(TIMER_FONT);
+        FontMetrics fm = pg.getFontMetrics(font);
+        pg.dispose();
+
+        glyphAscent = virtualMetrics.getAscent();
+        glyphAdvance = new int[GLYPH_CHARS.length()];
+        glyphWidth = new int[GLYPH_CHARS.length()];
+        glyphs = new BufferedImage[TIMER_COLORS.length][GLYPH_CHARS.length()];
+        int shadow = Math.max(1, Math.round(TIMER_SHADOW * scale));
+
+        for (int c = 0; c < GLYPH_CHARS.length(); c++) {
+            String ch = String.valueOf(GLYPH_CHARS.charAt(c));
+            glyphAdvance[c] = virtualMetrics.stringWidth(ch);
+            int w = fm.stringWidth(ch) + shadow;
+            int h = fm.getAscent() + fm.getDescent() + shadow;
+            glyphWidth[c] = Math.max(1, Math.round(w / scale));
+            glyphHeight = Math.max(1, Math.round(h / scale));
+            for (int color = 0; color < TIMER_COLORS.length; color++) {
+                BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = img.createGraphics();
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g.setFont(font);
+                g.setColor(Color.BLACK);
+                g.drawString(ch, shadow, fm.getAscent() + shadow);
+                g.setColor(TIMER_COLORS[color]);
+                g.drawString(ch, 0, fm.getAscent());
+                g.dispose();
+                glyphs[color][c] = img;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * A source of player input: the keyboard, a gamepad reader, or anything else that can turn
+ * device events into {@link PlayerInput} presses and releases. Backends report as soon as an
+ * event arrives; the simulation samples the players once per step, so every backend has
+ * the same path to the next frame.
+ */
+public interface InputBackend {
+
+    /** Short name for warnings and the README ("keyboard", "evdev"). */
+    String getName();
+
+    /** Starts feeding {@code players} (index = player slot). May start a thread. */
+    void start(PlayerInput[] players);
+
+    /** Stops and releases any devices. Held buttons from this backend are cleared. */
+    void close();
+}
@@ -0,0 +1,148 @@
+import java.awt.event.KeyEvent;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Which keys and gamepad buttons drive which {@link InputBuffer} buttons, per player.
+ * Defaults come from {@code /assets/input.properties}; a user file (config/input.properties,
+ * or -Dfightgame.inputConfig) is layered on top, so rebinding needs no recompile.
+ */
+public final class InputBindings {
+
+    public static final int PLAYERS = 2;
+
+    /** Config names of the InputBuffer buttons, in bit order. */
+    private static final String[] BUTTON_NAMES = {"left", "right", "up", "down", "attack", "super", "dash_fwd", "dash_back"};
+
+    private static final String DEFAULT_RESOURCE = "/assets/input.properties";
+    private static final String USER_FILE = System.getProperty("fightgame.inputConfig", "config/input.properties");
+
+    /** One player's gamepad setup. */
+    public static final class Pad {
+        public final String device;                    // Path, "auto", or "" for none
+        public final Map<Integer, Integer> buttons;    // evdev key code -> InputBuffer bits
+        public final int stickMin, stickMax;
+        public final float deadzone;
+
+        Pad(String device, Map<Integer, Integer> buttons, int stickMin, int stickMax, float deadzone) {
+            this.device = device;
+            this.buttons = buttons;
+            this.stickMin = stickMin;
+            this.stickMax = stickMax;
+            this.deadzone = deadzone;
+        }
+    }
+
+    private final List<String> backends = new ArrayList<>();
+    private final List<Map<Integer, Integer>> keys = new ArrayList<>(); // Per player: key code -> bits
+    private final List<Pad> pads = new ArrayList<>();
+
+    private InputBindings(Properties config) {
+        for (String name : config.getProperty("backends", "keyboard").split(",")) {
+            if (!name.trim().isEmpty()) backends.add(name.trim().toLowerCase());
+        }
+        for (int player = 0; player < PLAYERS; player++) {
+            String prefix = "p" + (player + 1) + ".";
+            keys.add(parseButtons(config, prefix + "key.", InputBindings::keyCode));
+
+            String[] stick = config.getProperty(prefix + "pad.stick", "-32768,32767").split(",");
+            pads.add(new Pad(config.getProperty(prefix + "pad.device", "").trim(),
+                    parseButtons(config, prefix + "pad.", EvdevBackend::keyCode),
+                    Integer.parseInt(stick[0].trim()), Integer.parseInt(stick[stick.length - 1].trim()),
+                    Float.parseFloat(config.getProperty(prefix + "pad.deadzone", "0.5").trim())));
+        }
+    }
+
+    /** Loads the defaults and the user's overrides. Falls back to the built-in layout if both fail. */
+    public static InputBindings load() {
+        Properties config = new Properties();
+        try (InputStream is = InputBindings.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (is == null) throw new IOException("Resource not found: " + DEFAULT_RESOURCE);
+            config.load(is);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not load default controls. Using built-in keys. Error: " + e.getMessage());
+            builtInDefaults(config);
+        }
+
+        Properties user = new Properties(config);
+        try (InputStream is = new FileInputStream(USER_FILE)) {
+            user.load(is);
+        } catch (FileNotFoundException e) {
+            // No user bindings: the defaults stand
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read " + USER_FILE + ". Using default controls. Error: " + e.getMessage());
+        }
+
+        try {
+            return new InputBindings(user);
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Bad control binding in " + USER_FILE + ". Using default controls. Error: " + e.getMessage());
+            return new InputBindings(config);
+        }
+    }
+
+    /** The original hardcoded keyboard layout. */
+    private static void builtInDefaults(Properties config) {
+        String[][] layout = {
+                {"A", "D", "W", "S", "F", "G", "E", "R"},
+                {"LEFT", "RIGHT", "UP", "DOWN", "L", "K", "I", "O"}
+        };
+        for (int player = 0; player < PLAYERS; player++) {
+            for (int b = 0; b < BUTTON_NAMES.length; b++) {
+                config.setProperty("p" + (player + 1) + ".key." + BUTTON_NAMES[b], layout[player][b]);
+            }
+        }
+    }
+
+    private interface CodeParser {
+        int parse(String name);
+    }
+
+    private static Map<Integer, Integer> parseButtons(Properties config, String prefix, CodeParser parser) {
+        Map<Integer, Integer> map = new HashMap<>();
+        for (int b = 0; b < BUTTON_NAMES.length; b++) {
+            String spec = config.getProperty(prefix + BUTTON_NAMES[b], "");
+            for (String name : spec.split(",")) {
+                if (name.trim().isEmpty()) continue;
+                map.merge(parser.parse(name.trim()), 1 << b, (a, c) -> a | c);
+            }
+        }
+        return map;
+    }
+
+    private static int keyCode(String name) {
+        String field = name.toUpperCase().startsWith("VK_") ? name.toUpperCase() : "VK_" + name.toUpperCase();
+        try {
+            return KeyEvent.class.getField(field).getInt(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unknown key '" + name + "'");
+        }
+    }
+
+    // --- Queries ---
+
+    public boolean isEnabled(String backend) {
+        return backends.contains(backend);
+    }
+
+    public List<String> getBackends() {
+        return backends;
+    }
+
+    /** InputBuffer bits {@code keyCode} drives for {@code player} (0 if unbound). */
+    public int keyButtons(int player, int keyCode) {
+        Integer bits = keys.get(player).get(keyCode);
+        return (bits != null) ? bits : 0;
+    }
+
+    public Pad pad(int player) {
+        return pads.get(player);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Per-fighter input history: a ring buffer of the last 32 frames of input bitmasks,
+ * plus a "frames since pressed" counter per button so buffered presses are found in O(1).
+ * Directions are also exposed in numpad notation relative to facing
+ * (6 = forward, 4 = back, 2 = down, 3 = down-forward, 5 = neutral, ...).
+ */
+public class InputBuffer {
+
+    // --- Input Bits ---
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int UP = 1 << 2;
+    public static final int DOWN = 1 << 3;
+    public static final int ATTACK = 1 << 4;
+    public static final int SUPER = 1 << 5;
+    public static final int DASH_FWD = 1 << 6;
+    public static final int DASH_BACK = 1 << 7;
+    public static final int BUTTON_COUNT = 8;
+
+    // --- Buffer Constants ---
+    public static final int HISTORY_FRAMES = 32; // Power of two so the ring index is a mask
+    private static final int HISTORY_MASK = HISTORY_FRAMES - 1;
+    private static final int NEVER = Integer.MAX_VALUE / 2;
+
+    private final int[] history = new int[HISTORY_FRAMES];
+    private final int[] framesSincePress = new int[BUTTON_COUNT];
+    private int head = 0; // Slot of the most recent frame
+    private int pressed = 0; // Buttons that went down this frame
+
+    public InputBuffer() {
+        clear();
+    }
+
+    /** Records one frame of input. Call exactly once per simulation step. */
+    public void push(int mask) {
+        int previous = history[head];
+        head = (head + 1) & HISTORY_MASK;
+        history[head] = mask;
+        pressed = mask & ~previous;
+
+        for (int bit = 0; bit < BUTTON_COUNT; bit++) {
+            if ((pressed & (1 << bit)) != 0) {
+                framesSincePress[bit] = 0;
+            } else if (framesSincePress[bit] < NEVER) {
+                framesSincePress[bit]++;
+            }
+        }
+    }
+
+    /** Input mask from {@code framesAgo} steps back (0 = current frame). */
+    public int get(int framesAgo) {
+        return history[(head - framesAgo) & HISTORY_MASK];
+    }
+
+    public int current() { return history[head]; }
+    public int pressedThisFrame() { return pressed; }
+
+    /** True if the button was pressed within the last {@code window} frames and not yet consumed. */
+    public boolean wasPressedWithin(int button, int window) {
+        return framesSincePress[Integer.numberOfTrailingZeros(button)] < window;
+    }
+
+    /** Marks a buffered press as used so it can't fire a second action. */
+    public void consume(int button) {
+        framesSincePress[Integer.numberOfTrailingZeros(button)] = NEVER;
+    }
+
+    /** Copies the full history and press counters from another buffer. */
+    public void copyFrom(InputBuffer other) {
+        System.arraycopy(other.history, 0, history, 0, HISTORY_FRAMES);
+        System.arraycopy(other.framesSincePress, 0, framesSincePress, 0, BUTTON_COUNT);
+        head = other.head;
+        pressed = other.pressed;
+    }
+
+    /** Visits the history, press counters and ring position (for state checksums). */
+    public void visitState(Match.StateVisitor v) {
+        for (int i = 0; i < HISTORY_FRAMES; i++) v.field("input.history", i, history[i]);
+        for (int i = 0; i < BUTTON_COUNT; i++) v.field("input.framesSincePress", i, framesSincePress[i]);
+        v.field("input.head", -1, head);
+        v.field("input.pressed", -1, pressed);
+    }
+
+    /** {@link #visitState}'s fields mixed straight into a checksum, in the same order. */
+    public long hashState(long h) {
+        for (int i = 0; i < HISTORY_FRAMES; i++) h = StateChecksum.mix(h, history[i]);
+        for (int i = 0; i < BUTTON_COUNT; i++) h = StateChecksum.mix(h, framesSincePress[i]);
+        h = StateChecksum.mix(h, head);
+        return StateChecksum.mix(h, pressed);
+    }
+
+    public void clear() {
+        for (int i = 0; i < HISTORY_FRAMES; i++) history[i] = 0;
+        for (int i = 0; i < BUTTON_COUNT; i++) framesSincePress[i] = NEVER;
+        pressed = 0;
+    }
+
+    /** Current stick direction in numpad notation, with forward taken from the facing direction. */
+    public static int numpadDirection(int mask, int facing) {
+        boolean left = (mask & LEFT) != 0;
+        boolean right = (mask & RIGHT) != 0;
+        int horizontal = 0;
+        if (left != right) {
+            horizontal = (right ? 1 : -1) * facing; // +1 forward, -1 back
+        }
+        int vertical = 0;
+        if ((mask & UP) != 0) vertical = 1;
+        else if ((mask & DOWN) != 0) vertical = -1;
+
+        return 5 + horizontal + 3 * vertical;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Keyboard input. AWT delivers key events to {@link GamePanel}, which forwards them here;
+ * each bound key presses or releases its player's buttons straight away.
+ */
+public class KeyboardBackend implements InputBackend {
+
+    private final InputBindings bindings;
+    private volatile PlayerInput[] players = new PlayerInput[0];
+
+    public KeyboardBackend(InputBindings bindings) {
+        this.bindings = bindings;
+    }
+
+    @Override
+    public String getName() {
+        return "keyboard";
+    }
+
+    @Override
+    public void start(PlayerInput[] players) {
+        this.players = players;
+    }
+
+    @Override
+    public void close() {
+        for (PlayerInput player : players) player.clear(PlayerInput.KEYBOARD);
+        players = new PlayerInput[0];
+    }
+
+    /** {@code when} is the nanoTime the key event arrived, for latency tracing. */
+    public void keyPressed(int keyCode, long when) {
+        PlayerInput[] players = this.players;
+        for (int p = 0; p < players.length; p++) {
+            int buttons = bindings.keyButtons(p, keyCode);
+            if (buttons != 0) players[p].press(PlayerInput.KEYBOARD, buttons, when);
+        }
+    }
+
+    public void keyReleased(int keyCode) {
+        PlayerInput[] players = this.players;
+        for (int p = 0; p < players.length; p++) {
+            int buttons = bindings.keyButtons(p, keyCode);
+            if (buttons != 0) players[p].release(PlayerInput.KEYBOARD, buttons);
+        }
+    }
+
+    /** Takes back a press that turned out to be a tool key (training controls), so no fighter sees it. */
+    public void cancel(int keyCode) {
+        PlayerInput[] players = this.players;
+        for (int p = 0; p < players.length; p++) {
+            int buttons = bindings.keyButtons(p, keyCode);
+            if (buttons != 0) players[p].cancel(PlayerInput.KEYBOARD, buttons);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Input-to-photon latency, split into stages. A press is stamped with {@link System#nanoTime}
+ * when it arrives (keyPressed, or the gamepad thread's SYN_REPORT), then carried through:
+ *
+ *   queueing   - press until the simulation step that samples it starts (timer wait)
+ *   simulation - that step's start until it finishes
+ *   render     - step done until the frame showing it has been drawn (repaint dispatch + paint)
+ *   present    - drawn until Swing has copied it to the screen and the toolkit has flushed
+ *
+ * Each stage (and the total) goes into a fixed-bucket histogram. Everything except the press
+ * stamp runs on the Swing thread, so nothing here allocates or blocks while a trace is open.
+ * {@link #export} writes the histograms as CSV under {@code latency/}.
+ */
+public class LatencyProbe {
+
+    // --- Stages ---
+    public static final int QUEUE = 0, SIMULATION = 1, RENDER = 2, PRESENT = 3, TOTAL = 4;
+    private static final String[] STAGE_NAMES = {"queue", "simulation", "render", "present", "total"};
+    private static final int STAGES = STAGE_NAMES.length;
+
+    // --- Histograms ---
+    private static final int BUCKET_MICROS = 50;
+    private static final int BUCKETS = 2000;           // 0-100 ms; slower samples land in the last one
+    private static final int PENDING_CAPACITY = 64;    // Open traces (presses not yet on screen)
+    private static final String OUTPUT_DIR = "latency";
+
+    // --- Overlay ---
+    private static final Font OVERLAY_FONT = new Font("Monospaced", Font.BOLD, 12);
+    private static final Color PANEL_COLOR = new Color(0, 0, 0, 170);
+    private static final Color[] STAGE_COLORS = {Color.ORANGE, Color.CYAN, Color.GREEN, Color.MAGENTA, Color.WHITE};
+    private static final int PANEL_X = 10, PANEL_Y = 370, PANEL_WIDTH = 490, ROW_HEIGHT = 16;
+    private static final int BAR_BUCKETS = 4;          // Overlay bars are 0.2 ms wide...
+    private static final int BAR_COUNT = 100;          // ...and cover 0-20 ms
+    private static final long SUMMARY_INTERVAL_NANOS = 250_000_000L;
+
+    private final long[][] counts = new long[STAGES][BUCKETS];
+    private final long[] samples = new long[STAGES];
+    private final long[] maxNanos = new long[STAGES];
+
+    // Open traces, oldest first; -1 means the stage hasn't happened yet
+    private final long[] pressedAt = new long[PENDING_CAPACITY];
+    private final long[] stepStart = new long[PENDING_CAPACITY];
+    private final long[] stepEnd = new long[PENDING_CAPACITY];
+    private final long[] renderedAt = new long[PENDING_CAPACITY];
+    private int pending = 0;
+    private long overflowed = 0; // Presses dropped because too many traces were open
+
+    private boolean enabled;
+    private long currentStepStart;
+    private final String[] summaryLines = new String[STAGES];
+    private long summaryBuiltAt = 0;
+    private boolean exportOnExit = false;
+
+    public LatencyProbe(boolean enabled) {
+        setEnabled(enabled);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Turning the probe on starts from empty histograms. */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) reset();
+        this.enabled = enabled;
+        if (enabled && !exportOnExit) {
+            // Quitting with the probe on still leaves the numbers behind
+            exportOnExit = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (this.enabled) export("");
+            }, "latency-export"));
+        }
+    }
+
+    private synchronized void reset() {
+        for (long[] stage : counts) Arrays.fill(stage, 0);
+        Arrays.fill(samples, 0);
+        Arrays.fill(maxNanos, 0);
+        pending = 0;
+        overflowed = 0;
+        summaryBuiltAt = 0;
+    }
+
+    // --- Trace Points (Swing thread) ---
+
+    /** A simulation step is about to sample the players' inputs. */
+    public void stepStarted() {
+        if (enabled) currentStepStart = System.nanoTime();
+    }
+
+    /** The step sampled an input whose oldest unseen press arrived at {@code pressNanos} (0 = none). */
+    public void inputSampled(long pressNanos) {
+        if (!enabled || pressNanos == 0) return;
+        if (pending == PENDING_CAPACITY) {
+            overflowed++;
+            return;
+        }
+        pressedAt[pending] = pressNanos;
+        stepStart[pending] = currentStepStart;
+        stepEnd[pending] = -1;
+        renderedAt[pending] = -1;
+        pending++;
+    }
+
+    /** The step finished: its presses' effects are in the game state now. */
+    public void stepFinished() {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        for (int i = 0; i < pending; i++) {
+            if (stepEnd[i] < 0) stepEnd[i] = now;
+        }
+    }
+
+    /** A frame was drawn; every stepped press is in it. */
+    public void frameRendered() {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        for (int i = 0; i < pending; i++) {
+            if (stepEnd[i] >= 0 && renderedAt[i] < 0) renderedAt[i] = now;
+        }
+    }
+
+    /** The drawn frame reached the screen: closes every rendered trace. */
+    public void framePresented() {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        int kept = 0;
+        for (int i = 0; i < pending; i++) {
+            if (renderedAt[i] < 0) {
+                pressedAt[kept] = pressedAt[i];
+                stepStart[kept] = stepStart[i];
+                stepEnd[kept] = stepEnd[i];
+                renderedAt[kept] = renderedAt[i];
+                kept++;
+                continue;
+            }
+            record(pressedAt[i], stepStart[i], stepEnd[i], renderedAt[i], now);
+        }
+        pending = kept;
+    }
+
+    private synchronized void record(long pressed, long started, long stepped, long rendered, long presented) {
+        add(QUEUE, started - pressed);
+        add(SIMULATION, stepped - started);
+        add(RENDER, rendered - stepped);
+        add(PRESENT, presented - rendered);
+        add(TOTAL, presented - pressed);
+    }
+
+    private void add(int stage, long nanos) {
+        nanos = Math.max(0, nanos); // A press stamped on another thread can land just after the step began
+        counts[stage][(int) Math.min(BUCKETS - 1, nanos / 1000 / BUCKET_MICROS)]++;
+        samples[stage]++;
+        if (nanos > maxNanos[stage]) maxNanos[stage] = nanos;
+    }
+
+    // --- Summaries ---
+
+    /** The {@code percent} percentile of {@code stage}, in microseconds (bucket upper edge, capped at the maximum). */
+    public synchronized long percentileMicros(int stage, int percent) {
+        long target = (samples[stage] * percent + 99) / 100;
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[stage][b];
+            if (seen >= target && seen > 0) return Math.min((long) (b + 1) * BUCKET_MICROS, maxNanos[stage] / 1000);
+        }
+        return 0;
+    }
+
+    /** One stage's percentiles and maximum, in milliseconds. */
+    private String summary(int stage) {
+        return String.format("%-10s p50 %5.1f  p95 %5.1f  p99 %5.1f  max %5.1f",
+                STAGE_NAMES[stage], percentileMicros(stage, 50) / 1000.0, percentileMicros(stage, 95) / 1000.0,
+                percentileMicros(stage, 99) / 1000.0, maxNanos[stage] / 1_000_000.0);
+    }
+
+    /** Per-stage histogram bars and percentiles, bottom-left in screen coordinates. */
+    public void draw(Graphics2D g) {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        if (summaryBuiltAt == 0 || now - summaryBuiltAt >= SUMMARY_INTERVAL_NANOS) {
+            for (int s = 0; s < STAGES; s++) summaryLines[s] = summary(s);
+            summaryBuiltAt = now;
+        }
+
+        int height = (STAGES + 1) * ROW_HEIGHT + 6;
+        g.setColor(PANEL_COLOR);
+        g.fillRect(PANEL_X, PANEL_Y, PANEL_WIDTH, height);
+        g.setFont(OVERLAY_FONT);
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawString("LATENCY ms (F12)  n=" + samples[TOTAL] + (overflowed > 0 ? "  dropped=" + overflowed : ""),
+                PANEL_X + 6, PANEL_Y + ROW_HEIGHT);
+
+        int barsX = PANEL_X + PANEL_WIDTH - BAR_COUNT - 6;
+        for (int s = 0; s < STAGES; s++) {
+            int y = PANEL_Y + (s + 2) * ROW_HEIGHT;
+            g.setColor(STAGE_COLORS[s]);
+            g.drawString(summaryLines[s], PANEL_X + 6, y);
+
+            // Each stage's distribution over 0-20 ms, scaled to its tallest bar
+            long tallest = 1;
+            for (int bar = 0; bar < BAR_COUNT; bar++) tallest = Math.max(tallest, barCount(s, bar));
+            for (int bar = 0; bar < BAR_COUNT; bar++) {
+                int h = (int) (barCount(s, bar) * (ROW_HEIGHT - 3) / tallest);
+                if (h > 0) g.fillRect(barsX + bar, y - h, 1, h);
+            }
+        }
+    }
+
+    private long barCount(int stage, int bar) {
+        long total = 0;
+        for (int b = bar * BAR_BUCKETS; b < (bar + 1) * BAR_BUCKETS; b++) total += counts[stage][b];
+        return total;
+    }
+
+    // --- Export ---
+
+    /**
+     * Writes every stage's histogram to {@code latency/latency-<time>.csv}: a summary comment per
+     * stage, then one row per non-empty bucket. {@code settings} (render mode, speed) goes in the
+     * first comment line so runs can be told apart. Returns the file, or null if nothing was written.
+     */
+    public synchronized File export(String settings) {
+        if (samples[TOTAL] == 0) return null;
+        try {
+            File dir = new File(OUTPUT_DIR);
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+            String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            File file = new File(dir, "latency-" + stamp + ".csv");
+            try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+                out.println("# input-to-photon latency, " + samples[TOTAL] + " presses"
+                        + (settings.isEmpty() ? "" : ", " + settings));
+                for (int s = 0; s < STAGES; s++) out.println("# " + summary(s) + " ms");
+
+                out.print("bucket_start_us");
+                for (String name : STAGE_NAMES) out.print("," + name);
+                out.println();
+                for (int b = 0; b < BUCKETS; b++) {
+                    boolean empty = true;
+                    for (int s = 0; s < STAGES; s++) empty &= counts[s][b] == 0;
+                    if (empty) continue;
+                    out.print(b * BUCKET_MICROS);
+                    for (int s = 0; s < STAGES; s++) out.print("," + counts[s][b]);
+                    out.println();
+                }
+            }
+            System.out.println("Latency histograms written to " + file.getPath());
+            return file;
+        } catch (IOException e) {
+            System.err.println("Warning: Could not write latency histograms. Error: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Forward-simulation search used by the hard AI.
+ * Each decision tick, every legal candidate action is played out for a fixed number of frames
+ * on scratch copies of both fighters (a 2-fighter {@link Match}), and the branch with the best
+ * health and meter swing wins. Branches run in parallel on a small shared pool.
+ *
+ * Every branch plays the full horizon, so the choice depends only on the game state and the
+ * hard AI replays and checksums like any other profile. The clock is only a safety cap: if the
+ * branches haven't all finished well inside one 16 ms frame (a badly overloaded machine), the
+ * search gives up and keeps the fallback rather than ranking a partial set.
+ */
+public class LookaheadSearch {
+
+    // --- Search Constants ---
+    private static final long SAFETY_CAP_NANOS = 8_000_000L; // Half a 60 Hz frame, leaving room to render
+    private static final float METER_WEIGHT = 0.25f;        // 4 meter is worth 1 HP
+    private static final int POOL_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(POOL_SIZE, r -> {
+        Thread t = new Thread(r, "ai-lookahead");
+        t.setDaemon(true); // Never keeps the game alive on exit
+        return t;
+    });
+
+    /** Scratch state for one candidate branch, reused every decision. */
+    private static class Branch {
+        Fighter self;
+        Fighter opponent;
+        Match match;
+        final AtomicBoolean busy = new AtomicBoolean(false);
+        volatile float score;
+        volatile long finishedSearch = -1; // The search whose score this is; written after the score
+    }
+
+    private final int horizonFrames;
+    private final Branch[] branches = new Branch[AIOpponent.ACTION_COUNT];
+    private long searchCount = 0; // Numbers the searches, so a late branch from an old one is never read
+
+    public LookaheadSearch(int horizonFrames) {
+        this.horizonFrames = horizonFrames;
+        for (int a = 0; a < branches.length; a++) {
+            branches[a] = new Branch();
+        }
+    }
+
+    /**
+     * Picks the candidate whose simulated outcome is best for {@code self}.
+     * @param legal Which actions may be tried this tick.
+     * @param fallback Action to keep on ties or when the search can't finish every branch (the utility choice).
+     */
+    public int search(Fighter self, Fighter opponent, boolean[] legal, int fallback) {
+        long search = ++searchCount;
+        long cap = System.nanoTime() + SAFETY_CAP_NANOS;
+        int opponentHeld = opponent.getInputBuffer().current() & (InputBuffer.LEFT | InputBuffer.RIGHT | InputBuffer.UP | InputBuffer.DOWN);
+
+        int submitted = 0;
+        for (int a = 0; a < branches.length; a++) {
+            if (legal[a]) submitted++;
+        }
+        CountDownLatch done = new CountDownLatch(submitted);
+        boolean complete = true;
+
+        for (int a = 0; a < branches.length; a++) {
+            if (!legal[a]) continue;
+            Branch branch = branches[a];
+
+            // A branch still running from a previous (capped) search can't be shared; don't rank without it
+            if (!branch.busy.compareAndSet(false, true)) {
+                complete = false;
+                done.countDown();
+                continue;
+            }
+            prepare(branch, self, opponent);
+
+            final int action = a;
+            POOL.execute(() -> {
+                try {
+                    simulate(branch, action, opponentHeld, cap, search);
+                } finally {
+                    branch.busy.set(false);
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            if (!done.await(Math.max(0, cap - System.nanoTime()), TimeUnit.NANOSECONDS)) complete = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete = false;
+        }
+        for (int a = 0; a < branches.length && complete; a++) {
+            if (legal[a] && branches[a].finishedSearch != search) complete = false; // Stopped at the cap
+        }
+        if (!complete) return fallback;
+
+        int best = fallback;
+        float bestScore = legal[fallback] ? branches[fallback].score : Float.NEGATIVE_INFINITY;
+        for (int a = 0; a < branches.length; a++) {
+            if (!legal[a]) continue;
+            if (branches[a].score > bestScore) {
+                bestScore = branches[a].score;
+                best = a;
+            }
+        }
+        return best;
+    }
+
+    /** Copies the live fighters into the branch's scratch fighters (allocates only the first time). */
+    private void prepare(Branch branch, Fighter self, Fighter opponent) {
+        if (branch.match == null) {
+            branch.self = new Fighter(self);
+            branch.opponent = new Fighter(opponent);
+            branch.match = new Match(new Fighter[]{branch.self, branch.opponent}, new int[]{0, 1}, 1);
+        } else {
+            branch.self.copyFrom(self);
+            branch.opponent.copyFrom(opponent);
+        }
+        branch.match.setTuning(self.getTuning()); // Damage and push as in the live match
+    }
+
+    /** Plays {@code action} for the horizon (opponent keeps holding its current directions) and scores it for {@code search}. */
+    private void simulate(Branch branch, int action, int opponentHeld, long cap, long search) {
+        Fighter self = branch.self;
+        Fighter opponent = branch.opponent;
+        int selfHealth = self.getHealth();
+        int opponentHealth = opponent.getHealth();
+        int selfMeter = self.getSuperMeter();
+        int opponentMeter = opponent.getSuperMeter();
+
+        for (int frame = 0; frame < horizonFrames; frame++) {
+            if (System.nanoTime() > cap) return; // Safety cap: the search falls back without this branch
+
+            branch.match.setInput(0, AIOpponent.actionInput(action, frame, self, opponent));
+            branch.match.setInput(1, opponentHeld);
+            branch.match.step();
+        }
+
+        int healthSwing = (self.getHealth() - selfHealth) - (opponent.getHealth() - opponentHealth);
+        int meterSwing = (self.getSuperMeter() - selfMeter) - (opponent.getSuperMeter() - opponentMeter);
+        branch.score = healthSwing + METER_WEIGHT * meterSwing;
+        branch.finishedSearch = search;
+    }
+}
@@ -0,0 +1,462 @@
+import java.awt.Rectangle;
+import java.util.stream.IntStream;
+
+/**
+ * Match core for any number of fighters (1v1, 2v2 or free-for-all).
+ * Owns the fighters, their input arrays, teams and stocks, and resolves facing,
+ * push-back and attacks through an X-sorted broad phase (sort and sweep), so each
+ * fighter only looks at its neighbours instead of every other fighter.
+ */
+public class Match {
+
+    // --- Constants ---
+    public static final int REGULAR_DAMAGE = 10; // Defaults; a match reads its Tuning
+    public static final int SUPER_DAMAGE = 50;
+
+    // Above this many fighters the per-fighter update runs on the common pool
+    public static final int PARALLEL_UPDATE_THRESHOLD = 16;
+
+    // Duel start positions (unchanged from the original 1v1 layout)
+    private static final int P1_START_X = 200;
+    private static final int P2_START_X = 550;
+    // Spread used when more than two fighters share the screen
+    private static final int MULTI_START_MIN_X = 50;
+    private static final int MULTI_START_MAX_X = 650;
+
+    /** Callback for every attack that connects (sparks, sounds, stats). */
+    public interface HitListener {
+        void onHit(Fighter attacker, Fighter defender, boolean isSuper, boolean blocked, int damage);
+    }
+
+    /** Receives every gameplay-relevant field in a fixed order (see {@link StateChecksum}). */
+    public interface StateVisitor {
+        /** The fields that follow belong to {@code name} number {@code index} (-1 if there's only one). */
+        default void section(String name, int index) {}
+
+        /** One field; {@code slot} is its index for array fields, otherwise -1. */
+        void field(String name, int slot, int value);
+    }
+
+    // --- Fields ---
+    private final Fighter[] fighters;
+    private final int[] inputs; // This step's InputBuffer bitmask per fighter
+    private final int[] teams;
+    private final int[] stocks;
+    private final int[] startX;
+
+    // Broad phase: fighter indices sorted by X, rebuilt incrementally each step
+    private final int[] order;
+    private int activeCount;
+
+    // Attacks are latched before any hit lands, so two fighters hitting on the same frame trade
+    private final Rectangle[] attackRects;
+    private final boolean[] attackIsSuper;
+
+    private HitListener hitListener;
+    private Tuning tuning = Tuning.DEFAULTS;
+    private int maxSpread = 0; // Widest allowed gap between the outermost fighters (0 = no limit)
+    private int frame = 0; // Number of the current (or last) simulation step
+
+    /**
+     * @param fighters The fighters taking part, in player order.
+     * @param teams Team id per fighter; give every fighter its own id for free-for-all.
+     * @param initialStocks Stocks each fighter starts with.
+     */
+    public Match(Fighter[] fighters, int[] teams, int initialStocks) {
+        if (fighters.length != teams.length) {
+            throw new IllegalArgumentException("fighters and teams must have the same length");
+        }
+        this.fighters = fighters;
+        this.inputs = new int[fighters.length];
+        this.teams = teams;
+        this.stocks = new int[fighters.length];
+        this.startX = startPositions(fighters.length);
+        this.order = new int[fighters.length];
+        this.attackRects = new Rectangle[fighters.length];
+        this.attackIsSuper = new boolean[fighters.length];
+
+        for (int i = 0; i < fighters.length; i++) {
+            stocks[i] = initialStocks;
+        }
+        rebuildOrder();
+    }
+
+    /** Visits the frame number, then each fighter's stocks, input and state. No allocation. */
+    public void visitState(StateVisitor v) {
+        v.section("match", -1);
+        v.field("frame", -1, frame);
+        for (int i = 0; i < fighters.length; i++) {
+            v.section("fighter", i);
+            v.field("stocks", -1, stocks[i]);
+            v.field("input", -1, inputs[i]);
+            fighters[i].visitState(v);
+        }
+    }
+
+    /** {@link #visitState}'s fields mixed straight into a checksum, in the same order. */
+    public long hashState(long h) {
+        h = StateChecksum.mix(h, frame);
+        for (int i = 0; i < fighters.length; i++) {
+            h = StateChecksum.mix(h, stocks[i]);
+            h = StateChecksum.mix(h, inputs[i]);
+            h = fighters[i].hashState(h);
+        }
+        return h;
+    }
+
+    /** Evenly spaced start X coordinates; two fighters keep the classic 1v1 positions. */
+    public static int[] startPositions(int count) {
+        int[] xs = new int[count];
+        if (count <= 2) {
+            xs[0] = P1_START_X;
+            if (count == 2) xs[1] = P2_START_X;
+            return xs;
+        }
+        for (int i = 0; i < count; i++) {
+            xs[i] = MULTI_START_MIN_X + i * (MULTI_START_MAX_X - MULTI_START_MIN_X) / (count - 1);
+        }
+        return xs;
+    }
+
+    public void setHitListener(HitListener listener) {
+        this.hitListener = listener;
+    }
+
+    /** Plays on with {@code tuning} from the next step, for the match and every fighter in it. */
+    public void setTuning(Tuning tuning) {
+        this.tuning = tuning;
+        for (Fighter f : fighters) f.setTuning(tuning);
+    }
+
+    /**
+     * Plays the match on a stage {@code worldWidth} pixels wide: fighters get its walls and
+     * start centred in it, and the outermost two may not drift more than {@code maxSpread}
+     * apart, so a camera the width of the screen can always keep everyone in view.
+     */
+    public void setWorld(int worldWidth, int maxSpread) {
+        int[] base = startPositions(fighters.length);
+        int offset = (worldWidth - Fighter.DEFAULT_WORLD_WIDTH) / 2;
+        for (int i = 0; i < fighters.length; i++) {
+            startX[i] = base[i] + offset;
+            fighters[i].setWorldWidth(worldWidth);
+            fighters[i].setX(startX[i]);
+        }
+        this.maxSpread = maxSpread;
+        rebuildOrder();
+    }
+
+    // --- Getters ---
+    public int getFighterCount() { return fighters.length; }
+    public Fighter getFighter(int index) { return fighters[index]; }
+    public int getTeam(int index) { return teams[index]; }
+    public int getStocks(int index) { return stocks[index]; }
+    public boolean isEliminated(int index) { return stocks[index] <= 0; }
+    public int getInput(int index) { return inputs[index]; }
+    public int getFrame() { return frame; }
+
+    /** Sets the input bitmask a fighter will use on the next step (human keys or AI decision). */
+    public void setInput(int index, int mask) {
+        inputs[index] = mask;
+    }
+
+    /** True when every fighter is on its own team. */
+    public boolean isFreeForAll() {
+        for (int i = 0; i < teams.length; i++) {
+            for (int j = i + 1; j < teams.length; j++) {
+                if (teams[i] == teams[j]) return false;
+            }
+        }
+        return true;
+    }
+
+    // --- Simulation Step ---
+
+    /** Runs one full simulation step: movement, facing, push-back, then attacks. */
+    public void step() {
+        frame++;
+        updateFighters();
+        sortByX();
+        resolveSpread();
+        resolveFacing();
+        resolveCollisions();
+        sortByX();
+        resolveAttacks();
+        resolveAnimations();
+    }
+
+    /** Resolves each fighter's animation frame once the step's hits are known (in order, so events stay on this thread). */
+    private void resolveAnimations() {
+        for (int k = 0; k < activeCount; k++) {
+            fighters[order[k]].resolveAnimation();
+        }
+    }
+
+    /** Updates every fighter still in the match; spreads the work across cores for large N. */
+    public void updateFighters() {
+        if (activeCount >= PARALLEL_UPDATE_THRESHOLD) {
+            // Fighter.update only touches its own state, so the updates are independent
+            IntStream.range(0, activeCount).parallel().forEach(k -> {
+                int i = order[k];
+                fighters[i].update(inputs[i]);
+            });
+        } else {
+            for (int k = 0; k < activeCount; k++) {
+                int i = order[k];
+                fighters[i].update(inputs[i]);
+            }
+        }
+    }
+
+    /** Every fighter faces its nearest opponent (found by walking outward in X order). */
+    public void resolveFacing() {
+        for (int k = 0; k < activeCount; k++) {
+            int i = order[k];
+            int target = nearestOpponentInOrder(k);
+            if (target < 0) continue;
+
+            int selfX = fighters[i].getX();
+            int targetX = fighters[target].getX();
+            if (selfX < targetX) {
+                fighters[i].setDirection(1);
+            } else if (selfX > targetX) {
+                fighters[i].setDirection(-1);
+            }
+        }
+    }
+
+    /** Camera walls: pulls the outermost fighters back in, half each, if they moved too far apart. */
+    public void resolveSpread() {
+        if (maxSpread <= 0 || activeCount < 2) return;
+        Fighter left = fighters[order[0]];
+        Fighter right = fighters[order[activeCount - 1]];
+        int excess = right.getX() - left.getX() - maxSpread;
+        if (excess <= 0) return;
+        left.setX(left.getX() + (excess + 1) / 2);
+        right.setX(right.getX() - excess / 2);
+    }
+
+    /** Pushes apart overlapping bodies; only neighbours within one sprite width are tested. */
+    public void resolveCollisions() {
+        for (int k = 0; k < activeCount; k++) {
+            Fighter a = fighters[order[k]];
+            for (int m = k + 1; m < activeCount; m++) {
+                Fighter b = fighters[order[m]];
+                if (b.getX() - a.getX() >= Fighter.SPRITE_SIZE) break; // Sweep: nothing further can overlap
+
+                Rectangle r1 = a.getRect();
+                Rectangle r2 = b.getRect();
+                if (r1.intersects(r2)) {
+                    // Keep player order stable for ties so 1v1 pushes exactly as before
+                    boolean aFirst = order[k] < order[m];
+                    pushApart(aFirst ? a : b, aFirst ? b : a);
+                }
+            }
+        }
+    }
+
+    private void pushApart(Fighter first, Fighter second) {
+        if (first.getX() < second.getX()) {
+            first.setX(first.getX() - tuning.pushBack);
+            second.setX(second.getX() + tuning.pushBack);
+        } else {
+            first.setX(first.getX() + tuning.pushBack);
+            second.setX(second.getX() - tuning.pushBack);
+        }
+    }
+
+    /** Checks active hitboxes against opponents whose X lies inside the hitbox span. */
+    public void resolveAttacks() {
+        // A hit interrupts the defender's own attack, so read every hitbox before applying any
+        for (int i = 0; i < fighters.length; i++) {
+            boolean hitting = stocks[i] > 0 && fighters[i].canHit();
+            attackRects[i] = hitting ? fighters[i].getAttackRect() : null;
+            attackIsSuper[i] = hitting && fighters[i].isSuperAttack();
+        }
+
+        for (int i = 0; i < fighters.length; i++) {
+            Rectangle attackRect = attackRects[i];
+            if (attackRect == null) continue;
+            Fighter attacker = fighters[i];
+
+            boolean isSuper = attackIsSuper[i];
+            int damage = isSuper ? tuning.superDamage : tuning.regularDamage;
+
+            // Bodies sit inside the sprite, so anyone starting more than a sprite left of the box can't overlap
+            int minX = attackRect.x - Fighter.SPRITE_SIZE;
+            int maxX = attackRect.x + attackRect.width;
+            boolean connected = false;
+
+            for (int k = lowerBound(minX); k < activeCount; k++) {
+                int j = order[k];
+                Fighter defender = fighters[j];
+                if (defender.getX() > maxX) break;
+                if (j == i || teams[j] == teams[i]) continue;
+
+                if (attackRect.intersects(defender.getRect()) && !defender.isKnockedDown()) {
+                    boolean wasBlocking = defender.isBlocking();
+                    int healthBefore = defender.getHealth();
+
+                    defender.takeDamage(damage, attacker.getDirection());
+                    attacker.gainMeter(isSuper ? tuning.meterGainHit * 2 : tuning.meterGainHit);
+                    connected = true;
+
+                    if (hitListener != null) {
+                        boolean blocked = wasBlocking && defender.getHealth() == healthBefore;
+                        hitListener.onHit(attacker, defender, isSuper, blocked, healthBefore - defender.getHealth());
+                    }
+                }
+            }
+
+            if (connected) {
+                attacker.registerHit(isSuper);
+            }
+        }
+    }
+
+    // --- Stocks & Round Results ---
+
+    /** Removes a stock from every fighter whose health hit zero. Returns true if any stock was lost. */
+    public boolean resolveKnockouts() {
+        boolean stockLost = false;
+        for (int i = 0; i < fighters.length; i++) {
+            if (stocks[i] > 0 && fighters[i].getHealth() <= 0) {
+                stocks[i]--;
+                stockLost = true;
+            }
+        }
+        if (stockLost) rebuildOrder();
+        return stockLost;
+    }
+
+    /** Time over: everyone below the best remaining health loses a stock. Returns false on a draw. */
+    public boolean resolveTimeOver() {
+        int best = -1;
+        for (int i = 0; i < fighters.length; i++) {
+            if (stocks[i] > 0) best = Math.max(best, fighters[i].getHealth());
+        }
+
+        boolean anyLost = false;
+        for (int i = 0; i < fighters.length; i++) {
+            if (stocks[i] > 0 && fighters[i].getHealth() < best) {
+                stocks[i]--;
+                anyLost = true;
+            }
+        }
+        if (anyLost) rebuildOrder();
+        return anyLost;
+    }
+
+    /** Team of the healthiest fighter still standing (the round winner), or -1 if nobody is left. */
+    public int leadingTeam() {
+        int bestIndex = -1;
+        for (int i = 0; i < fighters.length; i++) {
+            if (stocks[i] <= 0) continue;
+            if (bestIndex < 0 || fighters[i].getHealth() > fighters[bestIndex].getHealth()) {
+                bestIndex = i;
+            }
+        }
+        return bestIndex < 0 ? -1 : teams[bestIndex];
+    }
+
+    /** True once at most one team has fighters with stocks left. */
+    public boolean isOver() {
+        int team = Integer.MIN_VALUE;
+        for (int i = 0; i < fighters.length; i++) {
+            if (stocks[i] <= 0) continue;
+            if (team == Integer.MIN_VALUE) {
+                team = teams[i];
+            } else if (teams[i] != team) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The last team standing, or -1 for a draw (everyone eliminated). Only meaningful once isOver(). */
+    public int winningTeam() {
+        for (int i = 0; i < fighters.length; i++) {
+            if (stocks[i] > 0) return teams[i];
+        }
+        return -1;
+    }
+
+    /** Puts every remaining fighter back at its start position with full health. */
+    public void resetRound(int groundY) {
+        for (int i = 0; i < fighters.length; i++) {
+            if (stocks[i] <= 0) continue;
+            fighters[i].resetHealth();
+            fighters[i].setX(startX[i]);
+            fighters[i].setY(groundY - Fighter.SPRITE_SIZE);
+        }
+        rebuildOrder();
+    }
+
+    // --- Broad Phase Helpers ---
+
+    /** Rebuilds the active order from scratch (after eliminations). */
+    private void rebuildOrder() {
+        activeCount = 0;
+        for (int i = 0; i < fighters.length; i++) {
+            if (stocks[i] > 0) order[activeCount++] = i;
+        }
+        sortByX();
+    }
+
+    /** Insertion sort: fighters barely move between steps, so this is close to O(N) per frame. */
+    private void sortByX() {
+        for (int k = 1; k < activeCount; k++) {
+            int idx = order[k];
+            int x = fighters[idx].getX();
+            int m = k - 1;
+            while (m >= 0 && (fighters[order[m]].getX() > x
+                    || (fighters[order[m]].getX() == x && order[m] > idx))) {
+                order[m + 1] = order[m];
+                m--;
+            }
+            order[m + 1] = idx;
+        }
+    }
+
+    /** First slot in the sorted order whose fighter X is >= minX. */
+    private int lowerBound(int minX) {
+        int lo = 0, hi = activeCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (fighters[order[mid]].getX() < minX) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Nearest opponent of the fighter at sorted slot k, or -1 if there is none. */
+    private int nearestOpponentInOrder(int k) {
+        int self = order[k];
+        int selfX = fighters[self].getX();
+        int left = -1, right = -1;
+
+        for (int m = k - 1; m >= 0; m--) {
+            if (teams[order[m]] != teams[self]) { left = order[m]; break; }
+        }
+        for (int m = k + 1; m < activeCount; m++) {
+            if (teams[order[m]] != teams[self]) { right = order[m]; break; }
+        }
+
+        if (left < 0) return right;
+        if (right < 0) return left;
+        return (selfX - fighters[left].getX() <= fighters[right].getX() - selfX) ? left : right;
+    }
+
+    /** Nearest opponent of the given fighter, or null. Used by the AI to pick a target. */
+    public Fighter nearestOpponent(int index) {
+        for (int k = 0; k < activeCount; k++) {
+            if (order[k] == index) {
+                int target = nearestOpponentInOrder(k);
+                return target < 0 ? null : fighters[target];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+import java.awt.Color;
+
+/**
+ * Headless stress scenario for the match core.
+ * Runs N AI-driven fighters (free-for-all) for a fixed number of frames and reports
+ * the average cost of one simulation step.
+ *
+ * Usage: java MatchBenchmark [fighters=16] [frames=60000]
+ */
+public class MatchBenchmark {
+
+    private static final int GROUND_Y = 400;
+    private static final int WARMUP_FRAMES = 5000;
+    private static final int STOCKS = 1000; // Enough that nobody is eliminated mid-run
+
+    private static long aiNanos; // Time spent in AIOpponent.decide during the measured run
+
+    public static void main(String[] args) {
+        int fighterCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 60000;
+
+        Match match = createMatch(fighterCount);
+        AIOpponent[] brains = new AIOpponent[fighterCount];
+        for (int i = 0; i < fighterCount; i++) {
+            brains[i] = new AIOpponent(AIProfile.defaultProfile(), i);
+        }
+        runFrames(match, brains, WARMUP_FRAMES);
+
+        aiNanos = 0;
+        long start = System.nanoTime();
+        runFrames(match, brains, frames);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%d fighters, %d frames: %.2f us/step (%s update), AI %.3f us/fighter/frame%n",
+                fighterCount, frames, elapsed / 1000.0 / frames,
+                fighterCount >= Match.PARALLEL_UPDATE_THRESHOLD ? "parallel" : "serial",
+                aiNanos / 1000.0 / frames / fighterCount);
+    }
+
+    private static Match createMatch(int count) {
+        Fighter[] fighters = new Fighter[count];
+        int[] teams = new int[count];
+        int[] startX = Match.startPositions(count);
+
+        for (int i = 0; i < count; i++) {
+            // No sprites: the benchmark never draws
+            fighters[i] = new Fighter(startX[i], GROUND_Y, Color.GRAY,
+                    null, null, null, null, null, null);
+            teams[i] = i;
+        }
+        return new Match(fighters, teams, STOCKS);
+    }
+
+    private static void runFrames(Match match, AIOpponent[] brains, int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            long aiStart = System.nanoTime();
+            for (int i = 0; i < match.getFighterCount(); i++) {
+                if (match.isEliminated(i)) continue;
+                Fighter target = match.nearestOpponent(i);
+                match.setInput(i, target == null ? 0 : brains[i].decide(match.getFighter(i), target));
+            }
+            aiNanos += System.nanoTime() - aiStart;
+
+            match.step();
+            if (match.resolveKnockouts()) {
+                match.resetRound(GROUND_Y);
+            }
+        }
+    }
+}
@@ -0,0 +1,392 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-match event stream: every hit, block, knockdown, super use, meter gain and round end,
+ * with the simulation frame and both fighters' positions.
+ *
+ * The game thread only writes ints into a ring buffer sized up front. If the buffer is ever
+ * full the event is dropped and counted, so recording never waits or allocates. A background
+ * thread drains the buffer into running aggregates (damage per round, block rate, super
+ * conversion) and an append-only CSV file per match under {@code telemetry/}.
+ */
+public class MatchTelemetry implements Match.HitListener {
+
+    // --- Event Types ---
+    public static final int MATCH_START = 0, HIT = 1, BLOCK = 2, KNOCKDOWN = 3, SUPER = 4,
+            METER_GAIN = 5, ROUND_END = 6, MATCH_END = 7;
+    private static final String[] TYPE_NAMES = {"match_start", "hit", "block", "knockdown", "super",
+            "meter_gain", "round_end", "match_end"};
+
+    // --- Buffer & Output ---
+    private static final int CAPACITY = 1 << 13; // Power of two so the ring index is a mask
+    private static final int MASK = CAPACITY - 1;
+    public static final int MAX_FIGHTERS = 16;    // Fighters beyond this aren't tracked
+    private static final long IDLE_PARK_NANOS = 2_000_000L;
+    private static final String OUTPUT_DIR = "telemetry";
+    private static final String CSV_HEADER = "event,frame,round,fighter,other,value,super,x,y,other_x,other_y";
+
+    // --- Ring Buffer (one producer: the game thread; one consumer: the drain thread) ---
+    private final int[] evType = new int[CAPACITY];
+    private final int[] evFrame = new int[CAPACITY];
+    private final int[] evRound = new int[CAPACITY];
+    private final int[] evFighter = new int[CAPACITY];
+    private final int[] evOther = new int[CAPACITY];
+    private final int[] evValue = new int[CAPACITY];
+    private final boolean[] evSuper = new boolean[CAPACITY];
+    private final int[] evX = new int[CAPACITY];
+    private final int[] evY = new int[CAPACITY];
+    private final int[] evOtherX = new int[CAPACITY];
+    private final int[] evOtherY = new int[CAPACITY];
+    private volatile long writeSeq = 0; // Next slot the producer fills
+    private volatile long readSeq = 0;  // Next slot the consumer reads
+    private volatile long dropped = 0;  // Written by the producer only
+
+    // --- Producer State (game thread) ---
+    private Match match;
+    private int matchId = 0;
+    private int round = 0;
+    private final int[] lastMeter = new int[MAX_FIGHTERS];
+    private final FighterState[] lastState = new FighterState[MAX_FIGHTERS];
+
+    // --- Aggregates (drain thread) ---
+    private int drainedMatches = 0; // Counted here too, so snapshots line up with getMatchId()
+    private int fighterCount;
+    private int rounds;
+    private final int[] hitsLanded = new int[MAX_FIGHTERS];
+    private final int[] hitsTaken = new int[MAX_FIGHTERS];
+    private final int[] blocksMade = new int[MAX_FIGHTERS];
+    private final int[] damageDealt = new int[MAX_FIGHTERS];
+    private final int[] roundDamage = new int[MAX_FIGHTERS];
+    private final int[] bestRoundDamage = new int[MAX_FIGHTERS];
+    private final int[] supersUsed = new int[MAX_FIGHTERS];
+    private final int[] supersLanded = new int[MAX_FIGHTERS];
+    private final int[] knockdowns = new int[MAX_FIGHTERS];
+    private final int[] meterGained = new int[MAX_FIGHTERS];
+    private BufferedWriter out;
+    private final StringBuilder line = new StringBuilder(96);
+    private volatile Summary summary;
+
+    private volatile boolean running = true;
+    private final Thread drainThread;
+
+    /** Aggregates for one fighter, as of the last round end. */
+    public static class FighterStats {
+        public final int hitsLanded, hitsTaken, blocksMade, damageDealt, bestRoundDamage;
+        public final int supersUsed, supersLanded, knockdowns, meterGained;
+        public final float damagePerRound;
+
+        FighterStats(MatchTelemetry t, int f) {
+            hitsLanded = t.hitsLanded[f];
+            hitsTaken = t.hitsTaken[f];
+            blocksMade = t.blocksMade[f];
+            damageDealt = t.damageDealt[f];
+            bestRoundDamage = t.bestRoundDamage[f];
+            supersUsed = t.supersUsed[f];
+            supersLanded = t.supersLanded[f];
+            knockdowns = t.knockdowns[f];
+            meterGained = t.meterGained[f];
+            damagePerRound = t.rounds == 0 ? 0f : (float) damageDealt / t.rounds;
+        }
+
+        /** Share of incoming attacks that were blocked (0-1). */
+        public float blockRate() {
+            int incoming = blocksMade + hitsTaken;
+            return incoming == 0 ? 0f : (float) blocksMade / incoming;
+        }
+
+        /** Share of super attacks that landed clean (0-1). */
+        public float superConversion() {
+            return supersUsed == 0 ? 0f : (float) supersLanded / supersUsed;
+        }
+    }
+
+    /** Immutable snapshot published by the drain thread after every round. */
+    public static class Summary {
+        public final int matchId;
+        public final int rounds;
+        public final long droppedEvents;
+        public final boolean matchOver;
+        public final FighterStats[] fighters;
+
+        Summary(MatchTelemetry t, int matchId, boolean matchOver) {
+            this.matchId = matchId;
+            this.rounds = t.rounds;
+            this.droppedEvents = t.dropped;
+            this.matchOver = matchOver;
+            this.fighters = new FighterStats[t.fighterCount];
+            for (int f = 0; f < fighters.length; f++) fighters[f] = new FighterStats(t, f);
+        }
+    }
+
+    public MatchTelemetry() {
+        drainThread = new Thread(this::drainLoop, "match-telemetry");
+        drainThread.setDaemon(true);
+        drainThread.start();
+        // Flush the current file on exit (the menus quit through System.exit)
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
+    }
+
+    // --- Recording (game thread) ---
+
+    /** Starts a new match; events before the next {@link #endMatch} belong to it. */
+    public void beginMatch(Match match) {
+        this.match = match;
+        matchId++;
+        round = 1;
+        syncFighters();
+        record(MATCH_START, -1, -1, Math.min(match.getFighterCount(), MAX_FIGHTERS), false);
+    }
+
+    /** Call after the fighters are reset for a new round, so the reset isn't mistaken for gameplay. */
+    public void beginRound() {
+        if (match == null) return;
+        round++;
+        syncFighters();
+    }
+
+    /** Scans the step's results for knockdowns, super uses and meter gains. */
+    public void afterStep() {
+        if (match == null) return;
+        int count = Math.min(match.getFighterCount(), MAX_FIGHTERS);
+        for (int i = 0; i < count; i++) {
+            Fighter f = match.getFighter(i);
+            FighterState state = f.getState();
+            int meter = f.getSuperMeter();
+
+            if (state == FighterState.KNOCKDOWN && lastState[i] != FighterState.KNOCKDOWN) {
+                record(KNOCKDOWN, i, -1, 0, false);
+            }
+            if (meter < lastMeter[i] && state == FighterState.ATTACK && f.isSuperAttack()) {
+                record(SUPER, i, -1, lastMeter[i] - meter, true);
+            } else if (meter > lastMeter[i]) {
+                record(METER_GAIN, i, -1, meter - lastMeter[i], false);
+            }
+            lastMeter[i] = meter;
+            lastState[i] = state;
+        }
+    }
+
+    @Override
+    public void onHit(Fighter attacker, Fighter defender, boolean isSuper, boolean blocked, int damage) {
+        if (match == null) return;
+        record(blocked ? BLOCK : HIT, indexOf(attacker), indexOf(defender), damage, isSuper);
+    }
+
+    /** @param winnerTeam Team that took the round, or -1 for a draw. */
+    public void roundEnd(int winnerTeam) {
+        if (match == null) return;
+        record(ROUND_END, -1, -1, winnerTeam, false);
+    }
+
+    /** @param winnerTeam Team that won the match, or -1 for a draw or an abandoned match. */
+    public void endMatch(int winnerTeam) {
+        if (match == null) return;
+        record(MATCH_END, -1, -1, winnerTeam, false);
+        match = null;
+    }
+
+    public int getMatchId() { return matchId; }
+
+    /** Aggregates as of the last round the drain thread has processed, or null before the first one. */
+    public Summary getSummary() { return summary; }
+
+    private void syncFighters() {
+        int count = Math.min(match.getFighterCount(), MAX_FIGHTERS);
+        for (int i = 0; i < count; i++) {
+            lastMeter[i] = match.getFighter(i).getSuperMeter();
+            lastState[i] = match.getFighter(i).getState();
+        }
+    }
+
+    private int indexOf(Fighter fighter) {
+        int count = Math.min(match.getFighterCount(), MAX_FIGHTERS);
+        for (int i = 0; i < count; i++) {
+            if (match.getFighter(i) == fighter) return i;
+        }
+        return -1;
+    }
+
+    private void record(int type, int fighter, int other, int value, boolean isSuper) {
+        long seq = writeSeq;
+        if (seq - readSeq >= CAPACITY) {
+            dropped = dropped + 1; // Never wait on the drain thread
+            return;
+        }
+        int slot = (int) (seq & MASK);
+        evType[slot] = type;
+        evFrame[slot] = match.getFrame();
+        evRound[slot] = round;
+        evFighter[slot] = fighter;
+        evOther[slot] = other;
+        evValue[slot] = value;
+        evSuper[slot] = isSuper;
+        Fighter f = fighter >= 0 ? match.getFighter(fighter) : null;
+        Fighter o = other >= 0 ? match.getFighter(other) : null;
+        evX[slot] = f != null ? f.getX() : 0;
+        evY[slot] = f != null ? f.getY() : 0;
+        evOtherX[slot] = o != null ? o.getX() : 0;
+        evOtherY[slot] = o != null ? o.getY() : 0;
+        writeSeq = seq + 1; // Publishes the slot
+    }
+
+    // --- Draining (background thread) ---
+
+    private void drainLoop() {
+        while (running) {
+            if (!drain()) LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        drain();
+        closeFile();
+    }
+
+    /** Consumes everything published so far. Returns false if there was nothing to do. */
+    private boolean drain() {
+        long read = readSeq;
+        long write = writeSeq;
+        if (read == write) return false;
+        for (; read < write; read++) {
+            consume((int) (read & MASK));
+        }
+        readSeq = read; // Hands the slots back to the producer
+        return true;
+    }
+
+    private void consume(int slot) {
+        int type = evType[slot];
+        int f = evFighter[slot];
+        int o = evOther[slot];
+        int value = evValue[slot];
+
+        switch (type) {
+            case MATCH_START:
+                resetAggregates(value);
+                openFile();
+                break;
+            case HIT:
+                if (f >= 0) {
+                    hitsLanded[f]++;
+                    damageDealt[f] += value;
+                    roundDamage[f] += value;
+                    if (evSuper[slot]) supersLanded[f]++;
+                }
+                if (o >= 0) hitsTaken[o]++;
+                break;
+            case BLOCK:
+                if (o >= 0) blocksMade[o]++;
+                break;
+            case KNOCKDOWN:
+                knockdowns[f]++;
+                break;
+            case SUPER:
+                supersUsed[f]++;
+                break;
+            case METER_GAIN:
+                meterGained[f] += value;
+                break;
+            case ROUND_END:
+                rounds++;
+                for (int i = 0; i < fighterCount; i++) {
+                    bestRoundDamage[i] = Math.max(bestRoundDamage[i], roundDamage[i]);
+                    roundDamage[i] = 0;
+                }
+                break;
+            case MATCH_END:
+                break;
+        }
+
+        writeLine(slot);
+        if (type == ROUND_END || type == MATCH_END) {
+            summary = new Summary(this, drainedMatches, type == MATCH_END);
+            flushFile();
+            if (type == MATCH_END) closeFile();
+        }
+    }
+
+    private void resetAggregates(int fighters) {
+        drainedMatches++;
+        fighterCount = fighters;
+        rounds = 0;
+        int[][] all = {hitsLanded, hitsTaken, blocksMade, damageDealt, roundDamage, bestRoundDamage,
+                supersUsed, supersLanded, knockdowns, meterGained};
+        for (int[] a : all) Arrays.fill(a, 0);
+        summary = new Summary(this, drainedMatches, false);
+    }
+
+    // --- CSV Output (background thread) ---
+
+    private void openFile() {
+        closeFile();
+        try {
+            File dir = new File(OUTPUT_DIR);
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+            String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            File file = new File(dir, "match-" + stamp + "-" + drainedMatches + ".csv");
+            out = new BufferedWriter(new FileWriter(file, true));
+            out.write(CSV_HEADER);
+            out.newLine();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not open telemetry file. Keeping stats in memory only. Error: " + e.getMessage());
+            out = null;
+        }
+    }
+
+    private void writeLine(int slot) {
+        if (out == null) return;
+        line.setLength(0);
+        line.append(TYPE_NAMES[evType[slot]]).append(',')
+                .append(evFrame[slot]).append(',')
+                .append(evRound[slot]).append(',')
+                .append(evFighter[slot]).append(',')
+                .append(evOther[slot]).append(',')
+                .append(evValue[slot]).append(',')
+                .append(evSuper[slot] ? 1 : 0).append(',')
+                .append(evX[slot]).append(',')
+                .append(evY[slot]).append(',')
+                .append(evOtherX[slot]).append(',')
+                .append(evOtherY[slot]);
+        try {
+            out.append(line);
+            out.newLine();
+        } catch (IOException e) {
+            System.err.println("Warning: Telemetry write failed. Closing the file. Error: " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void flushFile() {
+        if (out == null) return;
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Warning: Telemetry flush failed. Error: " + e.getMessage());
+        }
+    }
+
+    private void closeFile() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not close telemetry file. Error: " + e.getMessage());
+        }
+        out = null;
+    }
+
+    /** Stops the drain thread after it has written everything still queued. */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Everything that turns a {@link Match} into pixels: the stage, the camera, the fighters, hit
+ * sparks and the HUD. The game and the headless replay renderer both draw through it, so a
+ * replay looks exactly like the match did. Sparks are reseeded per match, so the same inputs
+ * always produce the same frames.
+ */
+public class MatchView {
+
+    private static final long SPARK_SEED = 0x5EED5EEDL; // Reseeded per match so replays show the same sparks
+    private static final int SPARK_HAND_REACH = 40;  // Animation sparks: hand offset from the sprite center
+    private static final int SPARK_HAND_HEIGHT = 75; // ...and below the fighter's top
+
+    private final int width;
+    private final StageRenderer stageRenderer;
+    private final Camera camera;
+    private final HudOverlay hud;
+    private final List<Spark> activeSparks = new ArrayList<>();
+    private SplittableRandom sparkRandom = new SplittableRandom(SPARK_SEED);
+    private int stageTick = 0; // Animation step for stage layers
+
+    public MatchView(int width, int height, int maxStocks) {
+        this.width = width;
+        stageRenderer = new StageRenderer(width, height);
+        camera = new Camera(width, height);
+        hud = new HudOverlay(width, maxStocks, Fighter.SUPER_ATTACK_COST);
+    }
+
+    /**
+     * Sets up a new match on {@code stage}, in a world {@code worldWidth} wide (the match's, which
+     * is normally the stage's). HUD slots take {@code colors} in fighter order.
+     */
+    public void begin(Match match, Stage stage, int worldWidth, Color[] colors, boolean showTimer) {
+        activeSparks.clear();
+        sparkRandom = new SplittableRandom(SPARK_SEED);
+
+        // Worlds wider than the screen scroll
+        camera.setWorldWidth(worldWidth);
+        stageRenderer.setStage(stage);
+        stageRenderer.setScrollRange(worldWidth - width);
+        hud.configure(colors, showTimer);
+        camera.reset(match);
+    }
+
+    // --- Updates (one per simulation step unless noted) ---
+
+    /** Advances stage animation; runs every game tick, paused or not, while a match is shown. */
+    public void tick() {
+        stageTick++;
+    }
+
+    /** Snaps the camera back to the fighters (new round). */
+    public void resetCamera(Match match) {
+        camera.reset(match);
+    }
+
+    public void updateCamera(Match match) {
+        camera.update(match);
+    }
+
+    public void updateSparks() {
+        for (int i = activeSparks.size() - 1; i >= 0; i--) {
+            Spark s = activeSparks.get(i);
+            s.update();
+            if (!s.isAlive()) {
+                activeSparks.remove(i);
+            }
+        }
+    }
+
+    /** A SPARK animation event: a burst at the fighter's striking hand. */
+    public void sparkAt(Fighter fighter, int count) {
+        int handX = fighter.getX() + Fighter.SPRITE_SIZE / 2 + fighter.getDirection() * SPARK_HAND_REACH;
+        for (int i = 0; i < count; i++) {
+            activeSparks.add(new Spark(handX, fighter.getY() + SPARK_HAND_HEIGHT, sparkRandom));
+        }
+    }
+
+    // --- Drawing (virtual coordinates) ---
+
+    /** Sky, parallax layers and floor, from the stage's cached layer images. */
+    public void drawStage(Graphics2D g2) {
+        stageRenderer.draw(g2, camera, stageTick);
+    }
+
+    /**
+     * World layer: fighters, sparks and (in training) hit boxes follow the camera; off-screen
+     * ones are skipped. {@code training} may be null.
+     */
+    public void drawWorld(Graphics2D g2, Match match, TrainingMode training) {
+        camera.apply(g2);
+        for (int i = 0; i < match.getFighterCount(); i++) {
+            Fighter f = match.getFighter(i);
+            if (match.isEliminated(i)) continue;
+            if (!camera.isVisible(f.getX() - 5, f.getY() - 5, Fighter.SPRITE_SIZE + 10,
+                    Fighter.SPRITE_VERTICAL_OFFSET + Fighter.SPRITE_SIZE + 10)) continue;
+            f.draw(g2);
+        }
+
+        for (Spark s : activeSparks) {
+            if (camera.isVisible(s.getX(), s.getY(), s.getSize(), s.getSize())) s.draw(g2);
+        }
+
+        if (training != null) training.drawBoxes(g2);
+        camera.restore(g2);
+    }
+
+    /** One slot per fighter, plus the round clock; cached between changes. */
+    public void drawHud(Graphics2D g2, Match match, int secondsLeft) {
+        hud.draw(g2, match, secondsLeft);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * A motion command compiled into a tiny state machine that advances once per frame.
+ * Nothing ever rescans the input history: each recognizer keeps only its current step,
+ * a frame counter and (for charge moves) how long the charge has been held.
+ *
+ * Directions use numpad notation relative to facing (see {@link InputBuffer#numpadDirection}).
+ */
+public class MotionRecognizer {
+
+    private static final int SEQUENCE = 0, CHARGE = 1;
+
+    private final int kind;
+    private final int[] steps;        // Direction required at each step (SEQUENCE)
+    private final int chargeDirs;     // Bitset of numpad directions that count as charging (CHARGE)
+    private final int releaseDirs;    // Bitset of numpad directions that release the charge (CHARGE)
+    private final int chargeFrames;   // Frames the charge must be held (CHARGE)
+    private final int button;         // Button that completes the motion, 0 = completes on the last direction
+    private final int window;         // Max frames between steps / after the motion for the button
+
+    // --- Per-frame state ---
+    private int stage = 0;
+    private int framesSinceStep = 0;
+    private int heldCharge = 0;
+    private int lastDirection = 5;
+
+    private MotionRecognizer(int kind, int[] steps, int chargeDirs, int releaseDirs, int chargeFrames, int button, int window) {
+        this.kind = kind;
+        this.steps = steps;
+        this.chargeDirs = chargeDirs;
+        this.releaseDirs = releaseDirs;
+        this.chargeFrames = chargeFrames;
+        this.button = button;
+        this.window = window;
+    }
+
+    /** Directions entered in order (each within {@code window} frames), then optionally a button. */
+    public static MotionRecognizer sequence(int[] steps, int button, int window) {
+        return new MotionRecognizer(SEQUENCE, steps, 0, 0, 0, button, window);
+    }
+
+    /** Hold any of {@code chargeDirs} for {@code frames}, then any of {@code releaseDirs} plus the button. */
+    public static MotionRecognizer charge(int[] chargeDirs, int frames, int[] releaseDirs, int button, int window) {
+        return new MotionRecognizer(CHARGE, null, toSet(chargeDirs), toSet(releaseDirs), frames, button, window);
+    }
+
+    // --- Common Motions ---
+
+    /** Quarter-circle forward (2, 3, 6) + button. */
+    public static MotionRecognizer quarterCircleForward(int button) {
+        return sequence(new int[]{2, 3, 6}, button, 10);
+    }
+
+    /** Double-tap a direction (e.g. 6, 5, 6) within a short window. */
+    public static MotionRecognizer doubleTap(int direction) {
+        return sequence(new int[]{direction, 5, direction}, 0, 8);
+    }
+
+    /** Charge back (4, 1 or 7) for 30 frames, then forward + button. */
+    public static MotionRecognizer chargeBackForward(int button) {
+        return charge(new int[]{1, 4, 7}, 30, new int[]{3, 6, 9}, button, 10);
+    }
+
+    private static int toSet(int[] dirs) {
+        int set = 0;
+        for (int d : dirs) set |= 1 << d;
+        return set;
+    }
+
+    /**
+     * Advances the machine by one frame.
+     * @param direction Numpad direction this frame.
+     * @param pressed Buttons that went down this frame.
+     * @return True on the frame the motion completes.
+     */
+    public boolean advance(int direction, int pressed) {
+        boolean changed = direction != lastDirection;
+        lastDirection = direction;
+        return (kind == SEQUENCE) ? advanceSequence(direction, changed, pressed) : advanceCharge(direction, pressed);
+    }
+
+    private boolean advanceSequence(int direction, boolean changed, int pressed) {
+        framesSinceStep++;
+        if (stage > 0 && framesSinceStep > window) {
+            stage = 0;
+        }
+
+        // A new direction either advances the motion or restarts it
+        if (stage < steps.length && changed) {
+            if (direction == steps[stage]) {
+                stage++;
+                framesSinceStep = 0;
+            } else if (direction == steps[0]) {
+                stage = 1;
+                framesSinceStep = 0;
+            }
+        } else if (stage == 0 && direction == steps[0]) {
+            // Holding the first direction keeps the motion primed
+            stage = 1;
+            framesSinceStep = 0;
+        }
+
+        if (stage == steps.length && (button == 0 || (pressed & button) != 0)) {
+            stage = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean advanceCharge(int direction, int pressed) {
+        int dirBit = 1 << direction;
+
+        if ((chargeDirs & dirBit) != 0) {
+            heldCharge++;
+            if (heldCharge >= chargeFrames) {
+                stage = 1; // Charged: armed until the window after release runs out
+                framesSinceStep = 0;
+            }
+            return false;
+        }
+        heldCharge = 0;
+
+        if (stage == 1) {
+            framesSinceStep++;
+            if (framesSinceStep > window) {
+                stage = 0;
+                return false;
+            }
+            if ((releaseDirs & dirBit) != 0 && (pressed & button) != 0) {
+                stage = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Copies the per-frame state of a recognizer built for the same motion. */
+    public void copyFrom(MotionRecognizer other) {
+        stage = other.stage;
+        framesSinceStep = other.framesSinceStep;
+        heldCharge = other.heldCharge;
+        lastDirection = other.lastDirection;
+    }
+
+    /** Visits the per-frame state; {@code slot} tells a fighter's recognizers apart. */
+    public void visitState(Match.StateVisitor v, int slot) {
+        v.field("motion.stage", slot, stage);
+        v.field("motion.framesSinceStep", slot, framesSinceStep);
+        v.field("motion.heldCharge", slot, heldCharge);
+        v.field("motion.lastDirection", slot, lastDirection);
+    }
+
+    /** {@link #visitState}'s fields mixed straight into a checksum, in the same order. */
+    public long hashState(long h) {
+        h = StateChecksum.mix(h, stage);
+        h = StateChecksum.mix(h, framesSinceStep);
+        h = StateChecksum.mix(h, heldCharge);
+        return StateChecksum.mix(h, lastDirection);
+    }
+
+    public void reset() {
+        stage = 0;
+        framesSinceStep = 0;
+        heldCharge = 0;
+        lastDirection = 5;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * One player's live input, written by any number of {@link InputBackend}s (each on its own
+ * thread) and read by the simulation as an {@link InputBuffer} bitmask. Each backend keeps
+ * its own held buttons, so releasing a direction on the pad doesn't cancel the same
+ * direction still held on the keyboard.
+ *
+ * A press that is released again before a simulation step sees it still counts for one
+ * step: it stays latched until {@link #endStep}, so it lands in the input buffer.
+ * Presses also carry a {@link System#nanoTime} stamp for {@link LatencyProbe}.
+ */
+public final class PlayerInput {
+
+    public static final int KEYBOARD = 0;
+    public static final int GAMEPAD = 1;
+    private static final int SOURCES = 2;
+
+    private final int[] held = new int[SOURCES];
+    private int tapped = 0; // Pressed since the last step, even if already released
+    private long pressedAt = 0; // nanoTime of the oldest press no step has sampled yet (0 = none)
+
+    public void press(int source, int buttons) {
+        press(source, buttons, System.nanoTime());
+    }
+
+    /** Presses {@code buttons}; {@code when} is the nanoTime the press arrived. */
+    public synchronized void press(int source, int buttons, long when) {
+        if ((buttons & ~held[source]) != 0 && pressedAt == 0) pressedAt = when; // Key repeat isn't a new press
+        held[source] |= buttons;
+        tapped |= buttons;
+    }
+
+    public synchronized void release(int source, int buttons) {
+        held[source] &= ~buttons;
+    }
+
+    /** Releases {@code buttons} and forgets that they were pressed at all. */
+    public synchronized void cancel(int source, int buttons) {
+        held[source] &= ~buttons;
+        tapped &= ~buttons;
+    }
+
+    /** This step's mask: everything held on any source, plus presses the last step missed. */
+    public synchronized int sample() {
+        int mask = tapped;
+        for (int source = 0; source < SOURCES; source++) mask |= held[source];
+        return mask;
+    }
+
+    /** When the oldest press the last {@link #sample} picked up arrived (0 = none), and forgets it. */
+    public synchronized long takePressTime() {
+        long when = pressedAt;
+        pressedAt = 0;
+        return when;
+    }
+
+    /** A step has run (or a menu tick has passed): drops presses that have since been released. */
+    public synchronized void endStep() {
+        tapped = 0;
+        pressedAt = 0;
+    }
+
+    /** Forgets everything from {@code source} (device unplugged or closed). */
+    public synchronized void clear(int source) {
+        held[source] = 0;
+    }
+}
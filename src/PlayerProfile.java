@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+/**
+ * One player's record: wins, losses, draws, ELO rating and how often each character was picked.
+ * Immutable; a finished match produces a new profile through {@link #withResult}.
+ */
+public class PlayerProfile {
+
+    public static final int START_RATING = 1500;
+
+    public final String name;
+    public final int wins;
+    public final int losses;
+    public final int draws;
+    public final int rating;
+    private final int[] characterUses;
+
+    public PlayerProfile(String name, int wins, int losses, int draws, int rating, int[] characterUses) {
+        this.name = name;
+        this.wins = wins;
+        this.losses = losses;
+        this.draws = draws;
+        this.rating = rating;
+        this.characterUses = characterUses.clone();
+    }
+
+    /** A player who hasn't finished a match yet. */
+    public static PlayerProfile newPlayer(String name) {
+        return new PlayerProfile(name, 0, 0, 0, START_RATING, new int[0]);
+    }
+
+    /**
+     * The profile after one more match.
+     * @param score 1 for a win, 0 for a loss, 0.5 for a draw.
+     * @param ratingChange ELO change for this match (already rounded).
+     * @param character Index of the character played.
+     */
+    public PlayerProfile withResult(double score, int ratingChange, int character) {
+        int[] uses = Arrays.copyOf(characterUses, Math.max(characterUses.length, character + 1));
+        uses[character]++;
+        return new PlayerProfile(name,
+                wins + (score > 0.5 ? 1 : 0),
+                losses + (score < 0.5 ? 1 : 0),
+                draws + (score == 0.5 ? 1 : 0),
+                rating + ratingChange, uses);
+    }
+
+    public int matches() {
+        return wins + losses + draws;
+    }
+
+    /** Times the player picked character {@code index}. */
+    public int getCharacterUses(int index) {
+        return index < characterUses.length ? characterUses[index] : 0;
+    }
+
+    public int getCharacterCount() {
+        return characterUses.length;
+    }
+
+    /** The character picked most often, or -1 before the first match. */
+    public int favoriteCharacter() {
+        int best = -1;
+        for (int i = 0; i < characterUses.length; i++) {
+            if (characterUses[i] > 0 && (best < 0 || characterUses[i] > characterUses[best])) best = i;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,126 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A learned AI policy: the best action for each discretized match state, one byte per state.
+ * The state index is computed straight from both fighters (distance bucket plus nine flags),
+ * so a runtime lookup is a handful of comparisons and one array read.
+ * Tables are produced offline by {@link SelfPlayTrainer} and loaded by {@link AIOpponent}.
+ */
+public class PolicyTable {
+
+    // --- State Layout ---
+    private static final int[] DISTANCE_EDGES = {20, 50, 85, 120, 180, 250, 400}; // 8 buckets
+    public static final int DISTANCE_BUCKETS = DISTANCE_EDGES.length + 1;
+    public static final int FLAG_COUNT = 9;
+    public static final int STATE_COUNT = DISTANCE_BUCKETS << FLAG_COUNT;
+    private static final int THREAT_RANGE = 80;
+    private static final int CORNER_MARGIN = 60;
+
+    private static final int FLAG_THREAT = 1;
+    private static final int FLAG_ATTACK_READY = 1 << 1;
+    private static final int FLAG_SUPER_READY = 1 << 2;
+    private static final int FLAG_BLOCK_READY = 1 << 3;
+    private static final int FLAG_DASH_READY = 1 << 4;
+    private static final int FLAG_ON_GROUND = 1 << 5;
+    private static final int FLAG_TARGET_VULNERABLE = 1 << 6;
+    private static final int FLAG_TARGET_DOWN = 1 << 7;
+    private static final int FLAG_CORNERED = 1 << 8;
+
+    // --- File Format ---
+    private static final int MAGIC = 0x46475054; // "FGPT"
+    private static final int VERSION = 1;
+    private static final byte UNKNOWN = (byte) 0xFF; // State never visited during training
+
+    private final byte[] bestAction;
+
+    private PolicyTable(byte[] bestAction) {
+        this.bestAction = bestAction;
+    }
+
+    /** Discretized state for {@code self} facing {@code target}, in [0, STATE_COUNT). */
+    public static int stateIndex(Fighter self, Fighter target) {
+        int distance = Math.abs(target.getX() - self.getX());
+        int bucket = 0;
+        while (bucket < DISTANCE_EDGES.length && distance >= DISTANCE_EDGES[bucket]) bucket++;
+
+        boolean facingEachOther = target.getDirection() != self.getDirection();
+        int flags = 0;
+        if (target.isAttackActive() && distance < THREAT_RANGE && facingEachOther) flags |= FLAG_THREAT;
+        if (self.isAttackReady()) flags |= FLAG_ATTACK_READY;
+        if (self.getSuperMeter() >= Fighter.SUPER_ATTACK_COST) flags |= FLAG_SUPER_READY;
+        if (!self.isBlockOnCooldown()) flags |= FLAG_BLOCK_READY;
+        if (self.isDashReady()) flags |= FLAG_DASH_READY;
+        if (self.onGround()) flags |= FLAG_ON_GROUND;
+        if (!target.canAct() && !target.isKnockedDown()) flags |= FLAG_TARGET_VULNERABLE;
+        if (target.isKnockedDown()) flags |= FLAG_TARGET_DOWN;
+        if (isCornered(self, target)) flags |= FLAG_CORNERED;
+
+        return (bucket << FLAG_COUNT) | flags;
+    }
+
+    private static boolean isCornered(Fighter self, Fighter target) {
+        return (target.getX() >= self.getX()) ? self.getX() < CORNER_MARGIN : self.getX() > self.getMaxX() - CORNER_MARGIN;
+    }
+
+    /** Best action for the state, or -1 if training never saw it. */
+    public int lookup(int state) {
+        byte action = bestAction[state];
+        return action == UNKNOWN ? -1 : action;
+    }
+
+    /** Builds a table from Q-values ({@code q[state * actions + action]}); unvisited states stay unknown. */
+    public static PolicyTable fromQValues(float[] q, int[] visits, int actionCount) {
+        byte[] best = new byte[STATE_COUNT];
+        for (int s = 0; s < STATE_COUNT; s++) {
+            best[s] = UNKNOWN;
+            float bestValue = Float.NEGATIVE_INFINITY;
+            for (int a = 0; a < actionCount; a++) {
+                int i = s * actionCount + a;
+                if (visits[i] > 0 && q[i] > bestValue) {
+                    bestValue = q[i];
+                    best[s] = (byte) a;
+                }
+            }
+        }
+        return new PolicyTable(best);
+    }
+
+    /** Number of states with a learned action. */
+    public int knownStates() {
+        int count = 0;
+        for (byte b : bestAction) if (b != UNKNOWN) count++;
+        return count;
+    }
+
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(STATE_COUNT);
+            out.write(bestAction);
+        }
+    }
+
+    /** Loads a table from the classpath; returns null (with a warning) if it is missing or stale. */
+    public static PolicyTable load(String resource) {
+        try (InputStream is = PolicyTable.class.getResourceAsStream(resource)) {
+            if (is == null) throw new IOException("Resource not found: " + resource);
+
+            DataInputStream in = new DataInputStream(is);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != STATE_COUNT) {
+                throw new IOException("Policy file has the wrong format or state layout");
+            }
+            byte[] best = new byte[STATE_COUNT];
+            in.readFully(best);
+            return new PolicyTable(best);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not load AI policy " + resource + ". Using utility scoring. Error: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded player profile store for kiosks: no database, just one file.
+ *
+ * Every update appends the player's whole new profile to an append-only log, so a crash can
+ * at worst lose the record being written (detected by its checksum and cut off on the next
+ * load). In memory, a hash index maps each name to its latest profile, and a sorted set
+ * ordered by rating answers top-N leaderboard queries without scanning every player. Once
+ * most of the log is superseded records, the live profiles are rewritten to a fresh file,
+ * which then replaces the old one in a single rename.
+ *
+ * The index is updated at once; the log is written by a background thread, one append and
+ * one sync per match, so recording a match never waits on the disk.
+ *
+ * Record layout: int payload length, int CRC32 of the payload, then the payload
+ * (name as UTF, wins, losses, draws, rating, character count, one int per character).
+ */
+public class ProfileStore {
+
+    public static final String DEFAULT_PATH = "profiles/profiles.log";
+
+    private static final int ELO_K = 32;
+    private static final int MAX_RECORD_BYTES = 4096;
+    // Compact once the log holds this many times more records than players (and isn't tiny)
+    private static final int COMPACT_RATIO = 4;
+    private static final int COMPACT_MIN_RECORDS = 256;
+
+    private static final Comparator<PlayerProfile> BY_RATING =
+            Comparator.comparingInt((PlayerProfile p) -> -p.rating).thenComparing(p -> p.name);
+
+    private final Path path;
+    private final Map<String, PlayerProfile> index = new HashMap<>();
+    private final TreeSet<PlayerProfile> ranking = new TreeSet<>(BY_RATING);
+    private FileChannel log;    // After the constructor, only the writer thread touches the log
+    private int logRecords = 0;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "profile-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Opens (or creates) the store. If the file can't be opened, profiles are kept in memory only. */
+    public ProfileStore(String file) {
+        this.path = new File(file).toPath();
+        try {
+            File parent = path.toFile().getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Cannot create " + parent);
+            }
+            log = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            load();
+            if (needsCompaction()) compact();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not open player profiles. Records won't be saved. Error: " + e.getMessage());
+            closeLog();
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close)); // The menus quit through System.exit
+    }
+
+    // --- Queries ---
+
+    /** The player's profile, or a fresh one if the name hasn't played yet. */
+    public synchronized PlayerProfile get(String name) {
+        PlayerProfile profile = index.get(name);
+        return (profile != null) ? profile : PlayerProfile.newPlayer(name);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /** The {@code n} highest rated players, best first. */
+    public synchronized List<PlayerProfile> top(int n) {
+        List<PlayerProfile> top = new ArrayList<>(Math.min(n, ranking.size()));
+        Iterator<PlayerProfile> it = ranking.iterator();
+        while (top.size() < n && it.hasNext()) top.add(it.next());
+        return top;
+    }
+
+    // --- Updates ---
+
+    /**
+     * Records a finished match. Each fighter is rated against the average rating of the
+     * fighters on other teams, with every change computed from the ratings before the match.
+     * A name on several fighters of one team is rated once (with its first fighter's
+     * character); a name on more than one team (two CPUs of one difficulty in free-for-all,
+     * or two players with the same initials on opposite sides) isn't rated at all.
+     * @param names Profile name per fighter.
+     * @param teams Team id per fighter.
+     * @param characters Character index per fighter.
+     * @param winnerTeam Winning team, or -1 for a draw.
+     */
+    public synchronized void recordMatch(String[] names, int[] teams, int[] characters, int winnerTeam) {
+        PlayerProfile[] before = new PlayerProfile[names.length];
+        for (int i = 0; i < names.length; i++) before[i] = get(names[i]);
+
+        List<PlayerProfile> after = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            if (!ratedAt(names, teams, i)) continue;
+            double opponentRating = 0;
+            int opponents = 0;
+            for (int j = 0; j < names.length; j++) {
+                if (teams[j] == teams[i]) continue;
+                opponentRating += before[j].rating;
+                opponents++;
+            }
+            if (opponents == 0) continue;
+
+            double score = (winnerTeam < 0) ? 0.5 : (teams[i] == winnerTeam ? 1 : 0);
+            double expected = 1.0 / (1.0 + Math.pow(10, (opponentRating / opponents - before[i].rating) / 400.0));
+            int change = (int) Math.round(ELO_K * (score - expected));
+            after.add(before[i].withResult(score, change, characters[i]));
+        }
+        if (after.isEmpty()) return;
+
+        for (PlayerProfile profile : after) {
+            PlayerProfile old = index.put(profile.name, profile);
+            if (old != null) ranking.remove(old);
+            ranking.add(profile);
+        }
+        try {
+            writer.execute(() -> append(after));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Warning: Player profiles are closed. This match won't be saved.");
+        }
+    }
+
+    /** True if fighter {@code i} is the first under its name and the name plays for one team only. */
+    private static boolean ratedAt(String[] names, int[] teams, int i) {
+        for (int j = 0; j < names.length; j++) {
+            if (j == i || !names[j].equals(names[i])) continue;
+            if (teams[j] != teams[i] || j < i) return false;
+        }
+        return true;
+    }
+
+    /** Writer thread: appends one match's profiles with a single sync, then compacts if due. */
+    private void append(List<PlayerProfile> profiles) {
+        if (log == null) return;
+        try {
+            log.position(log.size());
+            for (PlayerProfile profile : profiles) {
+                ByteBuffer record = encode(profile);
+                while (record.hasRemaining()) log.write(record);
+            }
+            log.force(false); // A kiosk can lose power at any moment
+            logRecords += profiles.size();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not save player profiles. Error: " + e.getMessage());
+        }
+        if (needsCompaction()) {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.err.println("Warning: Profile compaction failed. Keeping the current log. Error: " + e.getMessage());
+            }
+        }
+    }
+
+    // --- Log Format ---
+
+    private static ByteBuffer encode(PlayerProfile profile) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(profile.name);
+        out.writeInt(profile.wins);
+        out.writeInt(profile.losses);
+        out.writeInt(profile.draws);
+        out.writeInt(profile.rating);
+        out.writeInt(profile.getCharacterCount());
+        for (int i = 0; i < profile.getCharacterCount(); i++) out.writeInt(profile.getCharacterUses(i));
+        byte[] payload = bytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return record;
+    }
+
+    private static PlayerProfile decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String name = in.readUTF();
+        int wins = in.readInt();
+        int losses = in.readInt();
+        int draws = in.readInt();
+        int rating = in.readInt();
+        int[] uses = new int[in.readInt()];
+        for (int i = 0; i < uses.length; i++) uses[i] = in.readInt();
+        return new PlayerProfile(name, wins, losses, draws, rating, uses);
+    }
+
+    /** Replays the log into the index; a torn or corrupt tail is cut off. */
+    private void load() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        long position = 0;
+        long size = log.size();
+
+        while (position + 8 <= size) {
+            header.clear();
+            if (readFully(header, position) < 8) break;
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || position + 8 + length > size) break;
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            if (readFully(payload, position + 8) < length) break;
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) break;
+
+            PlayerProfile profile;
+            try {
+                profile = decode(payload.array());
+            } catch (IOException e) {
+                break; // Checksum matched but the layout doesn't: treat it like a torn record
+            }
+            PlayerProfile old = index.put(profile.name, profile);
+            if (old != null) ranking.remove(old);
+            ranking.add(profile);
+            logRecords++;
+            position += 8 + length;
+        }
+
+        if (position < size) {
+            System.err.println("Warning: Dropping " + (size - position) + " unreadable bytes at the end of " + path);
+            log.truncate(position);
+        }
+    }
+
+    private int readFully(ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = log.read(buffer, position + total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    // --- Compaction ---
+
+    private boolean needsCompaction() {
+        return log != null && logRecords >= COMPACT_MIN_RECORDS && logRecords > size() * COMPACT_RATIO;
+    }
+
+    /**
+     * Writes one record per player to a new file and swaps it in for the log. The profiles are
+     * the index as of now, so they may include matches still queued; those records just repeat.
+     */
+    private void compact() throws IOException {
+        List<PlayerProfile> live;
+        synchronized (this) {
+            live = new ArrayList<>(index.values());
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (PlayerProfile profile : live) {
+                ByteBuffer record = encode(profile);
+                while (record.hasRemaining()) out.write(record);
+            }
+            out.force(true);
+        }
+
+        closeLog();
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            log = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        logRecords = live.size();
+    }
+
+    /** Writes the queued matches, then closes the log. */
+    public void close() {
+        try {
+            writer.execute(this::closeLog);
+        } catch (RejectedExecutionException e) {
+            return; // Already closed
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeLog() {
+        if (log == null) return;
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not close player profiles. Error: " + e.getMessage());
+        }
+        log = null;
+    }
+}
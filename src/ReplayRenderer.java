@@ -0,0 +1,189 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Turns a recorded match into a PNG sequence without a display, faster than real time.
+ *
+ * The inputs come from a {@link DesyncCheck} log: each frame's recorded inputs drive the same
+ * round flow, and the replayed state is checked against the log as it goes, so the video can't
+ * silently drift from what was recorded. Each frame is drawn through {@link MatchView}, like
+ * the game draws it, into an offscreen image. Simulation and drawing are serial, but PNG
+ * encoding (most of the cost) is spread over a thread pool: frames are drawn in batches, and
+ * while one batch encodes the next is drawn into a second set of images. Files are numbered
+ * by frame, so the output order never depends on which thread finished first.
+ *
+ * Usage: java -Djava.awt.headless=true ReplayRenderer <log> <outDir> [threads=cores] [scale=1] [stage=0]
+ *   e.g. then: ffmpeg -framerate 60 -i outDir/frame-%06d.png match.mp4
+ */
+public class ReplayRenderer {
+
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 500;
+    private static final int FPS = 60;
+    private static final int STOCKS = 3;
+    private static final int FRAMES_PER_THREAD = 4; // Batch size per encoder thread
+    private static final float PNG_QUALITY = 0.75f; // Lighter deflate than the default; files a little larger, much faster
+    private static final Color[] COLORS = {Color.BLUE, Color.RED}; // Player 1 and 2's default characters
+
+    // Each encoder thread keeps one PNG writer; ImageWriters aren't thread-safe
+    private static final ThreadLocal<ImageWriter> PNG_WRITER = ThreadLocal.withInitial(() -> {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("png");
+        if (!writers.hasNext()) throw new IllegalStateException("No PNG writer");
+        return writers.next();
+    });
+
+    /** Compares the replayed match and round state with the log's fields, which come first in the same order. */
+    private static class Checker implements Match.StateVisitor {
+        int[] expected;
+        int index;
+        int mismatch = -1;
+
+        @Override
+        public void field(String name, int slot, int value) {
+            if (mismatch < 0 && expected[index] != value) mismatch = index;
+            index++;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java -Djava.awt.headless=true ReplayRenderer <log> <outDir> [threads] [scale] [stage]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int scale = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int stageIndex = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        File outDir = new File(args[1]);
+        if (!outDir.isDirectory() && !outDir.mkdirs()) throw new IOException("Cannot create " + outDir);
+
+        long start = System.nanoTime();
+        int frames = render(args[0], outDir, Math.max(1, threads), Math.max(1, scale), stageIndex);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Rendered %d frames (%.1f s of match) to %s in %.1f s: %.0f frames/s, %.1fx real time%n",
+                frames, frames / (double) FPS, outDir, seconds, frames / seconds, frames / (double) FPS / seconds);
+    }
+
+    private static int render(String logFile, File outDir, int threads, int scale, int stageIndex) throws Exception {
+        Stage[] stages = Stage.loadAll(new Stage[] {new Stage("Plain", new Color(135, 206, 235), new Color(240, 240, 240))});
+        Stage stage = stages[Math.min(stageIndex, stages.length - 1)];
+        List<FighterSprites> sprites = FighterSprites.loadAll(COLORS.length);
+
+        ExecutorService encoders = Executors.newFixedThreadPool(threads);
+        int batch = threads * FRAMES_PER_THREAD;
+        BufferedImage[][] images = new BufferedImage[2][batch]; // One set drawing while the other encodes
+        for (BufferedImage[] set : images) {
+            for (int i = 0; i < batch; i++) set[i] = new BufferedImage(WIDTH * scale, HEIGHT * scale, BufferedImage.TYPE_INT_RGB);
+        }
+        List<List<Future<?>>> pending = new ArrayList<>();
+        pending.add(new ArrayList<>());
+        pending.add(new ArrayList<>());
+
+        int frames = 0;
+        try (DesyncCheck.LogReader log = new DesyncCheck.LogReader(logFile)) {
+            int[] inputFields = {log.field("fighter 0.input"), log.field("fighter 1.input")};
+            if (inputFields[0] < 0 || inputFields[1] < 0) throw new IOException("Log has no recorded inputs: " + logFile);
+
+            MatchView view = new MatchView(WIDTH, HEIGHT, STOCKS);
+            Fighter[] fighters = DesyncCheck.Run.newFighters(sprites.toArray(new FighterSprites[0]), COLORS);
+            for (Fighter fighter : fighters) {
+                fighter.setAnimationListener((f, event) -> {
+                    if (event.type == AnimationClip.Event.SPARK) view.sparkAt(f, event.sparkCount);
+                });
+            }
+            DesyncCheck.Run run = new DesyncCheck.Run(log.seed, log.cpu1, log.cpu2, fighters);
+            view.begin(run.match, stage, Fighter.DEFAULT_WORLD_WIDTH, COLORS, true); // Logs are recorded in the default world
+            Checker checker = new Checker();
+            checker.expected = log.values;
+            int[] inputs = new int[2];
+
+            int set = 0, slot = 0;
+            while (log.next()) {
+                // --- Simulate, in GamePanel's order ---
+                inputs[0] = log.values[inputFields[0]];
+                inputs[1] = log.values[inputFields[1]];
+                view.tick();
+                view.updateSparks();
+                if (!run.step(inputs)) break;
+                if (run.roundEnded) view.resetCamera(run.match);
+                else view.updateCamera(run.match);
+                frames++;
+
+                checker.index = 0;
+                StateChecksum.visitFrame(checker, run.match, run.roundTimeRemaining, null);
+                if (checker.mismatch >= 0) {
+                    throw new IllegalStateException("Replay diverged from the log at frame " + frames
+                            + " (" + log.labels.get(checker.mismatch) + ")");
+                }
+
+                // --- Draw ---
+                if (slot == 0) awaitAll(pending.get(set)); // The encoders are done with this set's images
+                BufferedImage image = images[set][slot];
+                Graphics2D g2 = image.createGraphics();
+                g2.scale(scale, scale);
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                view.drawStage(g2);
+                view.drawWorld(g2, run.match, null);
+                view.drawHud(g2, run.match, run.roundTimeRemaining / FPS);
+                g2.dispose();
+
+                // --- Encode on the pool ---
+                File file = new File(outDir, String.format("frame-%06d.png", frames));
+                pending.get(set).add(encoders.submit(() -> {
+                    writePng(image, file);
+                    return null;
+                }));
+                if (++slot == batch) {
+                    slot = 0;
+                    set ^= 1;
+                }
+            }
+            awaitAll(pending.get(0));
+            awaitAll(pending.get(1));
+        } finally {
+            encoders.shutdownNow();
+        }
+        return frames;
+    }
+
+    /** Waits for a batch's encodes in frame order; rethrows the first failure. */
+    private static void awaitAll(List<Future<?>> batch) throws IOException, InterruptedException {
+        try {
+            for (Future<?> encode : batch) encode.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Could not write a frame: " + e.getCause().getMessage(), e.getCause());
+        }
+        batch.clear();
+    }
+
+    private static void writePng(BufferedImage image, File file) throws IOException {
+        ImageWriter writer = PNG_WRITER.get();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(PNG_QUALITY);
+        }
+        file.delete(); // FileImageOutputStream doesn't truncate
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.setOutput(null);
+        }
+    }
+}
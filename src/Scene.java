@@ -0,0 +1,25 @@
+import java.awt.Graphics2D;
+
+/**
+ * One screen of the game: a menu, a match, the pause overlay. {@link GamePanel} keeps its
+ * scenes on a stack and only the top one is live. It alone gets the tick, draws the frame
+ * and takes the keys. Scenes underneath are suspended, not just hidden: a match under the
+ * pause menu doesn't step, and a match the menus replaced is gone from the stack.
+ */
+public interface Scene {
+
+    /** One tick of logic; during a match, one simulation step. Menus have nothing to tick. */
+    default void update() {
+    }
+
+    /** Draws the whole frame in virtual coordinates. */
+    void render(Graphics2D g2);
+
+    /** A key press the panel's own keys (F8 to F12, Insert) didn't take. */
+    void keyPressed(int keyCode);
+
+    /** True while a match is running: the simulation clock and speed keys apply. */
+    default boolean isSimulating() {
+        return false;
+    }
+}
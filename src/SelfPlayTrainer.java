@@ -0,0 +1,291 @@
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Offline self-play trainer for the AI opponent.
+ * Runs headless Fighter vs Fighter rounds on every core, learns a tabular Q-function over
+ * {@link PolicyTable} states with plain Q-learning, and exports the greedy policy as a
+ * compact table that {@link AIOpponent} loads at runtime (one array read per decision).
+ *
+ * Each epoch every worker starts from the shared Q-table, plays its own rounds (half against
+ * itself, half against the utility AI for grounding), and the tables are merged back by
+ * visit-weighted averaging. Exploration decays linearly over the time budget.
+ *
+ * Usage: java SelfPlayTrainer [seconds=60] [output=src/assets/ai_policy.bin] [seed=1]
+ */
+public class SelfPlayTrainer {
+
+    // --- Training Constants ---
+    private static final int GROUND_Y = 400;
+    private static final int STATE_COUNT = PolicyTable.STATE_COUNT;
+    private static final int ACTIONS = AIOpponent.ACTION_COUNT;
+    private static final int DECISION_FRAMES = 3;          // Learner re-decides every 3 frames (20 Hz)
+    private static final int ROUND_FRAME_LIMIT = 90 * 60;  // Same as a real round
+    private static final int FRAMES_PER_EPOCH = 2_000_000; // Per worker
+    private static final float ALPHA = 0.1f;
+    private static final float GAMMA = 0.95f;
+    private static final double EPSILON_START = 0.30;
+    private static final double EPSILON_END = 0.05;
+    private static final float KO_REWARD = 50f;
+    private static final float METER_REWARD = 0.25f;
+    private static final double UTILITY_OPPONENT_SHARE = 0.5;
+    private static final int EVAL_ROUNDS = 200;
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException, IOException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+        Path output = Paths.get(args.length > 1 ? args[1] : "src/assets/ai_policy.bin");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        float[] q = new float[STATE_COUNT * ACTIONS];
+        int[] visits = new int[STATE_COUNT * ACTIONS];
+        List<AIProfile> opponents = utilityProfiles();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        long totalFrames = 0;
+        int epoch = 0;
+
+        System.out.printf("Training on %d threads for %d s...%n", threads, seconds);
+        while (System.nanoTime() < deadline) {
+            double progress = Math.min(1.0, (System.nanoTime() - start) / (double) (deadline - start));
+            double epsilon = EPSILON_START + (EPSILON_END - EPSILON_START) * progress;
+
+            List<Future<Worker>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Worker worker = new Worker(q, seed * 1_000_003L + epoch * 1_009L + t, epsilon, opponents);
+                futures.add(pool.submit(() -> { worker.run(FRAMES_PER_EPOCH); return worker; }));
+            }
+
+            List<Worker> results = new ArrayList<>();
+            for (Future<Worker> f : futures) results.add(f.get());
+            merge(q, visits, results);
+
+            totalFrames += (long) threads * FRAMES_PER_EPOCH;
+            epoch++;
+            if (epoch % 10 == 0) {
+                double minutes = (System.nanoTime() - start) / 60e9;
+                System.out.printf("epoch %d: eps %.2f, %.1f M frames/min%n", epoch, epsilon, totalFrames / 1e6 / minutes);
+            }
+        }
+        pool.shutdown();
+
+        PolicyTable table = PolicyTable.fromQValues(q, visits, ACTIONS);
+        table.save(output);
+        System.out.printf("Saved %s (%d of %d states learned) after %d M frames%n",
+                output, table.knownStates(), STATE_COUNT, totalFrames / 1_000_000);
+
+        for (AIProfile opponent : opponents) {
+            System.out.printf("Greedy policy vs %s: %.0f%% rounds won%n", opponent.name, 100 * evaluate(q, opponent, seed));
+        }
+    }
+
+    /** The shipped utility profiles with lookahead stripped, so training stays single-threaded per worker. */
+    private static List<AIProfile> utilityProfiles() {
+        List<AIProfile> profiles = new ArrayList<>();
+        for (AIProfile p : AIProfile.loadAll()) {
+            if (p.policyResource != null) continue; // Don't train against an older copy of ourselves
+            profiles.add(new AIProfile(p.name, p.reactionFrames, p.errorRate, p.aggression, 0, null));
+        }
+        return profiles;
+    }
+
+    /** Visit-weighted average of each worker's Q-values for this epoch. */
+    private static void merge(float[] q, int[] visits, List<Worker> workers) {
+        for (int i = 0; i < q.length; i++) {
+            double weighted = 0;
+            int count = 0;
+            for (Worker w : workers) {
+                weighted += (double) w.q[i] * w.visits[i];
+                count += w.visits[i];
+            }
+            if (count > 0) {
+                q[i] = (float) (weighted / count);
+                visits[i] += count;
+            }
+        }
+    }
+
+    /** Win rate of the greedy policy (no exploration, no learning) against a utility AI. */
+    private static double evaluate(float[] q, AIProfile opponentProfile, long seed) {
+        Worker worker = new Worker(q, seed, 0.0, null);
+        AIOpponent opponent = new AIOpponent(opponentProfile, seed);
+        int wins = 0;
+        for (int round = 0; round < EVAL_ROUNDS; round++) {
+            if (worker.playRound(opponent, false) > 0) wins++;
+        }
+        return wins / (double) EVAL_ROUNDS;
+    }
+
+    private static Fighter newFighter(int x) {
+        return new Fighter(x, GROUND_Y, Color.GRAY,
+                null, null, null, null, null, null);
+    }
+
+    // --- Worker: one thread's private copy of the table plus its own match ---
+
+    private static class Worker {
+        final float[] q;
+        final int[] visits = new int[STATE_COUNT * ACTIONS];
+        final SplittableRandom random;
+        final double epsilon;
+        final List<AIProfile> opponents;
+
+        final Fighter f0 = newFighter(Match.startPositions(2)[0]);
+        final Fighter f1 = newFighter(Match.startPositions(2)[1]);
+        final Match match = new Match(new Fighter[]{f0, f1}, new int[]{0, 1}, Integer.MAX_VALUE);
+        final Agent learner = new Agent();
+        final Agent mirror = new Agent();
+        final boolean[] legal = new boolean[ACTIONS];
+        long frames = 0;
+
+        Worker(float[] sharedQ, long seed, double epsilon, List<AIProfile> opponents) {
+            this.q = sharedQ.clone();
+            this.random = new SplittableRandom(seed);
+            this.epsilon = epsilon;
+            this.opponents = opponents;
+        }
+
+        void run(long frameBudget) {
+            while (frames < frameBudget) {
+                AIOpponent utility = null;
+                if (random.nextDouble() < UTILITY_OPPONENT_SHARE) {
+                    utility = new AIOpponent(opponents.get(random.nextInt(opponents.size())), random.nextLong());
+                }
+                playRound(utility, true);
+            }
+        }
+
+        /**
+         * Plays one round with the learner as fighter 0. The opponent is the utility AI if given,
+         * otherwise a second learner sharing the same table (self-play).
+         * @return +1 if the learner won, -1 if it lost, 0 on time out.
+         */
+        int playRound(AIOpponent utility, boolean learn) {
+            match.resetRound(GROUND_Y);
+            learner.reset();
+            mirror.reset();
+
+            for (int frame = 0; frame < ROUND_FRAME_LIMIT; frame++) {
+                match.setInput(0, learner.act(f0, f1, this, learn));
+                match.setInput(1, utility != null ? utility.decide(f1, f0) : mirror.act(f1, f0, this, learn));
+
+                int h0 = f0.getHealth(), h1 = f1.getHealth();
+                float m0 = f0.getSuperMeter(), m1 = f1.getSuperMeter();
+                match.step();
+                frames++;
+
+                learner.reward += (h1 - f1.getHealth()) - (h0 - f0.getHealth()) + METER_REWARD * (f0.getSuperMeter() - m0);
+                mirror.reward += (h0 - f0.getHealth()) - (h1 - f1.getHealth()) + METER_REWARD * (f1.getSuperMeter() - m1);
+
+                if (f0.getHealth() <= 0 || f1.getHealth() <= 0) {
+                    int outcome = Integer.compare(f0.getHealth(), f1.getHealth());
+                    if (learn) {
+                        learner.finish(this, outcome * KO_REWARD);
+                        if (utility == null) mirror.finish(this, -outcome * KO_REWARD);
+                    }
+                    return outcome;
+                }
+            }
+            if (learn) {
+                learner.finish(this, 0f);
+                if (utility == null) mirror.finish(this, 0f);
+            }
+            return 0;
+        }
+
+        int greedy(int state) {
+            int base = state * ACTIONS;
+            int best = AIOpponent.A_IDLE;
+            float bestValue = Float.NEGATIVE_INFINITY;
+            for (int a = 0; a < ACTIONS; a++) {
+                if (legal[a] && q[base + a] > bestValue) {
+                    bestValue = q[base + a];
+                    best = a;
+                }
+            }
+            return best;
+        }
+
+        float maxLegal(int state) {
+            return q[state * ACTIONS + greedy(state)];
+        }
+    }
+
+    // --- Agent: Q-learning bookkeeping for one fighter ---
+
+    private static class Agent {
+        int prevState = -1;
+        int prevAction;
+        float reward;
+        int action = AIOpponent.A_IDLE;
+        int framesUntilDecision = 0;
+        int framesIntoAction = 0;
+
+        void reset() {
+            prevState = -1;
+            reward = 0f;
+            action = AIOpponent.A_IDLE;
+            framesUntilDecision = 0;
+            framesIntoAction = 0;
+        }
+
+        /** Chooses this frame's input; on decision frames also applies the Q-learning update. */
+        int act(Fighter self, Fighter target, Worker w, boolean learn) {
+            if (!self.canAct()) {
+                framesUntilDecision = 0;
+                return 0; // Reward keeps accumulating until the next real decision
+            }
+
+            if (framesUntilDecision == 0) {
+                int state = PolicyTable.stateIndex(self, target);
+                AIOpponent.markLegalActions(self, target, w.legal);
+
+                if (learn && prevState >= 0) {
+                    update(w, reward + GAMMA * w.maxLegal(state));
+                }
+
+                if (w.random.nextDouble() < w.epsilon) {
+                    do {
+                        action = w.random.nextInt(ACTIONS);
+                    } while (!w.legal[action]);
+                } else {
+                    action = w.greedy(state);
+                }
+
+                prevState = state;
+                prevAction = action;
+                reward = 0f;
+                framesUntilDecision = DECISION_FRAMES;
+                framesIntoAction = 0;
+            }
+
+            framesUntilDecision--;
+            return AIOpponent.actionInput(action, framesIntoAction++, self, target);
+        }
+
+        /** Terminal update at the end of a round (no bootstrap). */
+        void finish(Worker w, float terminalReward) {
+            if (prevState >= 0) {
+                update(w, reward + terminalReward);
+            }
+            prevState = -1;
+        }
+
+        private void update(Worker w, float target) {
+            int i = prevState * ACTIONS + prevAction;
+            w.q[i] += ALPHA * (target - w.q[i]);
+            w.visits[i]++;
+        }
+    }
+}
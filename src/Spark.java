@@ -1,28 +1,43 @@
 import java.awt.Color;
 import java.awt.Graphics;
-import java.lang.Math;
+import java.util.SplittableRandom;
 
 public class Spark {
-    private int x, y;
-    private float velX, velY;
+    private int x, y;         // Fixed-point subpixels (see FixedPoint)
+    private int velX, velY;
     private final int size;
     private int life;
     private final Color color;
 
     private static final int MAX_LIFE = 10; // Frames the spark lasts
+    private static final int MIN_SPEED = FixedPoint.of(3);
+    private static final int SPEED_RANGE = FixedPoint.of(4); // INCREASED MAX SPEED for wider spread
+    private static final int GRAVITY = FixedPoint.ratio(3, 10);
 
-    public Spark(int x, int y) {
-        this.x = x;
-        this.y = y;
+    // Unit vectors for the burst directions, built once with StrictMath so every JVM agrees
+    private static final int DIRECTIONS = 64;
+    private static final int[] DIRECTION_X = new int[DIRECTIONS];
+    private static final int[] DIRECTION_Y = new int[DIRECTIONS];
+    static {
+        for (int i = 0; i < DIRECTIONS; i++) {
+            double angle = 2 * StrictMath.PI * i / DIRECTIONS;
+            DIRECTION_X[i] = (int) StrictMath.round(StrictMath.cos(angle) * FixedPoint.ONE);
+            DIRECTION_Y[i] = (int) StrictMath.round(StrictMath.sin(angle) * FixedPoint.ONE);
+        }
+    }
+
+    /** A spark shooting out of (x, y) in a direction and speed drawn from {@code random}. */
+    public Spark(int x, int y, SplittableRandom random) {
+        this.x = FixedPoint.of(x);
+        this.y = FixedPoint.of(y);
         this.life = MAX_LIFE;
         this.size = 3; // INCREASED SIZE for better visibility
 
         // Random velocity to shoot sparks outward
-        double angle = Math.random() * 2 * Math.PI;
-        double speed = 3 + Math.random() * 4; // INCREASED MAX SPEED for wider spread
-
-        this.velX = (float) (Math.cos(angle) * speed);
-        this.velY = (float) (Math.sin(angle) * speed);
+        int direction = random.nextInt(DIRECTIONS);
+        int speed = MIN_SPEED + random.nextInt(SPEED_RANGE);
+        this.velX = FixedPoint.mul(DIRECTION_X[direction], speed);
+        this.velY = FixedPoint.mul(DIRECTION_Y[direction], speed);
 
         // Color is now WHITE for maximum visibility
         this.color = Color.WHITE;
@@ -33,11 +48,15 @@ public class Spark {
             x += velX;
             y += velY;
             // Simple gravity effect
-            velY += 0.3;
+            velY += GRAVITY;
             life--;
         }
     }
 
+    public int getX() { return FixedPoint.toInt(x); }
+    public int getY() { return FixedPoint.toInt(y); }
+    public int getSize() { return size; }
+
     public boolean isAlive() {
         return life > 0;
     }
@@ -49,6 +68,6 @@ public class Spark {
         Color drawColor = new Color(color.getRed(), color.getGreen(), color.getBlue(), (int)(255 * alpha));
 
         g.setColor(drawColor);
-        g.fillRect(x, y, size, size);
+        g.fillRect(getX(), getY(), size, size);
     }
-}
\ No newline at end of file
+}
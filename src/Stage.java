@@ -0,0 +1,281 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import javax.imageio.ImageIO;
+
+/**
+ * A fight stage: a sky gradient and a stack of layers drawn back to front, loaded from
+ * {@code /assets/stages.properties}. A layer is either a tile map (rows of legend characters
+ * looked up in a shared tile sheet; legend entries can cycle through several tiles) or one
+ * image repeated across the screen. Layers scroll at their own parallax factor and can drift
+ * on their own. Drawing is done by {@link StageRenderer}.
+ */
+public class Stage {
+
+    private static final String STAGE_RESOURCE = "/assets/stages.properties";
+    private static final char EMPTY_CELL = '.';
+    private static final int DEFAULT_TILE_SIZE = 20;
+
+    /** One layer. Tile maps store a legend index per cell (-1 = empty); image layers repeat {@link #image}. */
+    public static class Layer {
+        public final String id;
+        public final int y;
+        public final float parallax; // 0 = fixed to the screen, 1 = moves with the fighters
+        public final float drift;    // Pixels per step the layer scrolls by itself
+        public final int[][] cells;  // [row][column], null for image layers
+        public final BufferedImage image;
+        public final int imageWidth, imageHeight;
+        public final boolean fill;   // Image layers: repeat down to the bottom of the screen
+        public final Color color;    // Solid fill from y to the bottom in place of a missing image (may be null)
+
+        Layer(String id, int y, float parallax, float drift, int[][] cells, BufferedImage image,
+              int imageWidth, int imageHeight, boolean fill, Color color) {
+            this.id = id;
+            this.y = y;
+            this.parallax = parallax;
+            this.drift = drift;
+            this.cells = cells;
+            this.image = image;
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+            this.fill = fill;
+            this.color = color;
+        }
+
+        /** Width after which the layer repeats. */
+        public int period(int tileSize) {
+            if (cells == null) return imageWidth;
+            int columns = 1;
+            for (int[] row : cells) columns = Math.max(columns, row.length);
+            return columns * tileSize;
+        }
+
+        public int height(int tileSize, int screenHeight) {
+            if (color != null || (cells == null && fill)) return screenHeight - y;
+            return (cells == null) ? imageHeight : cells.length * tileSize;
+        }
+    }
+
+    public final String name;
+    public final int worldWidth; // Fighters can roam this far; the camera scrolls when it's wider than the screen
+    public final Color skyTop;
+    public final Color skyBottom;
+    public final List<Layer> layers;
+    public final int tileSize;
+    private final BufferedImage[] tiles;   // Tile sheet, sliced
+    private final int[][] legendTiles;     // [legend index] -> tile frames
+    private final int[] legendSteps;       // [legend index] -> steps per frame
+
+    Stage(String name, int worldWidth, Color skyTop, Color skyBottom, List<Layer> layers, int tileSize,
+          BufferedImage[] tiles, int[][] legendTiles, int[] legendSteps) {
+        this.name = name;
+        this.worldWidth = worldWidth;
+        this.skyTop = skyTop;
+        this.skyBottom = skyBottom;
+        this.layers = Collections.unmodifiableList(layers);
+        this.tileSize = tileSize;
+        this.tiles = tiles;
+        this.legendTiles = legendTiles;
+        this.legendSteps = legendSteps;
+    }
+
+    /** A plain gradient stage (the fallback when the stage file can't be read). */
+    public Stage(String name, Color skyTop, Color skyBottom) {
+        this(name, Fighter.DEFAULT_WORLD_WIDTH, skyTop, skyBottom, new ArrayList<>(), 1, new BufferedImage[0], new int[0][], new int[0]);
+    }
+
+    // --- Tiles ---
+
+    /** True if legend entry {@code legend} cycles through more than one tile. */
+    public boolean isAnimated(int legend) {
+        return legendTiles[legend].length > 1;
+    }
+
+    /** The tile shown for legend entry {@code legend} at animation step {@code tick}, or null. */
+    public BufferedImage tile(int legend, int tick) {
+        int[] frames = legendTiles[legend];
+        int tile = frames[(tick / legendSteps[legend]) % frames.length];
+        return (tile >= 0 && tile < tiles.length) ? tiles[tile] : null;
+    }
+
+    // --- Loading ---
+
+    /**
+     * Loads every stage listed under {@code stages}. Returns {@code fallback} if the file is
+     * missing or defines no stages; a stage whose layers are broken loses those layers only, and
+     * a bad tile size, width or sky falls back to its default.
+     */
+    public static Stage[] loadAll(Stage[] fallback) {
+        Properties defs = new Properties();
+        try (InputStream is = Stage.class.getResourceAsStream(STAGE_RESOURCE)) {
+            if (is == null) throw new IOException("Resource not found: " + STAGE_RESOURCE);
+            defs.load(is);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not load stages. Using plain backgrounds. Error: " + e.getMessage());
+            return fallback;
+        }
+
+        int tileSize = intSetting(defs, "tile_size", DEFAULT_TILE_SIZE);
+        if (tileSize < 1) {
+            System.err.println("Warning: tile_size must be at least 1. Using " + DEFAULT_TILE_SIZE + ".");
+            tileSize = DEFAULT_TILE_SIZE;
+        }
+        BufferedImage[] tiles = loadTiles(defs.getProperty("tileset", "").trim(), tileSize);
+
+        // Legend: tile.<char>=<tile>[,<tile>...][/<steps per frame>]
+        Map<Character, Integer> legendIndex = new HashMap<>();
+        List<int[]> legendTiles = new ArrayList<>();
+        List<Integer> legendSteps = new ArrayList<>();
+        for (String key : defs.stringPropertyNames()) {
+            if (!key.startsWith("tile.") || key.length() != 6) continue;
+            try {
+                String[] spec = defs.getProperty(key).trim().split("/");
+                String[] frames = spec[0].split(",");
+                int[] ids = new int[frames.length];
+                for (int i = 0; i < frames.length; i++) ids[i] = Integer.parseInt(frames[i].trim());
+                legendIndex.put(key.charAt(5), legendTiles.size());
+                legendTiles.add(ids);
+                legendSteps.add(spec.length > 1 ? Math.max(1, Integer.parseInt(spec[1].trim())) : 1);
+            } catch (NumberFormatException e) {
+                System.err.println("Warning: Bad tile legend entry '" + key + "'. Error: " + e.getMessage());
+            }
+        }
+        int[][] legend = legendTiles.toArray(new int[0][]);
+        int[] steps = new int[legendSteps.size()];
+        for (int i = 0; i < steps.length; i++) steps[i] = legendSteps.get(i);
+
+        List<Stage> stages = new ArrayList<>();
+        for (String id : defs.getProperty("stages", "").split(",")) {
+            id = id.trim();
+            if (id.isEmpty()) continue;
+            Color skyTop = Color.BLACK, skyBottom = Color.BLACK;
+            String[] sky = defs.getProperty(id + ".sky", "0,0,0;0,0,0").split(";");
+            try {
+                skyTop = parseColor(sky[0]);
+                skyBottom = parseColor(sky[sky.length - 1]);
+            } catch (RuntimeException e) {
+                System.err.println("Warning: Bad sky for stage '" + id + "'. Using black. Error: " + e.getMessage());
+            }
+            List<Layer> layers = new ArrayList<>();
+            for (String layerId : defs.getProperty(id + ".layers", "").split(",")) {
+                layerId = layerId.trim();
+                if (layerId.isEmpty()) continue;
+                try {
+                    layers.add(loadLayer(defs, id + "." + layerId, layerId, legendIndex));
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Warning: Skipping layer '" + layerId + "' of stage '" + id + "'. Error: " + e.getMessage());
+                }
+            }
+            int worldWidth = Math.max(Fighter.DEFAULT_WORLD_WIDTH, intSetting(defs, id + ".width", Fighter.DEFAULT_WORLD_WIDTH));
+            stages.add(new Stage(defs.getProperty(id + ".name", id), worldWidth, skyTop, skyBottom,
+                    layers, tileSize, tiles, legend, steps));
+        }
+        return stages.isEmpty() ? fallback : stages.toArray(new Stage[0]);
+    }
+
+    private static Layer loadLayer(Properties defs, String prefix, String id, Map<Character, Integer> legend) throws IOException {
+        int y = Integer.parseInt(defs.getProperty(prefix + ".y", "0").trim());
+        float parallax = Float.parseFloat(defs.getProperty(prefix + ".parallax", "1").trim());
+        float drift = Float.parseFloat(defs.getProperty(prefix + ".drift", "0").trim());
+        String colorSpec = defs.getProperty(prefix + ".color");
+        Color color = (colorSpec != null) ? parseColor(colorSpec) : null;
+
+        String imageFile = defs.getProperty(prefix + ".image");
+        if (imageFile != null) {
+            String[] size = defs.getProperty(prefix + ".size", "").split(",");
+            BufferedImage image = null;
+            int width, height;
+            try {
+                image = readAsset(imageFile.trim());
+                String crop = defs.getProperty(prefix + ".crop");
+                if (crop != null) {
+                    String[] c = crop.split(",");
+                    image = image.getSubimage(Integer.parseInt(c[0].trim()), Integer.parseInt(c[1].trim()),
+                            Integer.parseInt(c[2].trim()), Integer.parseInt(c[3].trim()));
+                }
+                width = (size.length == 2) ? Integer.parseInt(size[0].trim()) : image.getWidth();
+                height = (size.length == 2) ? Integer.parseInt(size[1].trim()) : image.getHeight();
+                color = null; // Only stands in for a missing image
+            } catch (IOException e) {
+                // Keep the layer as a solid block so the floor doesn't vanish
+                if (color == null) throw e;
+                System.err.println("Warning: Could not load " + imageFile.trim() + ". Using solid color fallback. Error: " + e.getMessage());
+                width = height = 1;
+                image = null;
+            }
+            boolean fill = Boolean.parseBoolean(defs.getProperty(prefix + ".fill", "false").trim());
+            return new Layer(id, y, parallax, drift, null, image, width, height, fill, color);
+        }
+
+        List<int[]> rows = new ArrayList<>();
+        for (int r = 0; defs.getProperty(prefix + ".row." + r) != null; r++) {
+            String row = defs.getProperty(prefix + ".row." + r);
+            int[] cells = new int[row.length()];
+            for (int c = 0; c < cells.length; c++) {
+                char ch = row.charAt(c);
+                Integer index = legend.get(ch);
+                if (index == null && ch != EMPTY_CELL && ch != ' ') {
+                    throw new IllegalArgumentException("Unknown tile '" + ch + "' in " + prefix + ".row." + r);
+                }
+                cells[c] = (index != null) ? index : -1;
+            }
+            rows.add(cells);
+        }
+        return new Layer(id, y, parallax, drift, rows.toArray(new int[0][]), null, 0, 0, false, color);
+    }
+
+    private static BufferedImage[] loadTiles(String file, int tileSize) {
+        if (file.isEmpty()) return new BufferedImage[0];
+        try {
+            BufferedImage sheet = readAsset(file);
+            int columns = sheet.getWidth() / tileSize;
+            int rows = sheet.getHeight() / tileSize;
+            BufferedImage[] tiles = new BufferedImage[columns * rows];
+            for (int i = 0; i < tiles.length; i++) {
+                // Copy out of the sheet so tiles draw as plain ARGB images
+                tiles[i] = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = tiles[i].createGraphics();
+                g.drawImage(sheet.getSubimage((i % columns) * tileSize, (i / columns) * tileSize, tileSize, tileSize), 0, 0, null);
+                g.dispose();
+            }
+            return tiles;
+        } catch (IOException e) {
+            System.err.println("Warning: Could not load stage tiles. Tile layers will be empty. Error: " + e.getMessage());
+            return new BufferedImage[0];
+        }
+    }
+
+    private static BufferedImage readAsset(String file) throws IOException {
+        try (InputStream is = Stage.class.getResourceAsStream("/assets/" + file)) {
+            if (is == null) throw new IOException("Resource not found: assets/" + file);
+            BufferedImage image = ImageIO.read(is);
+            if (image == null) throw new IOException("Unreadable image: assets/" + file);
+            return image;
+        }
+    }
+
+    /** Reads a whole-number setting; a value that isn't one warns and uses {@code fallback}. */
+    private static int intSetting(Properties defs, String key, int fallback) {
+        String value = defs.getProperty(key);
+        if (value == null) return fallback;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Warning: Bad value for '" + key + "'. Using " + fallback + ". Error: " + e.getMessage());
+            return fallback;
+        }
+    }
+
+    private static Color parseColor(String spec) {
+        String[] rgb = spec.split(",");
+        return new Color(Integer.parseInt(rgb[0].trim()), Integer.parseInt(rgb[1].trim()), Integer.parseInt(rgb[2].trim()));
+    }
+}
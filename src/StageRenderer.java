@@ -0,0 +1,292 @@
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws a {@link Stage} from cached images at screen resolution.
+ *
+ * Layers that scroll together (same parallax, no drift) are pre-composited into one image, the
+ * sky gradient included, so a frame costs one 1:1 blit per group instead of a gradient fill
+ * plus a drawImage per tile. A layer joins the earliest such group it can without moving
+ * under anything drawn in between, so a band of drifting clouds doesn't split the sky from
+ * the buildings below it. Cells with animated tiles are left out of the cache and drawn live
+ * on top of their group. Drifting layers get an image of their own, blitted with wrap-around.
+ * Caches are rebuilt when the stage, the scroll range or the screen scale changes.
+ *
+ * Only the world plane (parallax 1: the floor and anything level with the fighters) follows
+ * the camera's zoom. Background layers stay at zoom 1 and are lined up with the floor's bottom
+ * edge, which both looks like depth and keeps their blits unscaled.
+ */
+public class StageRenderer {
+
+    /** Layers cached together and blitted with one offset. */
+    private static class Group {
+        final List<Stage.Layer> layers = new ArrayList<>();
+        float parallax;
+        boolean zooms;         // World plane: scaled with the camera's zoom
+        float drift;
+        boolean sky;
+        int top, bottom;       // Virtual rows covered
+        int animatedTop = Integer.MAX_VALUE, animatedBottom = Integer.MIN_VALUE; // Rows with live tiles
+        int width;             // Virtual width of the cache (the layer period for drifting groups)
+        boolean animated;
+        BufferedImage image;
+    }
+
+    private final int width;
+    private final int height;
+    private Stage stage;
+    private int scrollRange = 0; // How far the camera can move from 0
+    private final List<Group> groups = new ArrayList<>();
+    private float cacheScale = 0f;
+    private final AffineTransform deviceTransform = new AffineTransform();
+
+    public StageRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setStage(Stage stage) {
+        if (stage == this.stage) return;
+        this.stage = stage;
+        rebuildGroups();
+    }
+
+    /** How far the camera can scroll at zoom 1 (world width minus screen width). */
+    public void setScrollRange(int range) {
+        if (range == scrollRange) return;
+        scrollRange = Math.max(0, range);
+        rebuildGroups();
+    }
+
+    /**
+     * Draws the part of the stage the camera sees over the whole screen. Only the visible
+     * rows and columns of each cache are copied, and only visible animated tiles are drawn,
+     * so a wide stage costs no more per frame than a narrow one.
+     * @param g Graphics scaled to virtual coordinates; caches are kept at its device scale.
+     * @param camera View position and zoom; its X runs from 0 to the scroll range at zoom 1.
+     * @param tick Animation step for drifting layers and animated tiles.
+     */
+    public void draw(Graphics2D g, Camera camera, int tick) {
+        if (stage == null) return;
+        AffineTransform transform = g.getTransform();
+        float scale = (float) transform.getScaleX();
+        if (scale != cacheScale) {
+            cacheScale = scale;
+            for (Group group : groups) group.image = null;
+        }
+
+        int screenWidth = Math.round(width * scale);
+        // Background layers move by however much the zoom lifts or lowers the bottom of the world
+        float backdropTop = height - (height - camera.getY()) * camera.getZoom();
+
+        for (Group group : groups) {
+            float zoom = group.zooms ? camera.getZoom() : 1f;
+            float viewTop = group.zooms ? camera.getY() : backdropTop;
+            float viewWidth = width / zoom;
+
+            // Rows of this group on screen (there's no vertical parallax)
+            float top = Math.max(group.top, viewTop);
+            float bottom = Math.min(group.bottom, viewTop + height / zoom);
+            if (bottom <= top) continue;
+
+            if (group.image == null) group.image = render(group, scale);
+            float shift = camera.getX() * group.parallax + tick * group.drift;
+            int sy1 = Math.round((top - group.top) * scale);
+            int sy2 = Math.round((bottom - group.top) * scale);
+            int dy1 = Math.round((top - viewTop) * zoom * scale);
+            int dy2 = Math.round((bottom - viewTop) * zoom * scale);
+
+            // Copy the visible part of the cache; unzoomed that's pixel for pixel, no scaling
+            deviceTransform.setToTranslation(transform.getTranslateX(), transform.getTranslateY());
+            g.setTransform(deviceTransform);
+            if (group.sky && dy1 > 0) {
+                // Backdrop lowered by a jump: extend the top of the sky
+                g.setColor(stage.skyTop);
+                g.fillRect(0, 0, screenWidth, dy1);
+            }
+            if (group.drift != 0) {
+                int period = group.image.getWidth();
+                float offset = (shift - (float) Math.floor(shift / group.width) * group.width) * zoom * scale;
+                float copyWidth = group.width * zoom * scale;
+                for (float dx = -offset; dx < screenWidth; dx += copyWidth) {
+                    g.drawImage(group.image, Math.round(dx), dy1, Math.round(dx + copyWidth), dy2, 0, sy1, period, sy2, null);
+                }
+            } else {
+                int sw = Math.round(viewWidth * scale);
+                int sx = Math.max(0, Math.min(group.image.getWidth() - sw, Math.round(shift * scale)));
+                g.drawImage(group.image, 0, dy1, screenWidth, dy2, sx, sy1, sx + sw, sy2, null);
+            }
+            g.setTransform(transform);
+
+            if (group.animated) {
+                g.scale(zoom, zoom);
+                g.translate(-shift, -viewTop);
+                drawAnimatedTiles(g, group, shift, viewWidth, tick);
+                g.setTransform(transform);
+            }
+        }
+    }
+
+    // --- Grouping ---
+
+    private void rebuildGroups() {
+        groups.clear();
+        cacheScale = 0f;
+        if (stage == null) return;
+
+        Group sky = new Group();
+        sky.sky = true;
+        sky.parallax = 0;
+        sky.top = 0;
+        sky.bottom = height;
+        groups.add(sky);
+
+        int tileSize = stage.tileSize;
+        for (Stage.Layer layer : stage.layers) {
+            boolean zooms = layer.parallax >= 1;
+            float parallax = layer.parallax;
+            int top = layer.y;
+            int bottom = Math.min(height, layer.y + layer.height(tileSize, height));
+
+            // Walk back to the earliest group this layer can join: same scroll, and nothing
+            // drawn after that group (or live on top of it) overlaps the layer
+            Group target = null;
+            if (layer.drift == 0) {
+                for (int i = groups.size() - 1; i >= 0; i--) {
+                    Group group = groups.get(i);
+                    if (group.drift == 0 && group.parallax == parallax && group.zooms == zooms
+                            && !overlaps(group.animatedTop, group.animatedBottom, top, bottom)) {
+                        target = group;
+                    }
+                    if (overlaps(group.top, group.bottom, top, bottom)) break;
+                }
+            }
+            if (target == null) {
+                target = new Group();
+                target.parallax = parallax;
+                target.zooms = zooms;
+                target.drift = layer.drift;
+                target.top = top;
+                target.bottom = bottom;
+                groups.add(target);
+            }
+            target.layers.add(layer);
+            target.top = Math.min(target.top, top);
+            target.bottom = Math.max(target.bottom, bottom);
+            if (hasAnimatedTiles(layer)) {
+                target.animated = true;
+                target.animatedTop = Math.min(target.animatedTop, top);
+                target.animatedBottom = Math.max(target.animatedBottom, bottom);
+            }
+        }
+
+        for (Group group : groups) {
+            group.top = Math.max(0, group.top);
+            group.width = (group.drift != 0)
+                    ? group.layers.get(0).period(tileSize)
+                    : width + (int) Math.ceil(maxCameraX() * group.parallax);
+        }
+    }
+
+    /** Furthest the camera's left edge can go: the scroll range plus what zooming in narrows the view by. */
+    private float maxCameraX() {
+        return scrollRange + width * (1 - 1 / Camera.MAX_ZOOM);
+    }
+
+    private static boolean overlaps(int top1, int bottom1, int top2, int bottom2) {
+        return top1 < bottom2 && top2 < bottom1;
+    }
+
+    private boolean hasAnimatedTiles(Stage.Layer layer) {
+        if (layer.cells == null) return false;
+        for (int[] row : layer.cells) {
+            for (int cell : row) {
+                if (cell >= 0 && stage.isAnimated(cell)) return true;
+            }
+        }
+        return false;
+    }
+
+    // --- Cache Rendering ---
+
+    /** Pre-composites a group's static content at {@code scale}. */
+    private BufferedImage render(Group group, float scale) {
+        int w = Math.max(1, Math.round(group.width * scale));
+        int h = Math.max(1, Math.round((group.bottom - group.top) * scale));
+        BufferedImage image = new BufferedImage(w, h, group.sky ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.scale(scale, scale);
+        g.translate(0, -group.top);
+
+        if (group.sky) {
+            g.setPaint(new GradientPaint(0, 0, stage.skyTop, 0, height, stage.skyBottom));
+            g.fillRect(0, 0, group.width, height);
+        }
+        for (Stage.Layer layer : group.layers) {
+            drawLayer(g, layer, group.width);
+        }
+        g.dispose();
+        return image;
+    }
+
+    private void drawLayer(Graphics2D g, Stage.Layer layer, int coverWidth) {
+        int tileSize = stage.tileSize;
+        if (layer.color != null) {
+            g.setColor(layer.color);
+            g.fillRect(0, layer.y, coverWidth, height - layer.y);
+        }
+
+        if (layer.cells == null) {
+            if (layer.image == null) return;
+            int bottom = layer.fill ? height : layer.y + layer.imageHeight;
+            for (int x = 0; x < coverWidth; x += layer.imageWidth) {
+                for (int y = layer.y; y < bottom; y += layer.imageHeight) {
+                    g.drawImage(layer.image, x, y, layer.imageWidth, layer.imageHeight, null);
+                }
+            }
+            return;
+        }
+
+        int period = layer.period(tileSize);
+        for (int base = 0; base < coverWidth; base += period) {
+            for (int r = 0; r < layer.cells.length; r++) {
+                int[] row = layer.cells[r];
+                for (int c = 0; c < row.length; c++) {
+                    int cell = row[c];
+                    if (cell < 0 || stage.isAnimated(cell)) continue;
+                    BufferedImage tile = stage.tile(cell, 0);
+                    if (tile != null) g.drawImage(tile, base + c * tileSize, layer.y + r * tileSize, tileSize, tileSize, null);
+                }
+            }
+        }
+    }
+
+    // --- Live Tiles ---
+
+    /** Draws the animated cells between layer X {@code left} and {@code left + span}; {@code g} is in layer coordinates. */
+    private void drawAnimatedTiles(Graphics2D g, Group group, float left, float span, int tick) {
+        int tileSize = stage.tileSize;
+        int firstColumn = (int) Math.floor(left / tileSize);
+        int lastColumn = (int) Math.ceil((left + span) / tileSize);
+        for (Stage.Layer layer : group.layers) {
+            if (layer.cells == null) continue;
+            int columns = layer.period(tileSize) / tileSize;
+            for (int r = 0; r < layer.cells.length; r++) {
+                int[] row = layer.cells[r];
+                for (int k = firstColumn; k < lastColumn; k++) {
+                    int c = Math.floorMod(k, columns); // Maps repeat sideways
+                    if (c >= row.length) continue;
+                    int cell = row[c];
+                    if (cell < 0 || !stage.isAnimated(cell)) continue;
+                    BufferedImage tile = stage.tile(cell, tick);
+                    if (tile != null) g.drawImage(tile, k * tileSize, layer.y + r * tileSize, tileSize, tileSize, null);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-frame checksum over everything that decides how a match plays out: every fighter's
+ * gameplay fields and buffered input, stocks, the round timer, and each CPU's decision
+ * state and position in its random stream. Each class mixes its own primitive fields straight
+ * into the hash ({@code hashState}, 64-bit FNV-1a over ints) in the same order as its
+ * {@code visitState}, with no copying, serialization or visitor calls, so it costs a few
+ * hundred nanoseconds a frame and can stay on all the time. The visitor is kept for dumps,
+ * diffs and {@link #computeVisited}, which DesyncCheck uses to catch the two drifting apart.
+ *
+ * Two runs that agree on every frame's checksum played out identically. The first frame where
+ * they differ is where a desync started; {@link Dump} and {@link #diff} then name the fields
+ * that differ there. Not thread-safe: use one instance per simulation.
+ */
+public final class StateChecksum implements Match.StateVisitor {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long hash;
+
+    /** Checksum of the current frame. {@code brains} may be null, as may any entry (human fighters). */
+    public long compute(Match match, int roundTimeRemaining, AIOpponent[] brains) {
+        long h = match.hashState(FNV_OFFSET);
+        h = mix(h, roundTimeRemaining);
+        if (brains == null) return h;
+        for (AIOpponent brain : brains) {
+            if (brain != null) h = brain.hashState(h);
+        }
+        return h;
+    }
+
+    /** The same checksum through {@link #visitFrame}; slower, but it can't miss a visited field. */
+    public long computeVisited(Match match, int roundTimeRemaining, AIOpponent[] brains) {
+        hash = FNV_OFFSET;
+        visitFrame(this, match, roundTimeRemaining, brains);
+        return hash;
+    }
+
+    /** One FNV-1a round: {@code value} mixed into {@code hash}. */
+    static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    @Override
+    public void field(String name, int slot, int value) {
+        hash = mix(hash, value);
+    }
+
+    /** Walks one frame's state in checksum order. */
+    public static void visitFrame(Match.StateVisitor v, Match match, int roundTimeRemaining, AIOpponent[] brains) {
+        match.visitState(v);
+        v.section("round", -1);
+        v.field("roundTimeRemaining", -1, roundTimeRemaining);
+        if (brains == null) return;
+        for (int i = 0; i < brains.length; i++) {
+            if (brains[i] == null) continue;
+            v.section("cpu", i);
+            brains[i].visitState(v);
+        }
+    }
+
+    // --- Field Dumps ---
+
+    /** Every field of one frame, labelled, in checksum order. Only built when something needs diffing. */
+    public static final class Dump implements Match.StateVisitor {
+        private final List<String> labels = new ArrayList<>();
+        private int[] values = new int[256];
+        private String section = "";
+
+        public static Dump of(Match match, int roundTimeRemaining, AIOpponent[] brains) {
+            Dump dump = new Dump();
+            visitFrame(dump, match, roundTimeRemaining, brains);
+            return dump;
+        }
+
+        /** A dump read back from a log. */
+        public Dump(List<String> labels, int[] values) {
+            this.labels.addAll(labels);
+            this.values = values.clone();
+        }
+
+        private Dump() {}
+
+        @Override
+        public void section(String name, int index) {
+            section = (index < 0) ? name : name + " " + index;
+        }
+
+        @Override
+        public void field(String name, int slot, int value) {
+            if (labels.size() == values.length) values = Arrays.copyOf(values, values.length * 2);
+            values[labels.size()] = value;
+            labels.add(section + "." + name + (slot < 0 ? "" : "[" + slot + "]"));
+        }
+
+        public int size() { return labels.size(); }
+        public String label(int i) { return labels.get(i); }
+        public int value(int i) { return values[i]; }
+    }
+
+    /** One line per field whose value differs ("label: expected -> actual"). */
+    public static List<String> diff(Dump expected, Dump actual) {
+        List<String> lines = new ArrayList<>();
+        int common = Math.min(expected.size(), actual.size());
+        for (int i = 0; i < common; i++) {
+            if (!expected.label(i).equals(actual.label(i))) {
+                lines.add("Field layout differs at #" + i + ": " + expected.label(i) + " vs " + actual.label(i));
+                return lines;
+            }
+            if (expected.value(i) != actual.value(i)) {
+                lines.add(expected.label(i) + ": " + expected.value(i) + " -> " + actual.value(i));
+            }
+        }
+        if (expected.size() != actual.size()) {
+            lines.add("Field count differs: " + expected.size() + " vs " + actual.size());
+        }
+        return lines;
+    }
+}
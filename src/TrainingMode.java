@@ -0,0 +1,299 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+
+/**
+ * Practice mode state for a 1v1 match against a training dummy: hitbox/hurtbox overlay,
+ * input display, frame advantage after every hit or block, reset to center, and control of
+ * the simulation clock (freeze, single frame-step, slow motion at any rate).
+ *
+ * GamePanel asks {@link #stepsThisTick()} how many simulation steps to run each 60 Hz tick and
+ * calls {@link #afterStep()} after each one. Everything drawn per frame comes from arrays and
+ * strings built up front, so the overlay itself never allocates.
+ */
+public class TrainingMode {
+
+    // --- Dummy Behaviour ---
+    public static final int DUMMY_STAND = 0, DUMMY_BLOCK = 1, DUMMY_JUMP = 2, DUMMY_CPU = 3;
+    private static final String[] DUMMY_LABELS = {"Stand", "Crouch Block", "Jump", "CPU"};
+
+    // --- Simulation Rate (steps per 60 Hz tick) ---
+    private static final float[] RATES = {1f, 0.5f, 0.25f, 0.1f};
+    private static final String[] RATE_LABELS = {"1x", "1/2x", "1/4x", "1/10x"};
+
+    // --- Training Constants ---
+    private static final int REFILL_DELAY = 60; // Steps without a hit before health and meter refill
+    private static final int RESET_GAP = 60;    // Each fighter starts this far from the center
+    private static final int INPUT_ROWS = 14;
+    private static final int MAX_RUN_FRAMES = 99;
+
+    // --- Overlay Layout & Style ---
+    private static final Font OVERLAY_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Font ADVANTAGE_FONT = new Font("Arial", Font.BOLD, 20);
+    private static final Color PANEL_COLOR = new Color(0, 0, 0, 150);
+    private static final Color PLUS_COLOR = new Color(90, 255, 90);
+    private static final Color MINUS_COLOR = new Color(255, 90, 90);
+    private static final int INPUT_X = 20, INPUT_Y = 170, ROW_HEIGHT = 18;
+    private static final int STATUS_GAP = 18;
+
+    // Pre-built labels: numpad directions, buttons and run lengths
+    private static final String[] DIRECTION_LABELS = {"", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+    private static final int[] BUTTON_BITS = {InputBuffer.ATTACK, InputBuffer.SUPER, InputBuffer.DASH_FWD, InputBuffer.DASH_BACK};
+    private static final String[] BUTTON_LABELS = {"A", "SP", "DF", "DB"};
+    private static final int BUTTON_MASK = InputBuffer.ATTACK | InputBuffer.SUPER | InputBuffer.DASH_FWD | InputBuffer.DASH_BACK;
+    private static final String[] COUNT_LABELS = new String[MAX_RUN_FRAMES + 1];
+
+    static {
+        for (int i = 0; i <= MAX_RUN_FRAMES; i++) COUNT_LABELS[i] = Integer.toString(i);
+    }
+
+    private final Match match;
+    private final Fighter player;
+    private final Fighter dummy;
+    private final AIOpponent dummyBrain;
+    private final int groundY;
+
+    private int dummyMode = DUMMY_STAND;
+    private boolean showBoxes = true;
+
+    // Clock control
+    private final SimulationClock clock = new SimulationClock();
+    private int rateIndex = 0;
+
+    // Debug geometry (reused every step)
+    private final DebugGeometryBuffer geometry = new DebugGeometryBuffer();
+    private final Rectangle scratch = new Rectangle();
+
+    // Input display: ring of (direction, buttons, frames held) runs, newest at inputHead
+    private final int[] runDirection = new int[INPUT_ROWS];
+    private final int[] runButtons = new int[INPUT_ROWS];
+    private final int[] runFrames = new int[INPUT_ROWS];
+    private int inputHead = -1;
+    private int inputRuns = 0;
+
+    // Frame advantage: measured from the step a hit lands until both sides can attack again
+    private Fighter advAttacker, advDefender;
+    private boolean advBlocked;
+    private int advFrames;
+    private int attackerReadyAt = -1, defenderReadyAt = -1;
+    private String advantageText = "";
+    private Color advantageColor = Color.WHITE;
+    private int framesSinceHit = REFILL_DELAY;
+
+    public TrainingMode(Match match, AIOpponent dummyBrain, int groundY) {
+        this.match = match;
+        this.player = match.getFighter(0);
+        this.dummy = match.getFighter(1);
+        this.dummyBrain = dummyBrain;
+        this.groundY = groundY;
+        match.setHitListener(this::onHit);
+        resetPositions();
+    }
+
+    // --- Simulation Clock ---
+
+    /** How many simulation steps to run this tick: slow motion accumulates, frozen only runs requested frame-steps. */
+    public int stepsThisTick() {
+        return clock.stepsThisTick();
+    }
+
+    /** Input for the dummy this step. */
+    public int dummyInput() {
+        switch (dummyMode) {
+            case DUMMY_BLOCK: return InputBuffer.DOWN;
+            case DUMMY_JUMP: return InputBuffer.UP;
+            case DUMMY_CPU: return dummyBrain.decide(dummy, player);
+            default: return 0;
+        }
+    }
+
+    /** Records this step's geometry and inputs, tracks frame advantage, and refills after a quiet period. */
+    public void afterStep() {
+        geometry.beginFrame();
+        for (int i = 0; i < match.getFighterCount(); i++) {
+            Fighter f = match.getFighter(i);
+            f.getRect(scratch);
+            geometry.add(DebugGeometryBuffer.HURTBOX, scratch);
+            if (f.getAttackRect(scratch)) {
+                geometry.add(DebugGeometryBuffer.HITBOX, scratch);
+            }
+        }
+
+        recordInput(player.getInputBuffer().current(), player.getDirection());
+        trackAdvantage();
+
+        if (framesSinceHit < REFILL_DELAY) {
+            framesSinceHit++;
+        } else {
+            player.refill();
+            dummy.refill();
+        }
+    }
+
+    // --- Controls ---
+
+    /**
+     * Handles the training keys. F1 dummy, F2 boxes, F3 reset, F4 freeze, F5 frame-step,
+     * F6/F7 slower/faster. Returns true if the key was a training key.
+     */
+    public boolean keyPressed(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_F1:
+                dummyMode = (dummyMode + 1) % DUMMY_LABELS.length;
+                return true;
+            case KeyEvent.VK_F2:
+                showBoxes = !showBoxes;
+                return true;
+            case KeyEvent.VK_F3:
+                resetPositions();
+                return true;
+            case KeyEvent.VK_F4:
+                clock.setFrozen(!clock.isFrozen());
+                return true;
+            case KeyEvent.VK_F5:
+                clock.requestStep();
+                return true;
+            case KeyEvent.VK_F6:
+                rateIndex = Math.min(RATES.length - 1, rateIndex + 1);
+                clock.setRate(RATES[rateIndex]);
+                return true;
+            case KeyEvent.VK_F7:
+                rateIndex = Math.max(0, rateIndex - 1);
+                clock.setRate(RATES[rateIndex]);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** Puts both fighters back at the center of the stage at full health and meter. */
+    public void resetPositions() {
+        player.resetHealth();
+        dummy.resetHealth();
+        int centerX = player.getMaxX() / 2; // Middle of the stage, however wide
+        player.setX(centerX - RESET_GAP);
+        dummy.setX(centerX + RESET_GAP);
+        player.setY(groundY - Fighter.SPRITE_SIZE);
+        dummy.setY(groundY - Fighter.SPRITE_SIZE);
+        player.refill();
+        dummy.refill();
+
+        geometry.clear();
+        advAttacker = null;
+        advantageText = "";
+        framesSinceHit = REFILL_DELAY;
+    }
+
+    // --- Frame Advantage ---
+
+    private void onHit(Fighter attacker, Fighter defender, boolean isSuper, boolean blocked, int damage) {
+        advAttacker = attacker;
+        advDefender = defender;
+        advBlocked = blocked;
+        advFrames = 0;
+        attackerReadyAt = -1;
+        defenderReadyAt = -1;
+        framesSinceHit = 0;
+    }
+
+    private void trackAdvantage() {
+        if (advAttacker == null) return;
+
+        if (attackerReadyAt < 0 && advAttacker.isAttackReady()) attackerReadyAt = advFrames;
+        if (defenderReadyAt < 0 && advDefender.isAttackReady()) defenderReadyAt = advFrames;
+        advFrames++;
+
+        if (attackerReadyAt >= 0 && defenderReadyAt >= 0) {
+            // Positive: the attacker can swing again first (from the attacker's point of view)
+            int advantage = defenderReadyAt - attackerReadyAt;
+            String sign = advantage > 0 ? "+" : "";
+            String who = (advAttacker == player) ? "P1" : "Dummy";
+            advantageText = who + (advBlocked ? " on block: " : " on hit: ") + sign + advantage;
+            advantageColor = advantage >= 0 ? PLUS_COLOR : MINUS_COLOR;
+            advAttacker = null;
+        }
+    }
+
+    // --- Input Display ---
+
+    private void recordInput(int mask, int facing) {
+        int direction = InputBuffer.numpadDirection(mask, facing);
+        int buttons = mask & BUTTON_MASK;
+
+        if (inputRuns > 0 && runDirection[inputHead] == direction && runButtons[inputHead] == buttons) {
+            if (runFrames[inputHead] < MAX_RUN_FRAMES) runFrames[inputHead]++;
+            return;
+        }
+        inputHead = (inputHead + 1) % INPUT_ROWS;
+        runDirection[inputHead] = direction;
+        runButtons[inputHead] = buttons;
+        runFrames[inputHead] = 1;
+        if (inputRuns < INPUT_ROWS) inputRuns++;
+    }
+
+    // --- Overlay ---
+
+    /** Hitbox and hurtbox overlay; {@code g} is in world coordinates, like the fighters. */
+    public void drawBoxes(Graphics2D g) {
+        if (!showBoxes) return;
+        // Boxes are in simulation coordinates; shift them like the sprites so they line up on screen
+        g.translate(0, Fighter.SPRITE_VERTICAL_OFFSET);
+        geometry.draw(g);
+        g.translate(0, -Fighter.SPRITE_VERTICAL_OFFSET);
+    }
+
+    /** Input display, frame advantage and status bar, in screen coordinates. */
+    public void draw(Graphics2D g) {
+        g.setFont(OVERLAY_FONT);
+
+        // Input display, newest on top
+        g.setColor(PANEL_COLOR);
+        g.fillRect(INPUT_X - 8, INPUT_Y - 16, 110, INPUT_ROWS * ROW_HEIGHT + 8);
+        for (int row = 0; row < inputRuns; row++) {
+            int i = (inputHead - row + INPUT_ROWS) % INPUT_ROWS;
+            int y = INPUT_Y + row * ROW_HEIGHT;
+            g.setColor(Color.GRAY);
+            g.drawString(COUNT_LABELS[runFrames[i]], INPUT_X, y);
+            g.setColor(Color.WHITE);
+            g.drawString(DIRECTION_LABELS[runDirection[i]], INPUT_X + 28, y);
+            int x = INPUT_X + 44;
+            for (int b = 0; b < BUTTON_BITS.length; b++) {
+                if ((runButtons[i] & BUTTON_BITS[b]) != 0) {
+                    g.setColor(Color.YELLOW);
+                    g.drawString(BUTTON_LABELS[b], x, y);
+                    x += 22;
+                }
+            }
+        }
+
+        // Frame advantage of the last hit or block
+        if (!advantageText.isEmpty()) {
+            g.setFont(ADVANTAGE_FONT);
+            g.setColor(advantageColor);
+            g.drawString(advantageText, 300, 140);
+            g.setFont(OVERLAY_FONT);
+        }
+
+        // Status and key help, laid out left to right so it fits whatever font is substituted
+        g.setColor(PANEL_COLOR);
+        g.fillRect(0, 472, 800, 28);
+        g.setColor(Color.WHITE);
+        FontMetrics fm = g.getFontMetrics();
+        int x = 10;
+        x = drawStatus(g, fm, "F1 Dummy: ", x, 0);
+        x = drawStatus(g, fm, DUMMY_LABELS[dummyMode], x, STATUS_GAP);
+        x = drawStatus(g, fm, showBoxes ? "F2 Boxes: On" : "F2 Boxes: Off", x, STATUS_GAP);
+        x = drawStatus(g, fm, "F3 Reset", x, STATUS_GAP);
+        x = drawStatus(g, fm, clock.isFrozen() ? "F4 Frozen (F5 Step)" : "F4 Freeze", x, STATUS_GAP);
+        x = drawStatus(g, fm, "F6/F7 Speed: ", x, 0);
+        drawStatus(g, fm, RATE_LABELS[rateIndex], x, 0);
+    }
+
+    private static int drawStatus(Graphics2D g, FontMetrics fm, String text, int x, int gapAfter) {
+        g.drawString(text, x, 491);
+        return x + fm.stringWidth(text) + gapAfter;
+    }
+}
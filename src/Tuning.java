@@ -0,0 +1,147 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * One immutable set of combat tuning: movement, damage, stun, knockback, dash and meter.
+ * {@link Fighter} and {@link Match} keep a reference to a snapshot and read its final fields
+ * directly. Changing the tuning means swapping in a whole new snapshot between simulation
+ * steps (see {@link TuningWatcher}), so a step never sees half an edit.
+ *
+ * A tuning file is a properties file that overrides any of the keys below. Distances and
+ * speeds are in pixels (per step) and may have decimals; everything else counts simulation
+ * steps. Values are converted to fixed-point once, on load. Headless tools always use
+ * {@link #DEFAULTS}, so recorded logs replay the same everywhere.
+ */
+public final class Tuning {
+
+    /** The built-in values. */
+    public static final Tuning DEFAULTS = new Tuning(new Properties());
+
+    // --- Movement (fixed-point pixels per step) ---
+    public final int moveSpeed;
+    public final int jumpVelocity;      // Negative: up
+    public final int gravity;
+    public final int fallVelocity;      // Knocked out of the air
+    public final int dashVelocity;      // dash.distance spread over the dash's duration
+    public final int knockbackLight;    // Ground hits; air hits take half
+    public final int knockbackHeavy;    // Supers
+    private final int[] friction;       // Share of horizontal velocity kept each step, by FighterState (ONE = none)
+
+    // --- Timing (steps) ---
+    public final int attackCooldown;    // Active frames plus recovery
+    public final int blockCooldown;     // Guard down after a blocked hit
+    public final int dashCooldown;
+    public final int hitInvulnerability;
+    public final int wakeupInvulnerability;
+    public final int bufferFrames;      // Presses this many steps early still come out
+    private final int[] durations;      // By FighterState; 0 = ends only through a transition
+
+    // --- Damage & Meter ---
+    public final int regularDamage;
+    public final int superDamage;
+    public final int meterGainHit;      // Doubled for a super
+    public final int meterGainTaken;
+    public final int pushBack;          // Pixels bodies are pushed apart per step
+
+    private Tuning(Properties p) {
+        durations = new int[FighterState.values().length];
+        for (FighterState state : FighterState.values()) durations[state.ordinal()] = state.duration;
+        // Timed states: 0 would mean "ends only through a transition", which would leave a fighter stuck
+        durations[FighterState.ATTACK.ordinal()] = timedSteps(p, "attack.active", FighterState.ATTACK.duration);
+        durations[FighterState.DASH.ordinal()] = timedSteps(p, "dash.duration", FighterState.DASH.duration);
+        durations[FighterState.HITSTUN.ordinal()] = timedSteps(p, "stun.hitstun", FighterState.HITSTUN.duration);
+        durations[FighterState.AIR_HITSTUN.ordinal()] = timedSteps(p, "stun.airHitstun", FighterState.AIR_HITSTUN.duration);
+        durations[FighterState.KNOCKDOWN.ordinal()] = timedSteps(p, "stun.knockdown", FighterState.KNOCKDOWN.duration);
+
+        moveSpeed = pixels(p, "move.speed", "5");
+        jumpVelocity = -pixels(p, "jump.velocity", "15");
+        gravity = pixels(p, "gravity", "1");
+        fallVelocity = pixels(p, "fall.velocity", "10");
+        dashVelocity = pixels(p, "dash.distance", "100") / durations[FighterState.DASH.ordinal()];
+        knockbackLight = pixels(p, "knockback.light", "6");
+        knockbackHeavy = pixels(p, "knockback.heavy", "12");
+
+        friction = new int[FighterState.values().length];
+        Arrays.fill(friction, FixedPoint.ONE); // Dashes keep full speed to the end
+        int knockbackFriction = share(p, "knockback.friction", "0.85");
+        friction[FighterState.KNOCKDOWN.ordinal()] = knockbackFriction;
+        friction[FighterState.HITSTUN.ordinal()] = knockbackFriction;
+        friction[FighterState.AIR_HITSTUN.ordinal()] = knockbackFriction;
+        friction[FighterState.ATTACK.ordinal()] = knockbackFriction; // Dash momentum carried into a swing
+
+        attackCooldown = steps(p, "attack.cooldown", 20);
+        blockCooldown = steps(p, "block.cooldown", 120);
+        dashCooldown = steps(p, "dash.cooldown", 30);
+        hitInvulnerability = steps(p, "invulnerability.hit", 15);
+        wakeupInvulnerability = steps(p, "invulnerability.wakeup", 15);
+        bufferFrames = steps(p, "input.bufferFrames", 6);
+
+        regularDamage = steps(p, "damage.regular", Match.REGULAR_DAMAGE);
+        superDamage = steps(p, "damage.super", Match.SUPER_DAMAGE);
+        meterGainHit = steps(p, "meter.gainHit", 8);
+        meterGainTaken = steps(p, "meter.gainTaken", 4);
+        pushBack = steps(p, "push.back", 2);
+    }
+
+    /** Share of horizontal velocity kept each step in {@code state} (fixed-point; ONE = no friction). */
+    public int friction(FighterState state) {
+        return friction[state.ordinal()];
+    }
+
+    /** Steps a timed state lasts under this tuning, or 0 if it only ends through a transition. */
+    public int duration(FighterState state) {
+        return durations[state.ordinal()];
+    }
+
+    /**
+     * Reads {@code file} over the defaults. Throws if it can't be read or a value doesn't parse,
+     * so a half-saved file never replaces a good snapshot.
+     */
+    public static Tuning load(Path file) throws IOException {
+        Properties p = new Properties();
+        try (InputStream is = new FileInputStream(file.toFile())) {
+            p.load(is);
+        }
+        try {
+            return new Tuning(p);
+        } catch (RuntimeException e) {
+            throw new IOException("Bad value in " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    // --- Parsing ---
+
+    private static int steps(Properties p, String key, int fallback) {
+        String value = p.getProperty(key);
+        if (value == null) return fallback;
+        int steps = Integer.parseInt(value.trim());
+        if (steps < 0) throw new IllegalArgumentException(key + " can't be negative");
+        return steps;
+    }
+
+    private static int timedSteps(Properties p, String key, int fallback) {
+        int steps = steps(p, key, fallback);
+        if (steps < 1) throw new IllegalArgumentException(key + " must be at least 1");
+        return steps;
+    }
+
+    /** A {@link #pixels} value from 0 to 1, such as a share of velocity kept each step. */
+    private static int share(Properties p, String key, String fallback) {
+        int share = pixels(p, key, fallback);
+        if (share > FixedPoint.ONE) throw new IllegalArgumentException(key + " can't be more than 1");
+        return share;
+    }
+
+    /** A decimal number of pixels as fixed-point; "0.85" is exactly ratio(85, 100). */
+    private static int pixels(Properties p, String key, String fallback) {
+        BigDecimal value = new BigDecimal(p.getProperty(key, fallback).trim());
+        if (value.signum() < 0) throw new IllegalArgumentException(key + " can't be negative");
+        if (value.scale() <= 0) return FixedPoint.of(value.intValueExact());
+        return FixedPoint.ratio(value.unscaledValue().intValueExact(), BigDecimal.TEN.pow(value.scale()).intValueExact());
+    }
+}
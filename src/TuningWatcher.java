@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Live tuning: watches the tuning file (config/tuning.properties, or -Dfightgame.tuning) and
+ * the sprite override folder ({@link FighterSprites#SPRITE_DIR}) for edits. A background thread
+ * parses each edit into a new {@link Tuning} or {@link FighterSprites} and publishes it.
+ * GamePanel picks it up between simulation steps. One volatile read per step tells it whether
+ * anything changed, so the simulation itself never pays for watching.
+ *
+ * Only folders that exist when the game starts are watched. An edit that doesn't parse is
+ * reported and skipped, and the last good version stays in play.
+ */
+public class TuningWatcher {
+
+    private static final Path TUNING_FILE = Paths.get(System.getProperty("fightgame.tuning", "config/tuning.properties"));
+    private static final long SETTLE_MILLIS = 100; // Editors often save in several writes
+
+    private volatile Tuning tuning = Tuning.DEFAULTS;
+    private volatile long version = 0; // Bumped after each publish
+    private final AtomicReferenceArray<FighterSprites> reloadedSprites =
+            new AtomicReferenceArray<>(FighterSprites.UNIQUE_SPRITE_SHEETS);
+
+    private WatchService watcher;
+    private Path tuningDir;
+    private Path spriteDir;
+
+    /** Loads the tuning file if there is one, then starts watching. */
+    public TuningWatcher() {
+        if (Files.isRegularFile(TUNING_FILE)) reloadTuning();
+
+        Path parent = TUNING_FILE.toAbsolutePath().getParent();
+        Path sprites = Paths.get(FighterSprites.SPRITE_DIR).toAbsolutePath();
+        try {
+            if (parent != null && Files.isDirectory(parent)) {
+                if (watcher == null) watcher = FileSystems.getDefault().newWatchService();
+                parent.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                tuningDir = parent;
+            }
+            if (Files.isDirectory(sprites)) {
+                if (watcher == null) watcher = FileSystems.getDefault().newWatchService();
+                sprites.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                spriteDir = sprites;
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Could not watch for tuning edits. Live tuning is off. Error: " + e.getMessage());
+            return;
+        }
+        if (watcher == null) return; // Nothing to watch
+
+        Thread thread = new Thread(this::watchLoop, "tuning-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // --- Game thread (between steps) ---
+
+    /** Changes whenever a new tuning or sprite sheet is ready; compare with the last one seen. */
+    public long getVersion() {
+        return version;
+    }
+
+    /** The latest good tuning snapshot. */
+    public Tuning current() {
+        return tuning;
+    }
+
+    /** Reloaded sheet {@code index} if it changed since the last call, otherwise null. */
+    public FighterSprites takeSprites(int index) {
+        return reloadedSprites.getAndSet(index, null);
+    }
+
+    // --- Watcher thread ---
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Thread.sleep(SETTLE_MILLIS);
+                boolean tuningChanged = false;
+                boolean[] sheetsChanged = new boolean[FighterSprites.UNIQUE_SPRITE_SHEETS];
+                do {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (!(event.context() instanceof Path)) continue; // Overflow
+                        String name = event.context().toString();
+                        if (dir.equals(tuningDir) && name.equals(TUNING_FILE.getFileName().toString())) {
+                            tuningChanged = true;
+                        }
+                        if (dir.equals(spriteDir)) {
+                            for (int i = 0; i < sheetsChanged.length; i++) {
+                                if (name.equals(FighterSprites.sheetName(i))) sheetsChanged[i] = true;
+                            }
+                        }
+                    }
+                    key.reset();
+                } while ((key = watcher.poll()) != null); // Everything else saved in the same burst
+
+                if (tuningChanged) reloadTuning();
+                for (int i = 0; i < sheetsChanged.length; i++) {
+                    if (sheetsChanged[i]) reloadSprites(i);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private void reloadTuning() {
+        try {
+            tuning = Tuning.load(TUNING_FILE);
+            version++;
+            System.out.println("Tuning loaded from " + TUNING_FILE);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not load " + TUNING_FILE + ". Keeping the current tuning. Error: " + e.getMessage());
+        }
+    }
+
+    private void reloadSprites(int index) {
+        try {
+            reloadedSprites.set(index, FighterSprites.read(index));
+            version++;
+            System.out.println("Sprite sheet " + FighterSprites.sheetName(index) + " reloaded");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Could not reload " + FighterSprites.sheetName(index)
+                    + ". Keeping the current sprites. Error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,357 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.IntUnaryOperator;
+import javax.imageio.ImageIO;
+
+/**
+ * Visual regression check. Draws a fixed set of game states offscreen: every fighter draw
+ * state for each character, the HUD in each layout, the pause menu, and each stage at
+ * several camera positions. Each image is compared pixel by pixel against a golden PNG. A
+ * pixel matches if no channel differs by more than the tolerance. The states are drawn and
+ * compared in parallel.
+ *
+ * Run {@code update} before a rendering change to save the goldens, then {@code check} after
+ * it. Any mismatch is saved under {@code visual-diff/}: the actual image, plus a diff with
+ * the changed pixels in red. Fonts differ between machines, so make the goldens on the
+ * machine that checks them.
+ *
+ * Usage: java -Djava.awt.headless=true VisualCheck check|update [goldenDir=golden] [tolerance=2] [threads=cores]
+ */
+public class VisualCheck {
+
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 500;
+    private static final int STOCKS = 3;
+    private static final int GROUND_Y = 400;
+    private static final String DIFF_DIR = "visual-diff";
+    private static final Color[] COLORS = {Color.BLUE, Color.RED, Color.MAGENTA, Color.YELLOW};
+    private static final Color BACKDROP = new Color(40, 40, 48);
+    private static final int FIGHTER_VIEW = 200; // Fighter shots are this square, the sprite near the middle
+
+    /** One named image of one game state. */
+    private static class Shot {
+        final String name;
+        final BufferedImage image;
+
+        Shot(String name, BufferedImage image) {
+            this.name = name;
+            this.image = image;
+        }
+    }
+
+    /** A fighter driven by scripted input; {@code event} (may be null) runs before each step. */
+    private static class Script {
+        final String name;
+        final IntUnaryOperator input;              // Frame (from 1) -> InputBuffer bits
+        final BiConsumer<Fighter, Integer> event;
+        final int[] captures;                       // Frames to draw, ascending
+
+        Script(String name, IntUnaryOperator input, BiConsumer<Fighter, Integer> event, int... captures) {
+            this.name = name;
+            this.input = input;
+            this.event = event;
+            this.captures = captures;
+        }
+    }
+
+    /** Every {@link FighterState}, both facings, the attack and super animations, and the block indicators. */
+    private static final Script[] SCRIPTS = {
+            new Script("idle", frame -> 0, null, 1, 40),
+            new Script("run_right", frame -> InputBuffer.RIGHT, null, 3, 8, 13),
+            new Script("run_left", frame -> InputBuffer.LEFT, null, 3, 8, 13),
+            new Script("block", frame -> InputBuffer.DOWN, null, 5),
+            new Script("crouch", frame -> InputBuffer.DOWN, (f, frame) -> {
+                if (frame == 5) f.takeDamage(Match.REGULAR_DAMAGE, -f.getDirection()); // Blocked: guard on cooldown
+            }, 6, 20),
+            new Script("jump", frame -> frame == 1 ? InputBuffer.UP : 0, null, 3, 12, 20),
+            new Script("dash", frame -> frame == 1 ? InputBuffer.DASH_FWD : 0, null, 2, 6),
+            new Script("backstep", frame -> frame == 1 ? InputBuffer.DASH_BACK : 0, null, 2, 6),
+            new Script("attack", frame -> frame == 1 ? InputBuffer.ATTACK : 0, null, 2, 5, 8, 12, 18),
+            new Script("super", frame -> frame == 2 ? InputBuffer.SUPER : 0, (f, frame) -> {
+                if (frame == 1) f.gainMeter(Fighter.SUPER_ATTACK_COST);
+            }, 3, 8, 14),
+            new Script("hitstun", frame -> 0, (f, frame) -> {
+                if (frame == 1) f.takeDamage(Match.REGULAR_DAMAGE, f.getDirection());
+            }, 2, 5),
+            new Script("air_hitstun", frame -> frame == 1 ? InputBuffer.UP : 0, (f, frame) -> {
+                if (frame == 6) f.takeDamage(Match.REGULAR_DAMAGE, f.getDirection());
+            }, 7, 12),
+            new Script("knockdown", frame -> 0, (f, frame) -> {
+                if (frame == 1) f.takeDamage(Match.SUPER_DAMAGE, f.getDirection());
+            }, 10, 60),
+    };
+
+    public static void main(String[] args) throws Exception {
+        boolean update = args.length > 0 && args[0].equals("update");
+        if (args.length == 0 || (!update && !args[0].equals("check"))) {
+            System.err.println("Usage: java -Djava.awt.headless=true VisualCheck check|update [goldenDir] [tolerance] [threads]");
+            System.exit(2);
+        }
+        File goldenDir = new File(args.length > 1 ? args[1] : "golden");
+        int tolerance = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        File diffDir = new File(DIFF_DIR);
+        for (File dir : new File[] {goldenDir, diffDir}) {
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        }
+
+        // Shared, read-only: sprites and stage tiles are loaded once
+        List<FighterSprites> sprites = FighterSprites.loadAll(COLORS.length);
+        Stage[] stages = Stage.loadAll(new Stage[] {new Stage("Plain", new Color(135, 206, 235), new Color(240, 240, 240))});
+
+        List<Callable<List<Shot>>> tasks = new ArrayList<>();
+        for (int c = 0; c < COLORS.length; c++) {
+            for (Script script : SCRIPTS) {
+                int character = c;
+                tasks.add(() -> fighterShots(sprites.get(character), character, script));
+            }
+        }
+        tasks.add(VisualCheck::hudShots);
+        tasks.add(VisualCheck::pauseShots);
+        for (int s = 0; s < stages.length; s++) {
+            int index = s;
+            tasks.add(() -> stageShots(stages[index], index));
+        }
+
+        // Each task draws and compares its own shots, so the comparison runs in parallel too
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (Callable<List<Shot>> task : tasks) {
+            results.add(pool.submit(() -> {
+                List<String> lines = new ArrayList<>();
+                for (Shot shot : task.call()) lines.add(update ? save(shot, goldenDir) : compare(shot, goldenDir, diffDir, tolerance));
+                return lines;
+            }));
+        }
+        int shots = 0, failed = 0;
+        for (Future<List<String>> result : results) {
+            for (String line : result.get()) {
+                shots++;
+                if (line.isEmpty()) continue;
+                failed++;
+                System.out.println(line);
+            }
+        }
+        pool.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (update) {
+            System.out.printf("Saved %d goldens to %s in %.1f s%n", shots, goldenDir, seconds);
+        } else {
+            System.out.printf("%s: %d of %d states match (tolerance %d) in %.1f s%n",
+                    failed == 0 ? "OK" : "FAILED", shots - failed, shots, tolerance, seconds);
+            System.exit(failed == 0 ? 0 : 1);
+        }
+    }
+
+    // --- States ---
+
+    /** One script on one character, drawn at each capture frame. */
+    private static List<Shot> fighterShots(FighterSprites sprites, int character, Script script) {
+        Fighter fighter = sprites.newFighter(Match.startPositions(2)[0], GROUND_Y, COLORS[character]);
+        fighter.setDirection(script.name.endsWith("_left") ? -1 : 1);
+        List<Shot> shots = new ArrayList<>();
+        int next = 0;
+        for (int frame = 1; next < script.captures.length; frame++) {
+            if (script.event != null) script.event.accept(fighter, frame);
+            fighter.update(script.input.applyAsInt(frame));
+            fighter.resolveAnimation();
+            if (frame != script.captures[next]) continue;
+            next++;
+
+            BufferedImage image = new BufferedImage(FIGHTER_VIEW, FIGHTER_VIEW, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = begin(image);
+            g.setColor(BACKDROP);
+            g.fillRect(0, 0, FIGHTER_VIEW, FIGHTER_VIEW);
+            // Follow the fighter, so jumps and knockback stay in the picture
+            g.translate((FIGHTER_VIEW - Fighter.SPRITE_SIZE) / 2 - fighter.getX(), 30 - fighter.getY());
+            fighter.draw(g);
+            g.dispose();
+            shots.add(new Shot("fighter_" + character + "_" + script.name + "_" + frame, image));
+        }
+        return shots;
+    }
+
+    /** Duel, party and training HUDs, fresh and mid-fight (damage, meter, lost stocks). */
+    private static List<Shot> hudShots() {
+        List<Shot> shots = new ArrayList<>();
+        for (int count : new int[] {2, 4}) {
+            for (boolean training : new boolean[] {false, true}) {
+                if (training && count != 2) continue;
+                Match match = plainMatch(count);
+                Color[] colors = new Color[count];
+                System.arraycopy(COLORS, 0, colors, 0, count);
+                HudOverlay hud = new HudOverlay(WIDTH, STOCKS, Fighter.SUPER_ATTACK_COST);
+                hud.configure(colors, !training);
+                hud.setPulseClock(() -> 0L); // Super-ready border in its first (yellow) phase
+                String prefix = "hud_" + (training ? "training" : count == 2 ? "duel" : "party");
+
+                shots.add(new Shot(prefix + "_start", hudImage(hud, match, 90)));
+
+                // Mid-fight: uneven health and meter, the first fighter a stock down, one super ready
+                for (int i = 0; i < count; i++) {
+                    Fighter f = match.getFighter(i);
+                    f.takeDamage(Match.REGULAR_DAMAGE * (i + 2), 1);
+                    f.gainMeter(i == 1 ? Fighter.SUPER_ATTACK_COST : 15 * (i + 1));
+                }
+                Fighter first = match.getFighter(0);
+                while (first.getHealth() > 0) {
+                    first.takeDamage(Match.SUPER_DAMAGE, 1);
+                    while (first.isInvulnerable()) first.update(0); // Hits don't land while down
+                }
+                match.resolveKnockouts();
+                shots.add(new Shot(prefix + "_mid", hudImage(hud, match, 7)));
+            }
+        }
+        return shots;
+    }
+
+    /** The pause menu over a stage, with each option selected. */
+    private static List<Shot> pauseShots() {
+        List<Shot> shots = new ArrayList<>();
+        for (int selection = 0; selection < GamePanel.PAUSE_MENU_OPTIONS.length; selection++) {
+            BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = begin(image);
+            g.setColor(new Color(135, 206, 235));
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            GamePanel.drawPauseMenu(g, selection);
+            g.dispose();
+            shots.add(new Shot("pause_" + selection, image));
+        }
+        return shots;
+    }
+
+    /** A stage at its left edge, centre and right edge, and later in its animation. */
+    private static List<Shot> stageShots(Stage stage, int index) {
+        List<Shot> shots = new ArrayList<>();
+        Match match = plainMatch(2);
+        match.setWorld(stage.worldWidth, WIDTH - Fighter.SPRITE_SIZE);
+        StageRenderer renderer = new StageRenderer(WIDTH, HEIGHT);
+        renderer.setStage(stage);
+        renderer.setScrollRange(stage.worldWidth - WIDTH);
+        Camera camera = new Camera(WIDTH, HEIGHT);
+        camera.setWorldWidth(stage.worldWidth);
+
+        int[][] positions = { // Fighter x positions; -1 = the round start
+                {0, Fighter.SPRITE_SIZE * 3},
+                {-1, -1},
+                {stage.worldWidth - Fighter.SPRITE_SIZE * 4, stage.worldWidth - Fighter.SPRITE_SIZE},
+        };
+        String[] names = {"left", "start", "right"};
+        for (int p = 0; p < positions.length; p++) {
+            if (positions[p][0] >= 0) {
+                match.getFighter(0).setX(positions[p][0]);
+                match.getFighter(1).setX(positions[p][1]);
+            } else {
+                match.resetRound(GROUND_Y);
+            }
+            camera.reset(match);
+            for (int tick : new int[] {0, 150}) {
+                BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = begin(image);
+                renderer.draw(g, camera, tick);
+                g.dispose();
+                shots.add(new Shot("stage_" + index + "_" + names[p] + "_" + tick, image));
+            }
+        }
+        return shots;
+    }
+
+    private static Match plainMatch(int count) {
+        Fighter[] fighters = new Fighter[count];
+        int[] teams = new int[count];
+        int[] startX = Match.startPositions(count);
+        for (int i = 0; i < count; i++) {
+            fighters[i] = new Fighter(startX[i], GROUND_Y, COLORS[i], null, null, null, null, null, null);
+            teams[i] = i;
+        }
+        return new Match(fighters, teams, STOCKS);
+    }
+
+    private static BufferedImage hudImage(HudOverlay hud, Match match, int seconds) {
+        BufferedImage image = new BufferedImage(WIDTH, HudOverlay.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = begin(image);
+        g.setColor(BACKDROP);
+        g.fillRect(0, 0, WIDTH, HudOverlay.HEIGHT);
+        hud.draw(g, match, seconds);
+        g.dispose();
+        return image;
+    }
+
+    /** Graphics set up like GamePanel's scene drawing. */
+    private static Graphics2D begin(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return g;
+    }
+
+    // --- Goldens ---
+
+    /** Writes {@code shot} as its golden. Returns "" (nothing to report). */
+    private static String save(Shot shot, File goldenDir) throws IOException {
+        ImageIO.write(shot.image, "png", new File(goldenDir, shot.name + ".png"));
+        return "";
+    }
+
+    /** Returns "" if {@code shot} matches its golden, otherwise a line describing the mismatch. */
+    private static String compare(Shot shot, File goldenDir, File diffDir, int tolerance) throws IOException {
+        File file = new File(goldenDir, shot.name + ".png");
+        if (!file.isFile()) return "MISSING " + shot.name + " (run update first)";
+        BufferedImage golden = ImageIO.read(file);
+        BufferedImage actual = shot.image;
+        int width = actual.getWidth(), height = actual.getHeight();
+        if (golden.getWidth() != width || golden.getHeight() != height) {
+            ImageIO.write(actual, "png", new File(diffDir, shot.name + ".actual.png"));
+            return "SIZE    " + shot.name + ": " + golden.getWidth() + "x" + golden.getHeight() + " -> " + width + "x" + height;
+        }
+
+        int[] expectedRow = new int[width];
+        int[] actualRow = new int[width];
+        BufferedImage diff = null;
+        int differing = 0, worst = 0;
+        for (int y = 0; y < height; y++) {
+            golden.getRGB(0, y, width, 1, expectedRow, 0, width);
+            actual.getRGB(0, y, width, 1, actualRow, 0, width);
+            for (int x = 0; x < width; x++) {
+                int a = expectedRow[x], b = actualRow[x];
+                if (a == b) continue;
+                int delta = Math.max(Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)),
+                        Math.max(Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)), Math.abs((a & 0xFF) - (b & 0xFF))));
+                if (delta <= tolerance) continue;
+                if (diff == null) diff = fadedCopy(golden);
+                diff.setRGB(x, y, 0xFF0000);
+                differing++;
+                worst = Math.max(worst, delta);
+            }
+        }
+        if (differing == 0) return "";
+        ImageIO.write(actual, "png", new File(diffDir, shot.name + ".actual.png"));
+        ImageIO.write(diff, "png", new File(diffDir, shot.name + ".diff.png"));
+        return String.format("DIFF    %s: %d pixels (%.2f%%), worst channel delta %d", shot.name, differing,
+                100.0 * differing / (width * height), worst);
+    }
+
+    /** The golden at a third of its brightness, so red diff pixels stand out. */
+    private static BufferedImage fadedCopy(BufferedImage golden) {
+        BufferedImage copy = new BufferedImage(golden.getWidth(), golden.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < golden.getHeight(); y++) {
+            for (int x = 0; x < golden.getWidth(); x++) {
+                int p = golden.getRGB(x, y);
+                copy.setRGB(x, y, ((p >> 2) & 0x3F3F3F) + 0x101010);
+            }
+        }
+        return copy;
+    }
+}